@@ -68,7 +68,8 @@ export function useUpdateProduct() {
   const queryClient = useQueryClient();
 
   return useMutation({
-    mutationFn: ({ id, data }: { id: string; data: Partial<Product> }) =>
+    // The rating aggregate is maintained by votes (POST /products/{id}/ratings), never by an edit
+    mutationFn: ({ id, data }: { id: string; data: Partial<Omit<Product, 'id' | 'deleted' | 'rating'>> }) =>
       productsApi.update(id, data),
     onSuccess: () => {
       queryClient.invalidateQueries({ queryKey: ['products'] });
@@ -1,4 +1,4 @@
-import { Category, Product, AuditLog, PaginatedResponse, ProductFilters } from '@/types';
+import { Category, Product, ProductBatchItem, AuditLog, PaginatedResponse, ProductFilters } from '@/types';
 
 const API_BASE = '/api';
 
@@ -86,6 +86,10 @@ export const productsApi = {
   },
   
   getById: (id: string) => fetchApi<Product>(`/products/${id}`),
+
+  // Up to 100 products in one request, in the given order (found=false for missing/deleted ones)
+  getByIds: (ids: string[]) =>
+    fetchApi<ProductBatchItem[]>('/products/batch', { method: 'POST', body: JSON.stringify({ ids }) }),
   
   // Adjusted to match CreateProductRequest
   create: (data: any) => 
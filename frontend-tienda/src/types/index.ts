@@ -15,6 +15,8 @@ export interface Product {
   description: string;
   price: number;
   stock: number;
+  // stock minus units held by active reservations
+  available?: number;
   categoryId?: string;
   categoryName?: string;
   // UI might expect category object, we can keep it optional or map it
@@ -24,10 +26,17 @@ export interface Product {
   deleted?: boolean;
 }
 
+export interface ProductBatchItem {
+  id: string;
+  found: boolean;
+  product: Product | null;
+}
+
 export interface AuditLog {
   id: string;
   productId: string;
   action: 'CREATE' | 'UPDATE' | 'DELETE' | 'STOCK_UPDATE';
+  actions?: AuditLog['action'][];
   timestamp: string;
   details: Record<string, unknown>;
 }
@@ -0,0 +1,19 @@
+#!/usr/bin/env bash
+# Reproduce un registro de tráfico grabado con catalog.traffic.recording.enabled=true contra otra instancia
+# y muestra throughput y percentiles de latencia por endpoint (junto con los grabados en origen).
+#
+# La instancia de destino debe partir de una copia de los datos de origen: las escrituras se repiten con los mismos IDs.
+# Uso: scripts/replay-traffic.sh <registro> <url base> [velocidad=1] [peticiones en vuelo=256]
+#   p. ej. scripts/replay-traffic.sh traffic/requests.bin http://localhost:8081 4
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+if [ "$#" -lt 2 ]; then
+  sed -n '2,7p' "$0"
+  exit 2
+fi
+
+# TrafficReplay solo depende de la JDK: basta con las clases compiladas
+./mvnw -q compile
+java -cp target/classes com.hfsolutions.rest.traffic.TrafficReplay "$@"
@@ -0,0 +1,41 @@
+#!/usr/bin/env bash
+# Compara el tiempo de arranque (hasta readiness) y la latencia de la primera petición de las tres
+# variantes de imagen del backend: jar (Dockerfile), AOT + CDS (Dockerfile.cds) y nativa (Dockerfile.native).
+#
+# Requiere los servicios de base de datos levantados: docker compose up -d postgres mongodb
+# Uso: scripts/startup-benchmark.sh [repeticiones]
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+[ -f .env ] && set -a && . ./.env && set +a
+
+RUNS="${1:-3}"
+PORT=18081
+NETWORK="$(docker inspect rest_postgres -f '{{range $k, $v := .NetworkSettings.Networks}}{{$k}}{{end}}')"
+VARIANTS=("jar:Dockerfile" "cds:Dockerfile.cds" "native:Dockerfile.native")
+
+now_ms() { date +%s%3N; }
+
+for variant in "${VARIANTS[@]}"; do
+  name="${variant%%:*}"
+  docker build -q -f "${variant#*:}" -t "rest-bench:${name}" . > /dev/null
+done
+
+printf '%-8s %5s %14s %18s\n' "variant" "run" "ready (ms)" "first request (ms)"
+for variant in "${VARIANTS[@]}"; do
+  name="${variant%%:*}"
+  for run in $(seq 1 "$RUNS"); do
+    start=$(now_ms)
+    container=$(docker run -d --rm --network "$NETWORK" -p "${PORT}:8081" \
+      -e SPRING_DATASOURCE_URL="jdbc:postgresql://postgres:5432/${POSTGRES_DB}" \
+      -e SPRING_DATASOURCE_USERNAME="${POSTGRES_USER}" \
+      -e SPRING_DATASOURCE_PASSWORD="${POSTGRES_PASSWORD}" \
+      -e SPRING_DATA_MONGODB_URI="mongodb://mongodb:27017/${MONGO_DB}" \
+      "rest-bench:${name}")
+    until curl -fs "http://localhost:${PORT}/actuator/health/readiness" > /dev/null; do sleep 0.05; done
+    ready=$(( $(now_ms) - start ))
+    first=$(curl -s -o /dev/null -w '%{time_total}' "http://localhost:${PORT}/api/products")
+    printf '%-8s %5d %14d %18.0f\n' "$name" "$run" "$ready" "$(echo "$first * 1000" | bc)"
+    docker stop "$container" > /dev/null
+  done
+done
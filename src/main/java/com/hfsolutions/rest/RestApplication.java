@@ -4,10 +4,12 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableJpaRepositories("com.hfsolutions.rest.repository.jpa")
 @EnableMongoRepositories("com.hfsolutions.rest.repository.mongo")
+@EnableScheduling
 public class RestApplication {
 
     public static void main(String[] args) {
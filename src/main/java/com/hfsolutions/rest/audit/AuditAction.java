@@ -1,8 +1,22 @@
 package com.hfsolutions.rest.audit;
 
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
 public enum AuditAction {
     CREATE,
     UPDATE,
     DELETE,
-    STOCK_UPDATE
-}
\ No newline at end of file
+    STOCK_UPDATE;
+
+    private static final List<AuditAction> PRECEDENCE = List.of(CREATE, DELETE, UPDATE, STOCK_UPDATE);
+
+    /**
+     * Acción principal de un registro que agrupa varias: alta, baja, edición y, por último, cambio de stock.
+     */
+    public static AuditAction primary(Collection<AuditAction> actions) {
+        return actions.stream().min(Comparator.comparingInt(PRECEDENCE::indexOf))
+                .orElseThrow(() -> new IllegalArgumentException("Sin acciones de auditoría"));
+    }
+}
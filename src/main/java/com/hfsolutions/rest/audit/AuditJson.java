@@ -0,0 +1,64 @@
+package com.hfsolutions.rest.audit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Serialización de los detalles y el estado de un evento de auditoría en la tabla {@code audit_outbox}.
+ * <p>
+ * JSON no distingue un {@link BigDecimal} de un double ni un {@link UUID} de un texto, así que esos dos tipos se
+ * escriben etiquetados ({@code {"$decimal": "12.50"}}, {@code {"$uuid": "..."}}) y al leerlos se recuperan tal
+ * cual: MongoDB recibe los mismos tipos que publicó el servicio. Las entradas sin etiquetas (anteriores a este
+ * formato) se leen como JSON plano.
+ */
+final class AuditJson {
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+    private static final String DECIMAL = "$decimal";
+    private static final String UUID_TAG = "$uuid";
+
+    private AuditJson() {
+    }
+
+    static String write(ObjectMapper objectMapper, Map<String, Object> values) {
+        if (values == null) return null;
+        Map<String, Object> tagged = new LinkedHashMap<>();
+        values.forEach((key, value) -> {
+            if (value instanceof BigDecimal decimal) {
+                tagged.put(key, Map.of(DECIMAL, decimal.toPlainString()));
+            } else if (value instanceof UUID uuid) {
+                tagged.put(key, Map.of(UUID_TAG, uuid.toString()));
+            } else {
+                tagged.put(key, value);
+            }
+        });
+        try {
+            return objectMapper.writeValueAsString(tagged);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el evento de auditoría", e);
+        }
+    }
+
+    static Map<String, Object> read(ObjectMapper objectMapper, String json) {
+        if (json == null) return null;
+        Map<String, Object> values;
+        try {
+            values = objectMapper.readValue(json, MAP_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Evento de auditoría con JSON inválido", e);
+        }
+        values.replaceAll((key, value) -> value instanceof Map<?, ?> map && map.size() == 1 ? untag(map, value) : value);
+        return values;
+    }
+
+    private static Object untag(Map<?, ?> map, Object value) {
+        if (map.get(DECIMAL) instanceof String decimal) return new BigDecimal(decimal);
+        if (map.get(UUID_TAG) instanceof String uuid) return UUID.fromString(uuid);
+        return value;
+    }
+}
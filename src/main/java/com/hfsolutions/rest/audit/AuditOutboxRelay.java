@@ -0,0 +1,194 @@
+package com.hfsolutions.rest.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hfsolutions.rest.entity.AuditOutboxEntry;
+import com.hfsolutions.rest.repository.jpa.AuditOutboxRepository;
+import com.mongodb.MongoSocketException;
+import com.mongodb.MongoTimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Drena la tabla {@code audit_outbox} hacia MongoDB en lotes ordenados por {@code occurred_at}.
+ * Cada lote se bloquea, se copia a {@code product_audit} y se elimina en una misma transacción de Postgres.
+ * Un advisory lock garantiza que solo una instancia envía a la vez, de modo que el orden se mantiene entre réplicas.
+ * <p>
+ * Si MongoDB no está disponible, el envío se pausa con espera exponencial sin tocar las entradas pendientes. Si
+ * rechaza el lote por otro motivo, las entradas que no llegó a guardar se reintentan de una en una: las que fallan esperan su propio reintento (y
+ * con ellas los eventos posteriores del mismo producto) y tras {@code audit.outbox.max-attempts} intentos se
+ * apartan ({@code dead_lettered_at}) para que un evento defectuoso no bloquee al resto. Ningún evento se pierde:
+ * la entrega es al menos una vez y una caída entre la escritura en MongoDB y el commit puede duplicar eventos.
+ */
+@Component
+public class AuditOutboxRelay {
+    private static final Logger log = LoggerFactory.getLogger(AuditOutboxRelay.class);
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final AuditOutboxRepository outboxRepository;
+    private final ProductAuditStorage storage;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration maxBackoff;
+    private int unavailableFailures;
+    private Instant pausedUntil = Instant.MIN;
+
+    public AuditOutboxRelay(AuditOutboxRepository outboxRepository,
+                            ProductAuditStorage storage,
+                            ObjectMapper objectMapper,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${audit.outbox.batch-size:500}") int batchSize,
+                            @Value("${audit.outbox.max-attempts:10}") int maxAttempts,
+                            @Value("${audit.outbox.max-backoff:5m}") Duration maxBackoff) {
+        this.outboxRepository = outboxRepository;
+        this.storage = storage;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.maxBackoff = maxBackoff;
+    }
+
+    @Scheduled(fixedDelayString = "${audit.outbox.relay-interval-ms:500}")
+    public void relay() {
+        if (Instant.now().isBefore(pausedUntil)) return;
+        boolean more = true;
+        while (more) {
+            more = Boolean.TRUE.equals(transactionTemplate.execute(status -> relayBatch()));
+        }
+    }
+
+    /**
+     * Copia un lote a MongoDB.
+     * @return true si el lote estaba completo y probablemente quedan más eventos pendientes.
+     */
+    private boolean relayBatch() {
+        if (!outboxRepository.tryLockRelay()) return false;
+        List<AuditOutboxEntry> batch = outboxRepository.lockNextBatch(batchSize);
+        if (batch.isEmpty()) return false;
+
+        try {
+            storage.saveAll(batch.stream().map(this::toEntry).toList());
+            outboxRepository.deleteAllByIdInBatch(batch.stream().map(AuditOutboxEntry::getId).toList());
+            unavailableFailures = 0;
+            return batch.size() == batchSize;
+        } catch (Exception e) {
+            // La inserción es ordenada: lo ya guardado se da por enviado y no se repite
+            int saved = e instanceof ProductAuditStorage.SaveFailedException failure ? failure.saved() : 0;
+            if (saved > 0) outboxRepository.deleteAllByIdInBatch(batch.subList(0, saved).stream().map(AuditOutboxEntry::getId).toList());
+            if (isUnavailable(e)) {
+                pause(e);
+                return false;
+            }
+            log.warn("MongoDB rechazó un lote de {} eventos de auditoría tras guardar {}; el resto se reintenta de uno en uno: {}",
+                    batch.size(), saved, e.getMessage());
+            return relayOneByOne(batch.subList(saved, batch.size())) && batch.size() == batchSize;
+        }
+    }
+
+    private void pause(Exception e) {
+        unavailableFailures++;
+        pausedUntil = Instant.now().plus(backoff(unavailableFailures));
+        log.warn("MongoDB no disponible para la auditoría (intento {}); se reintenta a las {}: {}",
+                unavailableFailures, pausedUntil, e.getMessage());
+    }
+
+    /**
+     * Envía las entradas de una en una para aislar las que MongoDB rechaza. Tras el primer fallo de un producto,
+     * sus eventos posteriores del lote se dejan pendientes para no adelantarlos.
+     * @return false si MongoDB dejó de estar disponible a mitad del lote.
+     */
+    private boolean relayOneByOne(List<AuditOutboxEntry> batch) {
+        Instant now = Instant.now();
+        List<Long> sent = new ArrayList<>();
+        Set<UUID> waiting = new HashSet<>();
+        boolean available = true;
+        for (AuditOutboxEntry entry : batch) {
+            if (waiting.contains(entry.getProductId())) continue;
+            try {
+                storage.saveAll(List.of(toEntry(entry)));
+                sent.add(entry.getId());
+            } catch (Exception e) {
+                if (isUnavailable(e)) {
+                    // Lo ya enviado se elimina igualmente; el resto espera a que vuelva MongoDB
+                    pause(e);
+                    available = false;
+                    break;
+                }
+                waiting.add(entry.getProductId());
+                failed(entry, e, now);
+            }
+        }
+        if (!sent.isEmpty()) outboxRepository.deleteAllByIdInBatch(sent);
+        if (available) unavailableFailures = 0;
+        return available;
+    }
+
+    private void failed(AuditOutboxEntry entry, Exception e, Instant now) {
+        entry.setAttempts(entry.getAttempts() + 1);
+        String error = String.valueOf(e.getMessage());
+        entry.setLastError(error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+        if (entry.getAttempts() >= maxAttempts) {
+            entry.setDeadLetteredAt(now);
+            log.error("Evento de auditoría {} del producto {} apartado tras {} intentos: {}",
+                    entry.getId(), entry.getProductId(), entry.getAttempts(), error);
+        } else {
+            entry.setNextAttemptAt(now.plus(backoff(entry.getAttempts())));
+            log.warn("MongoDB rechazó el evento de auditoría {} del producto {} (intento {}): {}",
+                    entry.getId(), entry.getProductId(), entry.getAttempts(), error);
+        }
+    }
+
+    /**
+     * Errores de conexión o de disponibilidad de MongoDB: afectan a cualquier evento, no a uno concreto.
+     */
+    private boolean isUnavailable(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DataAccessResourceFailureException
+                    || cause instanceof TransientDataAccessException
+                    || cause instanceof MongoSocketException
+                    || cause instanceof MongoTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = Duration.ofSeconds(1L << Math.min(attempts, 16));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private ProductAuditStorage.Entry toEntry(AuditOutboxEntry entry) {
+        ProductAudit audit = ProductAudit.builder()
+                .productId(entry.getProductId())
+                .action(entry.getAction())
+                .actions(actions(entry))
+                .timestamp(entry.getOccurredAt())
+                .details(AuditJson.read(objectMapper, entry.getDetails()))
+                .build();
+        return new ProductAuditStorage.Entry(audit, AuditJson.read(objectMapper, entry.getState()));
+    }
+
+    private List<AuditAction> actions(AuditOutboxEntry entry) {
+        if (entry.getActions() == null) return List.of(entry.getAction());
+        return Arrays.stream(entry.getActions().split(",")).map(AuditAction::valueOf).toList();
+    }
+}
@@ -0,0 +1,40 @@
+package com.hfsolutions.rest.audit;
+
+import java.util.function.Supplier;
+
+/**
+ * Operación a la que pertenecen los eventos de auditoría publicados en el hilo actual.
+ * <p>
+ * {@link ProductAuditListener} agrupa los eventos de una transacción por producto. Cuando varias operaciones
+ * independientes comparten transacción (el group commit de {@code GroupCommitWriter}), cada una se ejecuta
+ * dentro de su propio ámbito para que sus eventos formen entradas separadas y el cambio de un llamante no
+ * sustituya al de otro sobre el mismo producto.
+ */
+public final class AuditScope {
+    private static final ThreadLocal<Object> CURRENT = new ThreadLocal<>();
+
+    private AuditScope() {
+    }
+
+    /**
+     * Ejecuta {@code work} con {@code operation} como ámbito de los eventos de auditoría que publique.
+     */
+    public static <T> T within(Object operation, Supplier<T> work) {
+        Object previous = CURRENT.get();
+        CURRENT.set(operation);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /** Ámbito actual, o {@code null} fuera de una operación agrupada. */
+    static Object current() {
+        return CURRENT.get();
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -29,9 +30,19 @@ public class ProductAudit {
     @Schema(description = "Tipo de acción realizada", example = "CREATE")
     private AuditAction action;
 
+    @Schema(description = "Todas las acciones agrupadas en el registro cuando una misma transacción realizó varias sobre el producto; 'action' es la principal", example = "[\"STOCK_UPDATE\", \"UPDATE\"]")
+    private List<AuditAction> actions;
+
     @Schema(description = "Fecha y hora del evento", example = "2023-10-01T12:00:00Z")
     private Instant timestamp;
 
     @Schema(description = "Detalles del cambio (pares clave-valor)", example = "{\"price\": 99.99, \"stock\": 10}")
     private Map<String, Object> details;
+
+    /**
+     * Acciones del registro; los anteriores a la agrupación por transacción solo tienen {@code action}.
+     */
+    public List<AuditAction> allActions() {
+        return actions != null && !actions.isEmpty() ? actions : List.of(action);
+    }
 }
\ No newline at end of file
@@ -3,4 +3,9 @@ package com.hfsolutions.rest.audit;
 import java.util.Map;
 import java.util.UUID;
 
-public record ProductAuditEvent(UUID productId, AuditAction action, Map<String, Object> details) { }
\ No newline at end of file
+/**
+ * Evento de auditoría de un producto.
+ * @param details Cambios realizados (pares clave-valor).
+ * @param state Estado completo del producto tras el cambio; se persiste como snapshot periódico.
+ */
+public record ProductAuditEvent(UUID productId, AuditAction action, Map<String, Object> details, Map<String, Object> state) { }
\ No newline at end of file
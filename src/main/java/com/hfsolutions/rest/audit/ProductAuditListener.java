@@ -1,30 +1,117 @@
 package com.hfsolutions.rest.audit;
 
-import com.hfsolutions.rest.repository.mongo.ProductAuditRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hfsolutions.rest.entity.AuditOutboxEntry;
+import com.hfsolutions.rest.repository.jpa.AuditOutboxRepository;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
+/**
+ * Registra los eventos de auditoría en la tabla {@code audit_outbox} dentro de la transacción que los publica,
+ * de modo que se confirman o se descartan junto con el cambio del producto.
+ * {@link AuditOutboxRelay} los copia después a MongoDB.
+ * <p>
+ * Los eventos de una transacción se acumulan y, justo antes del commit, se agrupan en una única entrada por
+ * producto con todas sus acciones y el diff combinado (p. ej. el UPDATE y el STOCK_UPDATE de una misma edición).
+ * Si la transacción agrupa varias operaciones independientes ({@link AuditScope}), cada operación produce sus
+ * propias entradas. Fuera de una transacción cada evento se registra al momento.
+ */
 @Component
 public class ProductAuditListener {
-    private final ProductAuditRepository repository;
+    private final AuditOutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
 
-    public ProductAuditListener(ProductAuditRepository repository) {
-        this.repository = repository;
+    public ProductAuditListener(AuditOutboxRepository outboxRepository, ObjectMapper objectMapper) {
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
     }
 
     @EventListener
     public void on(ProductAuditEvent event) {
-        try {
-            ProductAudit audit = ProductAudit.builder()
-                    .productId(event.productId())
-                    .action(event.action())
-                    .timestamp(Instant.now())
-                    .details(event.details())
-                    .build();
-            repository.save(audit);
-        } catch (Exception ignored) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            PendingAudit pending = new PendingAudit(event.productId());
+            pending.add(event);
+            outboxRepository.save(toEntry(pending));
+            return;
+        }
+        TransactionBuffer buffer = (TransactionBuffer) TransactionSynchronizationManager.getResource(this);
+        if (buffer == null) {
+            buffer = new TransactionBuffer();
+            TransactionSynchronizationManager.bindResource(this, buffer);
+            TransactionSynchronizationManager.registerSynchronization(buffer);
+        }
+        buffer.pending.computeIfAbsent(new PendingKey(AuditScope.current(), event.productId()),
+                key -> new PendingAudit(key.productId())).add(event);
+    }
+
+    private AuditOutboxEntry toEntry(PendingAudit pending) {
+        return AuditOutboxEntry.builder()
+                .productId(pending.productId)
+                .action(AuditAction.primary(pending.actions))
+                .actions(pending.actions.size() > 1
+                        ? pending.actions.stream().map(AuditAction::name).collect(Collectors.joining(","))
+                        : null)
+                .occurredAt(pending.occurredAt)
+                .details(AuditJson.write(objectMapper, pending.details))
+                .state(AuditJson.write(objectMapper, pending.state))
+                .build();
+    }
+
+    /**
+     * Eventos de la transacción en curso, agrupados por operación y producto en orden de publicación.
+     */
+    private class TransactionBuffer implements TransactionSynchronization {
+        private final Map<PendingKey, PendingAudit> pending = new LinkedHashMap<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            // Sigue dentro de la transacción: las entradas se confirman con el cambio del producto
+            outboxRepository.saveAll(pending.values().stream().map(ProductAuditListener.this::toEntry).toList());
+            pending.clear();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(ProductAuditListener.this);
+        }
+    }
+
+    /** Operación ({@code null} si la transacción no agrupa operaciones) y producto de una entrada. */
+    private record PendingKey(Object scope, UUID productId) {
+    }
+
+    /**
+     * Acciones, diff combinado (el último valor de cada campo) y estado final de un producto en la transacción.
+     */
+    private static class PendingAudit {
+        private final UUID productId;
+        private final Set<AuditAction> actions = new LinkedHashSet<>();
+        private Map<String, Object> details;
+        private Map<String, Object> state;
+        private Instant occurredAt;
+
+        PendingAudit(UUID productId) {
+            this.productId = productId;
+        }
+
+        void add(ProductAuditEvent event) {
+            actions.add(event.action());
+            if (event.details() != null) {
+                if (details == null) details = new LinkedHashMap<>();
+                details.putAll(event.details());
+            }
+            if (event.state() != null) state = event.state();
+            occurredAt = Instant.now();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,49 @@
+package com.hfsolutions.rest.audit;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Document("product_audit_rollups")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Conteo pre-agregado de eventos de auditoría por intervalo de tiempo, acción y producto")
+public class ProductAuditRollup {
+    @Id
+    @Schema(description = "Clave compuesta del intervalo (granularidad|inicio|producto|acción)", example = "HOUR|1696161600|*|UPDATE")
+    private String id;
+
+    @Schema(description = "Granularidad del intervalo", example = "HOUR")
+    private RollupGranularity granularity;
+
+    @Schema(description = "Inicio del intervalo (UTC)", example = "2023-10-01T12:00:00Z")
+    private Instant bucketStart;
+
+    @Schema(description = "ID del producto. Vacío en los conteos globales por acción", example = "123e4567-e89b-12d3-a456-426614174000")
+    private UUID productId;
+
+    @Schema(description = "Tipo de acción contabilizada", example = "UPDATE")
+    private AuditAction action;
+
+    @Schema(description = "Cantidad de eventos en el intervalo", example = "42")
+    private long count;
+
+    @Schema(description = "Fecha y hora del último evento del intervalo", example = "2023-10-01T12:59:31Z")
+    private Instant lastEventAt;
+
+    /**
+     * Construye la clave del documento de un intervalo. Un {@code productId} nulo identifica el conteo global de la acción.
+     */
+    public static String key(RollupGranularity granularity, Instant bucketStart, UUID productId, AuditAction action) {
+        return granularity.name() + "|" + bucketStart.getEpochSecond() + "|" + (productId != null ? productId : "*") + "|" + action.name();
+    }
+}
@@ -0,0 +1,407 @@
+package com.hfsolutions.rest.audit;
+
+import com.hfsolutions.rest.repository.mongo.ProductAuditRepository;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoNamespace;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.CreateCollectionOptions;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.TimeSeriesGranularity;
+import com.mongodb.client.model.TimeSeriesOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Almacenamiento de la auditoría de productos en MongoDB.
+ * Los eventos se guardan en la colección time-series {@code product_audit} (agrupada internamente por
+ * producto y hora; por defecto se conservan indefinidamente y la expiración es opcional) y, a medida que llegan, se mantienen conteos
+ * pre-agregados por hora y por día en {@code product_audit_rollups}, tanto por producto como globales por acción.
+ * Cada {@code audit.snapshot.interval} eventos de un producto se guarda además su estado completo en
+ * {@code product_audit_snapshots}, punto de partida para reconstruir estados históricos.
+ */
+@Component
+public class ProductAuditStorage {
+    public static final String COLLECTION = "product_audit";
+    public static final String ROLLUPS = "product_audit_rollups";
+    public static final String SNAPSHOTS = "product_audit_snapshots";
+    private static final String SEQUENCES = "product_audit_sequences";
+    private static final String LEGACY = COLLECTION + "_legacy";
+    private static final String MIGRATIONS = "product_audit_migrations";
+    private static final String TIMESERIES_MIGRATION = "timeseries";
+    private static final Duration MIGRATION_LEASE = Duration.ofMinutes(5);
+    private static final String HOURLY_TTL_INDEX = "hourly_rollup_ttl";
+    private static final int MIGRATION_BATCH = 1000;
+    private static final Logger log = LoggerFactory.getLogger(ProductAuditStorage.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final ProductAuditRepository repository;
+    private final Duration rawRetention;
+    private final Duration hourlyRollupRetention;
+    private final int snapshotInterval;
+    private final String instanceId = UUID.randomUUID().toString();
+    private volatile boolean prepared;
+
+    public ProductAuditStorage(MongoTemplate mongoTemplate,
+                               ProductAuditRepository repository,
+                               @Value("${audit.retention.raw-events:0}") Duration rawRetention,
+                               @Value("${audit.retention.hourly-rollups:400d}") Duration hourlyRollupRetention,
+                               @Value("${audit.snapshot.interval:50}") int snapshotInterval) {
+        this.mongoTemplate = mongoTemplate;
+        this.repository = repository;
+        this.rawRetention = rawRetention;
+        this.hourlyRollupRetention = hourlyRollupRetention;
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    /**
+     * Prepara las colecciones al arrancar. Si MongoDB no está disponible, o si otra instancia está migrando la
+     * colección, se reintenta en la siguiente escritura, de modo que la aplicación puede arrancar sin la base de
+     * auditoría.
+     */
+    @PostConstruct
+    public synchronized void prepare() {
+        if (prepared) return;
+        try {
+            MongoDatabase db = mongoTemplate.getDb();
+            ensureTimeSeries(db);
+            ensureRollupIndexes(db);
+            db.getCollection(SNAPSHOTS).createIndex(Indexes.compoundIndex(Indexes.ascending("productId"), Indexes.descending("timestamp"), Indexes.descending("sequence")));
+            prepared = true;
+        } catch (Exception e) {
+            log.warn("No se pudo preparar el almacenamiento de auditoría: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Persiste un lote de eventos de auditoría (en orden), actualiza sus conteos agregados con una única
+     * escritura masiva y guarda los snapshots que correspondan.
+     * <p>
+     * La colección time-series no impide {@code _id} repetidos, así que un evento guardado no debe reenviarse: si la
+     * inserción falla a mitad, los conteos y snapshots se calculan para los eventos ya guardados y se lanza
+     * {@link SaveFailedException} con cuántos son; si fallan los conteos o los snapshots, los eventos ya están
+     * guardados y solo se registra el error.
+     */
+    public void saveAll(List<Entry> entries) {
+        if (entries.isEmpty()) return;
+        if (!prepared) prepare();
+        // Sin preparar (p. ej. con la migración en curso en otra instancia) un insert crearía una colección clásica
+        if (!prepared) throw new DataAccessResourceFailureException("El almacenamiento de auditoría no está preparado");
+        for (Entry entry : entries) {
+            // IDs asignados aquí, en el orden del lote: desempatan los eventos del mismo milisegundo y los snapshots
+            // los conocen aunque la inserción falle a mitad
+            if (entry.audit().getId() == null) entry.audit().setId(ObjectId.get().toHexString());
+        }
+        try {
+            repository.insert(entries.stream().map(Entry::audit).toList());
+        } catch (RuntimeException e) {
+            int saved = savedBefore(e);
+            aggregate(entries.subList(0, saved));
+            throw new SaveFailedException(saved, e);
+        }
+        aggregate(entries);
+    }
+
+    /**
+     * Actualiza los conteos agregados y los snapshots de eventos ya guardados. Son datos derivados: un fallo no
+     * deshace ni repite la inserción de los eventos.
+     */
+    private void aggregate(List<Entry> entries) {
+        if (entries.isEmpty()) return;
+        try {
+            writeRollups(mongoTemplate.getDb(), counts(entries));
+            snapshotIfDue(entries);
+        } catch (RuntimeException e) {
+            log.error("No se pudieron actualizar los conteos o snapshots de {} eventos de auditoría ya guardados: {}",
+                    entries.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Eventos guardados antes del fallo: la inserción es ordenada, así que son los anteriores al primer error.
+     */
+    private static int savedBefore(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoBulkWriteException bulk && !bulk.getWriteErrors().isEmpty()) {
+                return bulk.getWriteErrors().get(0).getIndex();
+            }
+        }
+        return 0;
+    }
+
+    private Map<String, Document> counts(List<Entry> entries) {
+        Map<String, Document> counts = new HashMap<>();
+        for (Entry entry : entries) {
+            ProductAudit audit = entry.audit();
+            // Un registro agrupado cuenta una vez por cada acción, igual que si se hubieran guardado por separado
+            for (AuditAction action : audit.allActions()) {
+                count(counts, audit.getProductId(), action.name(), Date.from(audit.getTimestamp()));
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Lleva la cuenta de eventos por producto y guarda el estado completo en el primer evento registrado
+     * y luego cada {@code snapshotInterval} eventos. El contador avanza una sola vez por producto y lote.
+     */
+    private void snapshotIfDue(List<Entry> entries) {
+        Map<UUID, List<Entry>> byProduct = new LinkedHashMap<>();
+        for (Entry entry : entries) {
+            byProduct.computeIfAbsent(entry.audit().getProductId(), id -> new ArrayList<>()).add(entry);
+        }
+        List<ProductStateSnapshot> snapshots = new ArrayList<>();
+        for (Map.Entry<UUID, List<Entry>> group : byProduct.entrySet()) {
+            List<Entry> events = group.getValue();
+            Document counter = mongoTemplate.getCollection(SEQUENCES).findOneAndUpdate(
+                    Filters.eq("_id", group.getKey()),
+                    Updates.inc("seq", (long) events.size()),
+                    new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER));
+            long last = counter != null ? ((Number) counter.get("seq")).longValue() : events.size();
+            long sequence = last - events.size();
+            for (Entry event : events) {
+                sequence++;
+                if (event.state() != null && (sequence == 1 || sequence % snapshotInterval == 0)) {
+                    snapshots.add(ProductStateSnapshot.builder()
+                            .productId(group.getKey())
+                            .timestamp(event.audit().getTimestamp())
+                            .eventId(event.audit().getId())
+                            .sequence(sequence)
+                            .state(event.state())
+                            .build());
+                }
+            }
+        }
+        if (!snapshots.isEmpty()) mongoTemplate.insertAll(snapshots);
+    }
+
+    private void ensureTimeSeries(MongoDatabase db) {
+        Document info = collectionInfo(db, COLLECTION);
+        if (collectionInfo(db, LEGACY) != null || (info != null && !"timeseries".equals(info.getString("type")))) {
+            migrateLegacy(db);
+        } else if (info == null) {
+            createTimeSeries(db);
+        } else {
+            Object expireAfter = rawRetention.isZero() ? "off" : rawRetention.toSeconds();
+            db.runCommand(new Document("collMod", COLLECTION).append("expireAfterSeconds", expireAfter));
+        }
+    }
+
+    private void createTimeSeries(MongoDatabase db) {
+        CreateCollectionOptions options = new CreateCollectionOptions()
+                .timeSeriesOptions(new TimeSeriesOptions("timestamp")
+                        .metaField("productId")
+                        .granularity(TimeSeriesGranularity.HOURS));
+        if (!rawRetention.isZero()) {
+            options.expireAfter(rawRetention.toSeconds(), TimeUnit.SECONDS);
+        }
+        db.createCollection(COLLECTION, options);
+        db.getCollection(COLLECTION).createIndex(Indexes.compoundIndex(Indexes.ascending("action"), Indexes.descending("timestamp")));
+        log.info("Colección time-series '{}' creada (retención de eventos: {})", COLLECTION, rawRetention);
+    }
+
+    private Document collectionInfo(MongoDatabase db, String name) {
+        return db.listCollections().filter(Filters.eq("name", name)).first();
+    }
+
+    /**
+     * Convierte una colección {@code product_audit} clásica en time-series: la renombra, copia sus eventos en lotes
+     * a la nueva colección, calcula los conteos pre-agregados del historial y elimina la copia antigua.
+     * <p>
+     * Solo migra la instancia que tiene el bloqueo de {@code product_audit_migrations} (con un plazo que se renueva
+     * en cada lote, por si la instancia muere). Cada paso comprueba el estado en que lo dejó el anterior y el
+     * último {@code _id} copiado se guarda tras cada lote, así que una migración interrumpida se reanuda donde se
+     * quedó; como mucho se repite el último lote.
+     */
+    private void migrateLegacy(MongoDatabase db) {
+        MongoCollection<Document> migrations = db.getCollection(MIGRATIONS);
+        Document migration = lockMigration(migrations);
+        if (migration == null) {
+            throw new IllegalStateException("Otra instancia está migrando la colección de auditoría a time-series");
+        }
+
+        Document info = collectionInfo(db, COLLECTION);
+        if (info != null && !"timeseries".equals(info.getString("type"))) {
+            if (collectionInfo(db, LEGACY) != null) {
+                throw new IllegalStateException("Existen a la vez '" + COLLECTION + "' clásica y '" + LEGACY + "'; revise la migración a mano");
+            }
+            db.getCollection(COLLECTION).renameCollection(new MongoNamespace(db.getName(), LEGACY));
+            info = null;
+        }
+        if (info == null) createTimeSeries(db);
+
+        MongoCollection<Document> legacy = db.getCollection(LEGACY);
+        MongoCollection<Document> target = db.getCollection(COLLECTION);
+        Object lastId = migration.get("lastId");
+        Bson pending = lastId == null ? Filters.exists("timestamp") : Filters.and(Filters.exists("timestamp"), Filters.gt("_id", lastId));
+        Map<String, Document> counts = new HashMap<>();
+        List<Document> batch = new ArrayList<>(MIGRATION_BATCH);
+        long copied = 0;
+        for (Document doc : legacy.find(pending).sort(Sorts.ascending("_id"))) {
+            batch.add(doc);
+            if (doc.getString("action") != null) count(counts, doc.get("productId"), doc.getString("action"), doc.getDate("timestamp"));
+            if (batch.size() == MIGRATION_BATCH) {
+                copied += copyBatch(db, migrations, target, batch, counts);
+            }
+        }
+        if (!batch.isEmpty()) {
+            copied += copyBatch(db, migrations, target, batch, counts);
+        }
+
+        legacy.drop();
+        migrations.updateOne(Filters.eq("_id", TIMESERIES_MIGRATION), Updates.combine(
+                Updates.set("completedAt", new Date()), Updates.unset("owner"), Updates.unset("lockedUntil")));
+        log.info("Migrados {} eventos de auditoría a la colección time-series '{}'", copied, COLLECTION);
+    }
+
+    /**
+     * Copia un lote con sus conteos y registra su último {@code _id}, renovando el plazo del bloqueo.
+     */
+    private int copyBatch(MongoDatabase db, MongoCollection<Document> migrations, MongoCollection<Document> target,
+                          List<Document> batch, Map<String, Document> counts) {
+        int size = batch.size();
+        target.insertMany(batch);
+        writeRollups(db, counts);
+        migrations.updateOne(Filters.and(Filters.eq("_id", TIMESERIES_MIGRATION), Filters.eq("owner", instanceId)),
+                Updates.combine(Updates.set("lastId", batch.get(size - 1).get("_id")),
+                        Updates.set("lockedUntil", Date.from(Instant.now().plus(MIGRATION_LEASE)))));
+        batch.clear();
+        counts.clear();
+        return size;
+    }
+
+    /**
+     * Toma el bloqueo de la migración si está libre, caducado o ya es de esta instancia.
+     * @return Documento de la migración (con el último {@code _id} copiado), o {@code null} si lo tiene otra instancia.
+     */
+    private Document lockMigration(MongoCollection<Document> migrations) {
+        Date now = new Date();
+        try {
+            return migrations.findOneAndUpdate(
+                    Filters.and(Filters.eq("_id", TIMESERIES_MIGRATION), Filters.or(
+                            Filters.exists("lockedUntil", false),
+                            Filters.lt("lockedUntil", now),
+                            Filters.eq("owner", instanceId))),
+                    Updates.combine(Updates.set("owner", instanceId),
+                            Updates.set("lockedUntil", Date.from(now.toInstant().plus(MIGRATION_LEASE)))),
+                    new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER));
+        } catch (MongoCommandException | MongoWriteException e) {
+            // El upsert choca con el _id existente: el bloqueo lo tiene otra instancia
+            if (e.getCode() == 11000) return null;
+            throw e;
+        }
+    }
+
+    /**
+     * Acumula un evento en los conteos por hora y por día, tanto del producto como globales de la acción.
+     */
+    private void count(Map<String, Document> counts, Object productId, String action, Date timestamp) {
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            Instant bucket = granularity.truncate(timestamp.toInstant());
+            for (Object scope : new Object[]{productId, null}) {
+                UUID scopeId = scope instanceof UUID uuid ? uuid : null;
+                if (scope != null && scopeId == null) continue;
+                String key = ProductAuditRollup.key(granularity, bucket, scopeId, AuditAction.valueOf(action));
+                Document c = counts.computeIfAbsent(key, k -> new Document("granularity", granularity.name())
+                        .append("bucketStart", Date.from(bucket))
+                        .append("productId", scopeId)
+                        .append("action", action)
+                        .append("count", 0L)
+                        .append("lastEventAt", timestamp));
+                c.put("count", c.getLong("count") + 1);
+                if (timestamp.after(c.getDate("lastEventAt"))) c.put("lastEventAt", timestamp);
+            }
+        }
+    }
+
+    private void writeRollups(MongoDatabase db, Map<String, Document> counts) {
+        if (counts.isEmpty()) return;
+        List<WriteModel<Document>> updates = new ArrayList<>(counts.size());
+        for (Map.Entry<String, Document> entry : counts.entrySet()) {
+            Document c = entry.getValue();
+            updates.add(rollupUpdate(entry.getKey(), c.getString("granularity"), c.getDate("bucketStart"),
+                    c.get("productId"), c.getString("action"), c.getLong("count"), c.getDate("lastEventAt")));
+        }
+        db.getCollection(ROLLUPS).bulkWrite(updates, new BulkWriteOptions().ordered(false));
+    }
+
+    private UpdateOneModel<Document> rollupUpdate(String key, String granularity, Date bucketStart, Object productId,
+                                                  String action, long count, Date lastEventAt) {
+        List<Bson> changes = new ArrayList<>();
+        changes.add(Updates.setOnInsert("granularity", granularity));
+        changes.add(Updates.setOnInsert("bucketStart", bucketStart));
+        if (productId != null) changes.add(Updates.setOnInsert("productId", productId));
+        changes.add(Updates.setOnInsert("action", action));
+        changes.add(Updates.inc("count", count));
+        changes.add(Updates.max("lastEventAt", lastEventAt));
+        return new UpdateOneModel<>(Filters.eq("_id", key), Updates.combine(changes), new UpdateOptions().upsert(true));
+    }
+
+    private void ensureRollupIndexes(MongoDatabase db) {
+        MongoCollection<Document> rollups = db.getCollection(ROLLUPS);
+        rollups.createIndex(Indexes.ascending("granularity", "productId", "bucketStart"));
+        if (hourlyRollupRetention.isZero()) return;
+        try {
+            rollups.createIndex(Indexes.ascending("bucketStart"), new IndexOptions()
+                    .name(HOURLY_TTL_INDEX)
+                    .expireAfter(hourlyRollupRetention.toSeconds(), TimeUnit.SECONDS)
+                    .partialFilterExpression(Filters.eq("granularity", RollupGranularity.HOUR.name())));
+        } catch (MongoCommandException e) {
+            // El índice ya existe con otra retención: se ajusta en caliente
+            db.runCommand(new Document("collMod", ROLLUPS).append("index", new Document("name", HOURLY_TTL_INDEX)
+                    .append("expireAfterSeconds", hourlyRollupRetention.toSeconds())));
+        }
+    }
+
+    /**
+     * Evento a persistir junto con el estado completo del producto tras el cambio (puede ser {@code null}).
+     */
+    public record Entry(ProductAudit audit, Map<String, Object> state) { }
+
+    /**
+     * Fallo al insertar un lote después de guardar sus primeros {@code saved} eventos.
+     */
+    public static class SaveFailedException extends RuntimeException {
+        private final int saved;
+
+        SaveFailedException(int saved, RuntimeException cause) {
+            super(cause.getMessage(), cause);
+            this.saved = saved;
+        }
+
+        public int saved() {
+            return saved;
+        }
+    }
+}
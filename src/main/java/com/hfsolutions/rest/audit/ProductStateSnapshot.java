@@ -0,0 +1,39 @@
+package com.hfsolutions.rest.audit;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Estado completo de un producto guardado cada {@code audit.snapshot.interval} eventos de auditoría.
+ * Permite reconstruir el estado en cualquier instante aplicando como máximo ese número de cambios.
+ */
+@Document("product_audit_snapshots")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductStateSnapshot {
+    @Id
+    private String id;
+
+    private UUID productId;
+
+    /** Marca de tiempo del evento tras el cual se tomó el snapshot. */
+    private Instant timestamp;
+
+    /** ID del evento tras el cual se tomó el snapshot; desempata los eventos del mismo milisegundo. */
+    private String eventId;
+
+    /** Número de orden del evento dentro del historial del producto. */
+    private long sequence;
+
+    private Map<String, Object> state;
+}
@@ -0,0 +1,8 @@
+package com.hfsolutions.rest.catalog;
+
+/**
+ * Evento publicado cuando el catálogo cambia de forma masiva fuera de {@code ProductService}
+ * (por ejemplo, tras la carga inicial). Los modelos de lectura en memoria deben reconstruirse por completo.
+ */
+public record CatalogReloadedEvent() {
+}
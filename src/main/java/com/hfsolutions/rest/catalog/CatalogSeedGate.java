@@ -0,0 +1,43 @@
+package com.hfsolutions.rest.catalog;
+
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Puerta de disponibilidad mientras la carga inicial del catálogo corre en segundo plano.
+ * Mantiene el estado de readiness en {@link ReadinessState#REFUSING_TRAFFIC} (aunque Spring Boot intente
+ * marcar la aplicación como lista al terminar el arranque) hasta que la carga finaliza.
+ */
+@Component
+public class CatalogSeedGate {
+    private final ApplicationEventPublisher eventPublisher;
+    private volatile boolean seeding;
+
+    public CatalogSeedGate(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    public boolean isSeeding() {
+        return seeding;
+    }
+
+    public void close() {
+        seeding = true;
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+    }
+
+    public void open() {
+        seeding = false;
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.ACCEPTING_TRAFFIC);
+    }
+
+    @EventListener
+    public void on(AvailabilityChangeEvent<ReadinessState> event) {
+        if (seeding && event.getState() == ReadinessState.ACCEPTING_TRAFFIC) {
+            AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package com.hfsolutions.rest.catalog;
+
+import com.hfsolutions.rest.config.ReadYourWritesContext;
+import com.hfsolutions.rest.dto.product.response.ProductResponse;
+import com.hfsolutions.rest.entity.Category;
+import com.hfsolutions.rest.entity.Product;
+import com.hfsolutions.rest.mapper.ProductMapper;
+import com.hfsolutions.rest.repository.jpa.CategoryRepository;
+import com.hfsolutions.rest.repository.jpa.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Arranque en caliente desde una instantánea local del catálogo ({@link CatalogSnapshotFile}).
+ * <p>
+ * Con {@code catalog.snapshot.enabled=true} se escribe cada {@code interval-ms} una instantánea de los productos
+ * activos y las categorías. Al arrancar se proyecta en memoria la más reciente (si no supera {@code max-age}):
+ * {@link SuggestIndex} y {@link RelatedProducts} se construyen desde ella sin recorrer la base de datos, y
+ * {@code GET /api/products/{id}} y {@code /batch} se responden desde ella. Cuando la aplicación pasa a aceptar
+ * tráfico, un hilo lee de la base de datos los productos modificados desde la instantánea (columna
+ * {@code updated_at}, con un margen de {@code catch-up-overlap} para las transacciones que seguían abiertas) y
+ * los publica como {@link ProductChangeEvent} remotos para que los modelos de lectura se pongan al día. Al
+ * terminar, las lecturas vuelven a la base de datos y la instantánea deja de usarse.
+ * <p>
+ * Los cambios confirmados durante la puesta al día (locales o recibidos por {@link ClusterInvalidationBus}) se
+ * superponen a la instantánea y prevalecen sobre lo que lea la puesta al día. Si esta falla, se publica un
+ * {@link CatalogReloadedEvent} para reconstruir los modelos de lectura desde la base de datos.
+ * <p>
+ * Métricas: {@code catalog.snapshot.write} (duración de cada escritura), {@code catalog.snapshot.hits}
+ * (lecturas servidas desde la instantánea) y {@code catalog.snapshot.catch-up.changes}.
+ */
+@Component
+public class CatalogSnapshot {
+    private static final Logger log = LoggerFactory.getLogger(CatalogSnapshot.class);
+    private static final int LOAD_CHUNK = 1000;
+    // Marca en la superposición de un producto eliminado desde la instantánea
+    private static final ProductResponse REMOVED = new ProductResponse();
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CatalogSeedGate seedGate;
+    private final boolean enabled;
+    private final Path path;
+    private final Duration catchUpOverlap;
+    private final Duration maxAge;
+    private final Timer writes;
+    private final Counter hits;
+    private final Counter catchUpChanges;
+
+    // No null solo mientras se sirve desde la instantánea
+    private volatile Warmup warmup;
+
+    public CatalogSnapshot(ProductRepository productRepository,
+                           CategoryRepository categoryRepository,
+                           JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           ApplicationEventPublisher eventPublisher,
+                           CatalogSeedGate seedGate,
+                           MeterRegistry meterRegistry,
+                           @Value("${catalog.snapshot.enabled:false}") boolean enabled,
+                           @Value("${catalog.snapshot.path:snapshot/catalog.bin}") String path,
+                           @Value("${catalog.snapshot.catch-up-overlap:5m}") Duration catchUpOverlap,
+                           @Value("${catalog.snapshot.max-age:24h}") Duration maxAge) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // La puesta al día lee de la primaria: una réplica retrasada podría devolver un estado anterior al publicado
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.seedGate = seedGate;
+        this.enabled = enabled;
+        this.path = Path.of(path);
+        this.catchUpOverlap = catchUpOverlap;
+        this.maxAge = maxAge;
+        this.writes = Timer.builder("catalog.snapshot.write").register(meterRegistry);
+        this.hits = Counter.builder("catalog.snapshot.hits").register(meterRegistry);
+        this.catchUpChanges = Counter.builder("catalog.snapshot.catch-up.changes").register(meterRegistry);
+    }
+
+    /**
+     * Proyecta la instantánea existente antes de que los modelos de lectura se construyan. No accede a la base de datos.
+     */
+    @PostConstruct
+    public void open() {
+        if (!enabled || !Files.isRegularFile(path)) return;
+        try {
+            CatalogSnapshotFile file = CatalogSnapshotFile.map(path);
+            Duration age = Duration.between(file.stamp(), Instant.now());
+            if (age.compareTo(maxAge) > 0) {
+                log.info("Instantánea del catálogo descartada por antigua ({} > {}); arranque en frío", age, maxAge);
+                return;
+            }
+            warmup = new Warmup(file);
+            log.info("Instantánea del catálogo proyectada: {} productos, {} categorías, de hace {} s",
+                    file.size(), file.categories().size(), age.toSeconds());
+        } catch (IOException e) {
+            log.warn("No se pudo leer la instantánea del catálogo {}; arranque en frío: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Producto activo según la instantánea, mientras dura el arranque en caliente. Vacío si ya no se sirve desde
+     * ella, si no lo contiene (puede ser posterior) o si fue eliminado: en esos casos se consulta la base de datos.
+     */
+    public Optional<ProductResponse> find(UUID id) {
+        Warmup current = warmup;
+        // Una petición fijada a la primaria tras escribir no puede leer un estado anterior
+        if (current == null || ReadYourWritesContext.isPinnedToPrimary()) return Optional.empty();
+        ProductResponse product = current.get(id);
+        if (product == null || product == REMOVED) return Optional.empty();
+        hits.increment();
+        return Optional.of(product);
+    }
+
+    /**
+     * Recorre las categorías y los productos activos de la instantánea, con los cambios ya conocidos aplicados.
+     * Lo usan los modelos de lectura en su construcción inicial.
+     * @return false (sin recorrer nada) si no se arrancó desde una instantánea o ya terminó la puesta al día.
+     */
+    public boolean load(BiConsumer<UUID, String> categoryAction, Consumer<ProductResponse> productAction) {
+        Warmup current = warmup;
+        if (current == null) return false;
+        current.categories.forEach(categoryAction);
+        current.file.forEach(product -> {
+            ProductResponse changed = current.products.get(product.getId());
+            if (changed == null) productAction.accept(current.withCategoryName(product));
+            else if (changed != REMOVED) productAction.accept(changed);
+        });
+        current.products.forEach((id, product) -> {
+            if (product != REMOVED && !current.file.contains(id)) productAction.accept(product);
+        });
+        return true;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void on(ProductChangeEvent event) {
+        Warmup current = warmup;
+        if (current != null) current.products.put(event.productId(), event.isRemoval() ? REMOVED : event.product());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void on(CategoryChangeEvent event) {
+        Warmup current = warmup;
+        if (current == null) return;
+        Optional<Category> category = categoryRepository.findById(event.categoryId());
+        if (category.isPresent()) current.categories.put(event.categoryId(), category.get().getName());
+        else current.categories.remove(event.categoryId());
+    }
+
+    @EventListener
+    public void on(CatalogReloadedEvent event) {
+        // Los modelos de lectura se reconstruyen desde la base de datos: la instantánea ya no sirve
+        warmup = null;
+    }
+
+    /**
+     * Empieza la puesta al día cuando ya se han construido los modelos de lectura (tras {@code ApplicationReadyEvent}).
+     */
+    @EventListener
+    public void on(AvailabilityChangeEvent<ReadinessState> event) {
+        Warmup current = warmup;
+        if (current == null || event.getState() != ReadinessState.ACCEPTING_TRAFFIC || !current.catchingUp.compareAndSet(false, true)) return;
+        Thread worker = new Thread(() -> catchUp(current), "catalog-snapshot-catch-up");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void catchUp(Warmup current) {
+        long start = System.nanoTime();
+        try {
+            // Primero los nombres de categoría vigentes, para comparar los productos con la instantánea sin falsos cambios
+            Map<UUID, String> categories = new HashMap<>();
+            transactionTemplate.executeWithoutResult(status -> categoryRepository.findAll()
+                    .forEach(category -> categories.put(category.getId(), category.getName())));
+            Set<UUID> removedCategories = new HashSet<>(current.file.categories().keySet());
+            removedCategories.removeAll(categories.keySet());
+            current.categories.putAll(categories);
+            current.categories.keySet().retainAll(categories.keySet());
+
+            Instant since = current.file.stamp().minus(catchUpOverlap);
+            int changes = 0;
+            UUID after = new UUID(0, 0);
+            List<Product> chunk;
+            do {
+                UUID from = after;
+                Map<UUID, ProductResponse> states = new LinkedHashMap<>();
+                chunk = transactionTemplate.execute(status -> {
+                    List<Product> products = productRepository.findChangedSince(since, from, PageRequest.ofSize(LOAD_CHUNK));
+                    for (Product product : products) {
+                        states.put(product.getId(), product.isDeleted() ? REMOVED : ProductMapper.toProductResponse(product));
+                    }
+                    return products;
+                });
+                for (Map.Entry<UUID, ProductResponse> state : states.entrySet()) {
+                    if (catchUp(current, state.getKey(), state.getValue())) changes++;
+                }
+                if (!chunk.isEmpty()) after = chunk.get(chunk.size() - 1).getId();
+            } while (chunk.size() == LOAD_CHUNK);
+
+            for (Map.Entry<UUID, String> category : categories.entrySet()) {
+                if (!category.getValue().equals(current.file.categories().get(category.getKey()))) {
+                    eventPublisher.publishEvent(new CategoryChangeEvent(category.getKey(), true));
+                    changes++;
+                }
+            }
+            if (!removedCategories.isEmpty()) {
+                // Una categoría solo se elimina sin productos activos, y sus eliminados se purgan con ella: sin fila que leer
+                for (UUID categoryId : removedCategories) eventPublisher.publishEvent(new CategoryChangeEvent(categoryId, true));
+                int[] purged = {0};
+                current.file.forEach(product -> {
+                    if (removedCategories.contains(product.getCategoryId()) && catchUp(current, product.getId(), REMOVED)) purged[0]++;
+                });
+                changes += removedCategories.size() + purged[0];
+            }
+
+            catchUpChanges.increment(changes);
+            log.info("Instantánea del catálogo puesta al día: {} cambios en {} ms; las lecturas vuelven a la base de datos",
+                    changes, (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.error("Falló la puesta al día de la instantánea del catálogo; se reconstruyen los modelos de lectura", e);
+            eventPublisher.publishEvent(new CatalogReloadedEvent());
+        } finally {
+            if (warmup == current) warmup = null;
+        }
+    }
+
+    /**
+     * Aplica un estado leído de la base de datos salvo que ya se conozca uno posterior (un cambio confirmado
+     * durante la puesta al día) o que coincida con la instantánea.
+     * @return true si el estado era nuevo y se publicó.
+     */
+    private boolean catchUp(Warmup current, UUID productId, ProductResponse state) {
+        ProductResponse snapshotted = current.file.find(productId);
+        boolean unchanged = state == REMOVED ? snapshotted == null : state.equals(current.withCategoryName(snapshotted));
+        if (unchanged || current.products.putIfAbsent(productId, state) != null) return false;
+        eventPublisher.publishEvent(new ProductChangeEvent(productId, state == REMOVED ? null : state, true));
+        return true;
+    }
+
+    /**
+     * Escribe una instantánea nueva. El instante se toma antes de leer los productos, de modo que cualquier cambio
+     * confirmado durante la lectura queda dentro de la siguiente puesta al día. Las lecturas pueden ir a una réplica:
+     * el margen de {@code catch-up-overlap} cubre también su retraso.
+     */
+    @Scheduled(initialDelayString = "${catalog.snapshot.interval-ms:600000}", fixedDelayString = "${catalog.snapshot.interval-ms:600000}")
+    public void write() {
+        // Durante la carga inicial los productos aún no son visibles
+        if (!enabled || seedGate.isSeeding()) return;
+        long start = System.nanoTime();
+        Instant stamp = readOnlyTransaction.execute(status -> jdbcTemplate.queryForObject("SELECT now()", Timestamp.class)).toInstant();
+        Map<UUID, String> categories = new HashMap<>();
+        readOnlyTransaction.executeWithoutResult(status -> categoryRepository.findAll()
+                .forEach(category -> categories.put(category.getId(), category.getName())));
+
+        int written = 0;
+        try (CatalogSnapshotFile.Writer writer = CatalogSnapshotFile.writer(path, stamp, categories)) {
+            UUID after = new UUID(0, 0);
+            List<ProductResponse> chunk;
+            do {
+                UUID from = after;
+                // Una transacción por bloque: el contexto de persistencia no acumula todo el catálogo
+                chunk = readOnlyTransaction.execute(status -> productRepository.findActiveAfter(from, PageRequest.ofSize(LOAD_CHUNK))
+                        .stream().map(ProductMapper::toProductResponse).toList());
+                for (ProductResponse product : chunk) writer.append(product);
+                written += chunk.size();
+                if (!chunk.isEmpty()) after = chunk.get(chunk.size() - 1).getId();
+            } while (chunk.size() == LOAD_CHUNK);
+            writer.commit();
+        } catch (IOException e) {
+            log.warn("No se pudo escribir la instantánea del catálogo en {}: {}", path, e.getMessage());
+            return;
+        }
+        long elapsed = System.nanoTime() - start;
+        writes.record(elapsed, TimeUnit.NANOSECONDS);
+        log.info("Instantánea del catálogo escrita: {} productos en {} ms", written, elapsed / 1_000_000);
+    }
+
+    /**
+     * Estado del arranque en caliente: la instantánea proyectada, los cambios de producto conocidos desde entonces
+     * ({@link #REMOVED} si se eliminó) y los nombres de categoría vigentes.
+     */
+    private static final class Warmup {
+        private final CatalogSnapshotFile file;
+        private final Map<UUID, ProductResponse> products = new ConcurrentHashMap<>();
+        private final Map<UUID, String> categories;
+        private final AtomicBoolean catchingUp = new AtomicBoolean();
+
+        Warmup(CatalogSnapshotFile file) {
+            this.file = file;
+            this.categories = new ConcurrentHashMap<>(file.categories());
+        }
+
+        ProductResponse get(UUID id) {
+            ProductResponse changed = products.get(id);
+            return changed != null ? changed : withCategoryName(file.find(id));
+        }
+
+        /** Los productos de la instantánea llevan el nombre de categoría de entonces. */
+        ProductResponse withCategoryName(ProductResponse product) {
+            if (product != null) product.setCategoryName(categories.get(product.getCategoryId()));
+            return product;
+        }
+    }
+}
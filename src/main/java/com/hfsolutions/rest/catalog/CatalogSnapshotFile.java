@@ -0,0 +1,343 @@
+package com.hfsolutions.rest.catalog;
+
+import com.hfsolutions.rest.dto.product.response.ProductResponse;
+import com.hfsolutions.rest.dto.product.response.RatingResponse;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Fichero binario con una instantánea del catálogo activo (categorías y productos con la forma de
+ * {@link ProductResponse}) que se lee proyectado en memoria: abrirlo solo comprueba la suma de control y carga la
+ * tabla de categorías; cada producto se decodifica del fichero cuando se pide.
+ * <p>
+ * Formato (big-endian): cabecera ({@code MAGIC}, versión del formato, instante de la instantánea en milisegundos y
+ * número de categorías), categorías (ID y nombre), productos, índice de los productos ordenado por ID (ID y posición
+ * del registro, para buscar por búsqueda binaria) y pie (número de productos, posición de los productos y del
+ * índice, CRC32 de todo lo anterior y {@code MAGIC}). Las cadenas se guardan como su longitud en bytes (-1 si es
+ * null) seguida del texto en UTF-8.
+ * <p>
+ * El {@link Writer} escribe en un fichero temporal y lo renombra de forma atómica al confirmar: nunca se lee una
+ * instantánea a medias, y una ya proyectada sigue siendo válida aunque se sustituya el fichero.
+ */
+public final class CatalogSnapshotFile {
+    // "HFCS"
+    private static final int MAGIC = 0x48464353;
+    private static final int FORMAT = 2;
+    private static final int HEADER_BYTES = 20;
+    private static final int FOOTER_BYTES = 24;
+    // El CRC y el MAGIC final no entran en la suma de control
+    private static final int UNCHECKED_BYTES = 12;
+    private static final int INDEX_ENTRY_BYTES = 20;
+    private static final int NULL_INT = Integer.MIN_VALUE;
+    // Deja margen para el índice y el pie por debajo del límite de 2 GB de una proyección
+    private static final int MAX_DATA_BYTES = 1 << 30;
+    private static final Comparator<IndexEntry> BY_ID = Comparator.comparingLong(IndexEntry::msb).thenComparingLong(IndexEntry::lsb);
+
+    private final ByteBuffer buffer;
+    private final Instant stamp;
+    private final int productCount;
+    private final int productsOffset;
+    private final int indexOffset;
+    private final Map<UUID, String> categories;
+
+    private CatalogSnapshotFile(ByteBuffer buffer) throws IOException {
+        int size = buffer.capacity();
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(size - 4) != MAGIC) {
+            throw new IOException("El fichero no es una instantánea del catálogo");
+        }
+        if (buffer.getInt(4) != FORMAT) {
+            throw new IOException("Versión de formato de instantánea no soportada: " + buffer.getInt(4));
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().limit(size - UNCHECKED_BYTES));
+        if (crc.getValue() != buffer.getLong(size - UNCHECKED_BYTES)) {
+            throw new IOException("Suma de control de la instantánea incorrecta");
+        }
+        this.buffer = buffer;
+        this.stamp = Instant.ofEpochMilli(buffer.getLong(8));
+        this.productCount = buffer.getInt(size - FOOTER_BYTES);
+        this.productsOffset = buffer.getInt(size - FOOTER_BYTES + 4);
+        this.indexOffset = buffer.getInt(size - FOOTER_BYTES + 8);
+
+        int categoryCount = buffer.getInt(16);
+        Map<UUID, String> names = new HashMap<>(categoryCount * 2);
+        Cursor cursor = new Cursor(HEADER_BYTES);
+        for (int i = 0; i < categoryCount; i++) {
+            names.put(cursor.nextUuid(), cursor.nextString());
+        }
+        this.categories = Collections.unmodifiableMap(names);
+    }
+
+    /**
+     * Proyecta en memoria una instantánea escrita con {@link Writer}.
+     * @throws IOException si el fichero no se puede leer, está truncado o corrupto, o es de otra versión del formato.
+     */
+    public static CatalogSnapshotFile map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + FOOTER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Tamaño de instantánea inválido: " + size + " bytes");
+            }
+            // La proyección sigue siendo válida después de cerrar el canal
+            return new CatalogSnapshotFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    public static Writer writer(Path path, Instant stamp, Map<UUID, String> categories) throws IOException {
+        return new Writer(path, stamp, categories);
+    }
+
+    /** Instante de la base de datos anterior a la lectura de los productos. */
+    public Instant stamp() {
+        return stamp;
+    }
+
+    public int size() {
+        return productCount;
+    }
+
+    public Map<UUID, String> categories() {
+        return categories;
+    }
+
+    /**
+     * Producto de la instantánea, o null si no lo contiene. Búsqueda binaria en el índice: O(log n) accesos.
+     */
+    public ProductResponse find(UUID id) {
+        int position = position(id);
+        return position < 0 ? null : new Cursor(buffer.getInt(indexOffset + position * INDEX_ENTRY_BYTES + 16)).nextProduct();
+    }
+
+    public boolean contains(UUID id) {
+        return position(id) >= 0;
+    }
+
+    /**
+     * Recorre los productos en el orden en que se escribieron (secuencialmente en el fichero).
+     */
+    public void forEach(Consumer<ProductResponse> action) {
+        Cursor cursor = new Cursor(productsOffset);
+        for (int i = 0; i < productCount; i++) {
+            action.accept(cursor.nextProduct());
+        }
+    }
+
+    private int position(UUID id) {
+        long msb = id.getMostSignificantBits();
+        long lsb = id.getLeastSignificantBits();
+        int lo = 0;
+        int hi = productCount - 1;
+        while (lo <= hi) {
+            int middle = (lo + hi) >>> 1;
+            int entry = indexOffset + middle * INDEX_ENTRY_BYTES;
+            int cmp = Long.compare(buffer.getLong(entry), msb);
+            if (cmp == 0) cmp = Long.compare(buffer.getLong(entry + 8), lsb);
+            if (cmp < 0) lo = middle + 1;
+            else if (cmp > 0) hi = middle - 1;
+            else return middle;
+        }
+        return -1;
+    }
+
+    /**
+     * Lectura secuencial con accesos absolutos al buffer compartido, que así puede leerse desde varios hilos.
+     */
+    private final class Cursor {
+        private int position;
+
+        Cursor(int position) {
+            this.position = position;
+        }
+
+        ProductResponse nextProduct() {
+            UUID id = nextUuid();
+            UUID categoryId = nextUuid();
+            int scale = nextInt();
+            BigDecimal price = new BigDecimal(new BigInteger(nextBytes()), scale);
+            Integer stock = nextNullableInt();
+            Integer available = nextNullableInt();
+            RatingResponse rating = null;
+            if (buffer.get(position++) != 0) {
+                double rate = buffer.getDouble(position);
+                position += 8;
+                rating = new RatingResponse(Double.isNaN(rate) ? null : rate, nextNullableInt());
+            }
+            String title = nextString();
+            String description = nextString();
+            String image = nextString();
+            return ProductResponse.builder()
+                    .id(id)
+                    .title(title)
+                    .description(description)
+                    .price(price)
+                    .stock(stock)
+                    .available(available)
+                    .categoryId(categoryId)
+                    .categoryName(categories.get(categoryId))
+                    .rating(rating)
+                    .image(image)
+                    .build();
+        }
+
+        UUID nextUuid() {
+            UUID uuid = new UUID(buffer.getLong(position), buffer.getLong(position + 8));
+            position += 16;
+            return uuid;
+        }
+
+        int nextInt() {
+            int value = buffer.getInt(position);
+            position += 4;
+            return value;
+        }
+
+        Integer nextNullableInt() {
+            int value = nextInt();
+            return value == NULL_INT ? null : value;
+        }
+
+        byte[] nextBytes() {
+            byte[] bytes = new byte[nextInt()];
+            buffer.get(position, bytes);
+            position += bytes.length;
+            return bytes;
+        }
+
+        String nextString() {
+            if (buffer.getInt(position) < 0) {
+                position += 4;
+                return null;
+            }
+            return new String(nextBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Escritura de una instantánea: las categorías al crearlo, los productos uno a uno con {@link #append} y el
+     * índice y el pie al confirmar con {@link #commit}. Si se cierra sin confirmar, se descarta el fichero temporal.
+     */
+    public static final class Writer implements Closeable {
+        private final Path path;
+        private final Path temporary;
+        private final FileChannel channel;
+        private final CRC32 crc = new CRC32();
+        private final DataOutputStream out;
+        private final List<IndexEntry> index = new ArrayList<>();
+        private final int productsOffset;
+        private boolean committed;
+
+        private Writer(Path path, Instant stamp, Map<UUID, String> categories) throws IOException {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) Files.createDirectories(parent);
+            this.path = path;
+            this.temporary = path.resolveSibling(path.getFileName() + ".tmp");
+            this.channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            this.out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(Channels.newOutputStream(channel), crc), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeLong(stamp.toEpochMilli());
+            out.writeInt(categories.size());
+            for (Map.Entry<UUID, String> category : categories.entrySet()) {
+                writeUuid(category.getKey());
+                writeString(category.getValue());
+            }
+            this.productsOffset = out.size();
+        }
+
+        public void append(ProductResponse product) throws IOException {
+            if (out.size() > MAX_DATA_BYTES) throw new IOException("La instantánea supera el tamaño máximo de " + MAX_DATA_BYTES + " bytes");
+            index.add(new IndexEntry(product.getId().getMostSignificantBits(), product.getId().getLeastSignificantBits(), out.size()));
+            writeUuid(product.getId());
+            writeUuid(product.getCategoryId());
+            out.writeInt(product.getPrice().scale());
+            writeBytes(product.getPrice().unscaledValue().toByteArray());
+            out.writeInt(product.getStock() == null ? NULL_INT : product.getStock());
+            out.writeInt(product.getAvailable() == null ? NULL_INT : product.getAvailable());
+            RatingResponse rating = product.getRating();
+            out.writeBoolean(rating != null);
+            if (rating != null) {
+                out.writeDouble(rating.getRate() == null ? Double.NaN : rating.getRate());
+                out.writeInt(rating.getCount() == null ? NULL_INT : rating.getCount());
+            }
+            writeString(product.getTitle());
+            writeString(product.getDescription());
+            writeString(product.getImage());
+        }
+
+        /**
+         * Escribe el índice y el pie, fuerza los datos a disco y sustituye la instantánea anterior.
+         */
+        public void commit() throws IOException {
+            int indexOffset = out.size();
+            index.sort(BY_ID);
+            for (IndexEntry entry : index) {
+                out.writeLong(entry.msb());
+                out.writeLong(entry.lsb());
+                out.writeInt(entry.offset());
+            }
+            out.writeInt(index.size());
+            out.writeInt(productsOffset);
+            out.writeInt(indexOffset);
+            out.flush();
+            out.writeLong(crc.getValue());
+            out.writeInt(MAGIC);
+            out.flush();
+            channel.force(true);
+            out.close();
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            committed = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (committed) return;
+            out.close();
+            Files.deleteIfExists(temporary);
+        }
+
+        private void writeUuid(UUID uuid) throws IOException {
+            out.writeLong(uuid.getMostSignificantBits());
+            out.writeLong(uuid.getLeastSignificantBits());
+        }
+
+        private void writeBytes(byte[] bytes) throws IOException {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                out.writeInt(-1);
+                return;
+            }
+            writeBytes(value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private record IndexEntry(long msb, long lsb, int offset) {
+    }
+}
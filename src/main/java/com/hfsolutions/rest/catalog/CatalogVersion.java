@@ -0,0 +1,35 @@
+package com.hfsolutions.rest.catalog;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versión monótona del catálogo. Se incrementa con cada cambio confirmado de productos o categorías (y con cada recarga completa) y
+ * permite a las cachés de respuestas descartar por clave cualquier entrada generada con datos anteriores.
+ */
+@Component
+public class CatalogVersion {
+    private final AtomicLong version = new AtomicLong();
+
+    public long current() {
+        return version.get();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void on(ProductChangeEvent event) {
+        version.incrementAndGet();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void on(CategoryChangeEvent event) {
+        version.incrementAndGet();
+    }
+
+    @EventListener
+    public void on(CatalogReloadedEvent event) {
+        version.incrementAndGet();
+    }
+}
@@ -0,0 +1,16 @@
+package com.hfsolutions.rest.catalog;
+
+import java.util.UUID;
+
+/**
+ * Evento publicado por {@code CategoryService} al crear, renombrar o eliminar una categoría.
+ * @param categoryId ID de la categoría afectada.
+ * @param remote true si el cambio no se hizo en esta instancia: llegó por {@link ClusterInvalidationBus} o lo
+ *               recuperó {@link CatalogSnapshot} al ponerse al día (no debe reenviarse).
+ */
+public record CategoryChangeEvent(UUID categoryId, boolean remote) {
+
+    public CategoryChangeEvent(UUID categoryId) {
+        this(categoryId, false);
+    }
+}
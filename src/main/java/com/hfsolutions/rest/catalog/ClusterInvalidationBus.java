@@ -0,0 +1,281 @@
+package com.hfsolutions.rest.catalog;
+
+import com.hfsolutions.rest.dto.product.response.ProductResponse;
+import com.hfsolutions.rest.entity.Product;
+import com.hfsolutions.rest.mapper.ProductMapper;
+import com.hfsolutions.rest.repository.jpa.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Bus de invalidación entre instancias sobre {@code LISTEN/NOTIFY} de PostgreSQL, sin infraestructura adicional.
+ * <p>
+ * Los {@link ProductChangeEvent} y {@link CategoryChangeEvent} locales confirmados se acumulan y cada
+ * {@code flush-interval-ms} se envían con {@code pg_notify} en mensajes compactos: el ID de la instancia
+ * seguido de entradas {@code <tipo><id>:<versión>} ({@code P} producto, {@code C} categoría; la versión es el
+ * instante del cambio en milisegundos). Varios cambios de la misma entidad entre dos envíos ocupan una sola
+ * entrada, y un envío grande se reparte en tantos mensajes como haga falta.
+ * <p>
+ * Cada instancia escucha el canal con una conexión dedicada, fuera del pool. Al recibir invalidaciones de otra
+ * instancia vuelve a leer de la primaria los productos afectados y publica los eventos locales con
+ * {@code remote = true}, de modo que los modelos de lectura en memoria se actualizan igual que con un cambio
+ * local. Una relectura se descarta si el producto conserva el {@code updated_at} que ya se publicó (la
+ * notificación llegó repetida o después de otra que ya lo recogió) o si un cambio local del mismo producto se
+ * confirmó mientras se leía, porque su evento ya publicó un estado al menos igual de reciente.
+ * <p>
+ * Las notificaciones enviadas mientras la conexión estaba caída se pierden: tras reconectar, y tras un envío
+ * fallido, se hace una invalidación completa ({@code *}, que publica un {@link CatalogReloadedEvent}).
+ */
+public class ClusterInvalidationBus implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ClusterInvalidationBus.class);
+    // NOTIFY admite hasta 8000 bytes por mensaje
+    private static final int MAX_PAYLOAD = 7900;
+    private static final String FULL_FLUSH = "*";
+    private static final Pattern CHANNEL = Pattern.compile("[a-z_][a-z0-9_]{0,62}");
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+    private static final Duration MIN_BACKOFF = Duration.ofSeconds(1);
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+    // Los cambios locales solo se recuerdan lo justo para compararlos con las relecturas en curso
+    private static final long LOCAL_CHANGE_TTL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final String channel;
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+    private final Map<String, Long> pending = new ConcurrentHashMap<>();
+    // updated_at de la última relectura publicada de cada producto (solo la usa el hilo del listener)
+    private final Map<UUID, Instant> published = new HashMap<>();
+    // System.nanoTime() del último cambio local confirmado de cada producto
+    private final Map<UUID, Long> localChanges = new ConcurrentHashMap<>();
+    private final Counter sent;
+    private final Counter received;
+    private final Counter fullFlushes;
+    private final Counter staleReloads;
+    private final Timer lag;
+    private final Thread listener;
+    private volatile boolean sendFullFlush;
+    private volatile boolean running = true;
+
+    public ClusterInvalidationBus(String url, String username, String password, String channel,
+                                  JdbcTemplate jdbcTemplate, ProductRepository productRepository,
+                                  PlatformTransactionManager transactionManager, ApplicationEventPublisher eventPublisher,
+                                  MeterRegistry meterRegistry) {
+        if (!CHANNEL.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Nombre de canal inválido: " + channel);
+        }
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.channel = channel;
+        this.jdbcTemplate = jdbcTemplate;
+        this.productRepository = productRepository;
+        // Transacción de lectura-escritura a propósito: con réplicas, una de solo lectura podría leer un estado anterior
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.sent = Counter.builder("catalog.cluster.invalidations.sent").register(meterRegistry);
+        this.received = Counter.builder("catalog.cluster.invalidations.received").register(meterRegistry);
+        this.fullFlushes = Counter.builder("catalog.cluster.full-flushes").register(meterRegistry);
+        this.staleReloads = Counter.builder("catalog.cluster.invalidations.stale").register(meterRegistry);
+        this.lag = Timer.builder("catalog.cluster.invalidation.lag").register(meterRegistry);
+        this.listener = new Thread(this::listen, "cluster-invalidation-listener");
+        this.listener.setDaemon(true);
+        this.listener.start();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void on(ProductChangeEvent event) {
+        if (event.remote()) return;
+        localChanges.put(event.productId(), System.nanoTime());
+        pending.merge("P" + event.productId(), System.currentTimeMillis(), Math::max);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void on(CategoryChangeEvent event) {
+        if (!event.remote()) pending.merge("C" + event.categoryId(), System.currentTimeMillis(), Math::max);
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.cluster.bus.flush-interval-ms:100}")
+    public void flush() {
+        long now = System.nanoTime();
+        localChanges.values().removeIf(changedAt -> now - changedAt > LOCAL_CHANGE_TTL_NANOS);
+        if (pending.isEmpty() && !sendFullFlush) return;
+        List<String> entries = new ArrayList<>();
+        for (String key : pending.keySet()) {
+            Long version = pending.remove(key);
+            if (version != null) entries.add(key + ":" + version);
+        }
+        try {
+            if (sendFullFlush) {
+                sendFullFlush = false;
+                send(nodeId + " " + FULL_FLUSH);
+                return;
+            }
+            StringBuilder payload = new StringBuilder(nodeId);
+            for (String entry : entries) {
+                if (payload.length() + 1 + entry.length() > MAX_PAYLOAD) {
+                    send(payload.toString());
+                    payload = new StringBuilder(nodeId);
+                }
+                payload.append(' ').append(entry);
+            }
+            send(payload.toString());
+            sent.increment(entries.size());
+        } catch (RuntimeException e) {
+            sendFullFlush = true;
+            log.warn("No se pudieron enviar {} invalidaciones; se enviará una invalidación completa: {}", entries.size(), e.getMessage());
+        }
+    }
+
+    private void send(String payload) {
+        jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", channel, payload);
+    }
+
+    private void listen() {
+        boolean reconnecting = false;
+        Duration backoff = MIN_BACKOFF;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(url, username, password)) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                log.info("Instancia {} escuchando invalidaciones en el canal {}", nodeId, channel);
+                if (reconnecting) fullFlush("reconexión al canal " + channel);
+                reconnecting = true;
+                backoff = MIN_BACKOFF;
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) POLL_TIMEOUT.toMillis());
+                    if (notifications == null) continue;
+                    for (PGNotification notification : notifications) {
+                        try {
+                            receive(notification.getParameter());
+                        } catch (RuntimeException e) {
+                            log.error("Error al aplicar invalidaciones remotas; se fuerza una invalidación completa", e);
+                            fullFlush("error al aplicar invalidaciones");
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) return;
+                log.warn("Conexión de invalidaciones perdida; se reintenta en {} s: {}", backoff.toSeconds(), e.getMessage());
+                try {
+                    Thread.sleep(backoff.toMillis());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoff = backoff.multipliedBy(2).compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : backoff.multipliedBy(2);
+            }
+        }
+    }
+
+    private void receive(String payload) {
+        String[] parts = payload.split(" ");
+        if (parts[0].equals(nodeId)) return;
+        if (parts.length == 2 && parts[1].equals(FULL_FLUSH)) {
+            fullFlush("solicitada por la instancia " + parts[0]);
+            return;
+        }
+        Set<UUID> products = new LinkedHashSet<>();
+        Set<UUID> categories = new LinkedHashSet<>();
+        long now = System.currentTimeMillis();
+        try {
+            for (int i = 1; i < parts.length; i++) {
+                String entry = parts[i];
+                int colon = entry.lastIndexOf(':');
+                UUID id = UUID.fromString(entry.substring(1, colon));
+                lag.record(Math.max(0, now - Long.parseLong(entry.substring(colon + 1))), TimeUnit.MILLISECONDS);
+                if (entry.charAt(0) == 'P') products.add(id);
+                else if (entry.charAt(0) == 'C') categories.add(id);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Invalidación con formato inválido ignorada: {}", payload);
+            return;
+        }
+        received.increment(products.size() + categories.size());
+
+        for (UUID categoryId : categories) {
+            eventPublisher.publishEvent(new CategoryChangeEvent(categoryId, true));
+        }
+        if (products.isEmpty()) return;
+        long readStartedAt = System.nanoTime();
+        Map<UUID, Reloaded> current = transactionTemplate.execute(status -> {
+            Map<UUID, Reloaded> found = new HashMap<>();
+            for (Product product : productRepository.findActiveByIdIn(products)) {
+                found.put(product.getId(), new Reloaded(ProductMapper.toProductResponse(product), product.getUpdatedAt()));
+            }
+            return found;
+        });
+        for (UUID productId : products) {
+            Long localChange = localChanges.get(productId);
+            Reloaded reloaded = current.get(productId);
+            if (localChange != null && localChange - readStartedAt > 0
+                    || reloaded != null && reloaded.updatedAt().equals(published.get(productId))) {
+                staleReloads.increment();
+                continue;
+            }
+            if (reloaded == null) {
+                // Ya no está activo: los modelos de lectura lo retiran
+                published.remove(productId);
+                eventPublisher.publishEvent(new ProductChangeEvent(productId, null, true));
+            } else {
+                published.put(productId, reloaded.updatedAt());
+                eventPublisher.publishEvent(new ProductChangeEvent(productId, reloaded.product(), true));
+            }
+        }
+    }
+
+    private void fullFlush(String reason) {
+        fullFlushes.increment();
+        log.info("Invalidación completa de los modelos de lectura: {}", reason);
+        eventPublisher.publishEvent(new CatalogReloadedEvent());
+    }
+
+    @Override
+    public void close() {
+        flush();
+        running = false;
+        listener.interrupt();
+        try {
+            listener.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record Reloaded(ProductResponse product, Instant updatedAt) {
+    }
+}
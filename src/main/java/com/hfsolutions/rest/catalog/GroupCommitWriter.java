@@ -0,0 +1,250 @@
+package com.hfsolutions.rest.catalog;
+
+import com.hfsolutions.rest.audit.AuditScope;
+import com.hfsolutions.rest.exception.BadRequestException;
+import com.hfsolutions.rest.exception.NotFoundException;
+import com.hfsolutions.rest.exception.ServiceUnavailableException;
+import com.hfsolutions.rest.repository.jpa.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Ruta de escritura de los cambios de producto ({@code update}/{@code updateStock}).
+ * <p>
+ * Con {@code catalog.group-commit.enabled=false} cada operación se ejecuta en su propia transacción, en el hilo
+ * que la solicita. Con {@code true} las operaciones concurrentes se encolan y un único hilo las aplica juntas en
+ * una transacción cada {@code max-delay-ms} milisegundos o {@code max-batch} operaciones: un solo commit (y un
+ * solo fsync de Postgres) para todo el grupo. Los productos del grupo se cargan con una única consulta y los
+ * eventos de auditoría de todo el grupo se insertan en el outbox en un mismo lote JDBC antes del commit.
+ * Cada llamante espera a que se confirme el commit compartido.
+ * <p>
+ * Las operaciones validan antes de modificar nada: un {@link NotFoundException} o {@link BadRequestException}
+ * solo hace fallar a su llamante. Cualquier otro error, o un fallo del commit, deshace el grupo completo y cada
+ * operación se reintenta sola en su propia transacción, de modo que una operación defectuosa no arrastra al resto.
+ * Cada operación se aplica en su propio {@link AuditScope}: sus eventos de auditoría no se mezclan con los de
+ * otras operaciones del grupo sobre el mismo producto.
+ * <p>
+ * Un llamante espera como mucho {@code timeout-ms}. Si su operación seguía en la cola, se retira y recibe un 503
+ * (no se aplicó y puede reintentarse). Si ya se estaba aplicando, espera otro tanto al commit antes de rendirse.
+ * Tras {@link #close()} las operaciones nuevas se ejecutan en el hilo del llamante.
+ * <p>
+ * Métricas: {@code catalog.writes.group.size} (operaciones por commit) y {@code catalog.writes.group.fallbacks}
+ * (grupos deshechos y reintentados uno a uno).
+ */
+@Component
+public class GroupCommitWriter {
+    private static final Logger log = LoggerFactory.getLogger(GroupCommitWriter.class);
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int maxBatch;
+    private final long maxDelayNanos;
+    private final long timeoutMs;
+    private final BlockingQueue<Operation<?>> queue = new LinkedBlockingQueue<>();
+    private final DistributionSummary groupSize;
+    private final Counter fallbacks;
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    public GroupCommitWriter(ProductRepository productRepository,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${catalog.group-commit.enabled:false}") boolean enabled,
+                             @Value("${catalog.group-commit.max-batch:64}") int maxBatch,
+                             @Value("${catalog.group-commit.max-delay-ms:5}") long maxDelayMs,
+                             @Value("${catalog.group-commit.timeout-ms:5000}") long timeoutMs) {
+        this.productRepository = productRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.maxBatch = maxBatch;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+        this.timeoutMs = timeoutMs;
+        this.groupSize = DistributionSummary.builder("catalog.writes.group.size").register(meterRegistry);
+        this.fallbacks = Counter.builder("catalog.writes.group.fallbacks").register(meterRegistry);
+        if (enabled) {
+            worker = new Thread(this::run, "product-group-commit");
+            worker.setDaemon(true);
+            worker.start();
+        } else {
+            worker = null;
+        }
+    }
+
+    /**
+     * Ejecuta una modificación del producto {@code productId} en una transacción (propia o compartida con otras)
+     * y devuelve su resultado una vez confirmada.
+     */
+    public <T> T submit(UUID productId, Supplier<T> work) {
+        if (!enabled || !running) return transactionTemplate.execute(status -> work.get());
+        Operation<T> operation = new Operation<>(productId, work);
+        queue.add(operation);
+        // close() pudo terminar el hilo entre la comprobación y el add: si nadie la ha tomado, se ejecuta aquí
+        if (!running && operation.abandon()) {
+            queue.remove(operation);
+            return transactionTemplate.execute(status -> work.get());
+        }
+        return await(operation);
+    }
+
+    private <T> T await(Operation<T> operation) {
+        try {
+            try {
+                return operation.result.get(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (operation.abandon()) {
+                    queue.remove(operation);
+                    throw new ServiceUnavailableException("La escritura no se pudo aplicar a tiempo, reintente en unos segundos", 1);
+                }
+                // Ya forma parte de un grupo en curso: su resultado llega con el commit
+                return operation.result.get(timeoutMs, TimeUnit.MILLISECONDS);
+            }
+        } catch (TimeoutException e) {
+            throw new ServiceUnavailableException("No se pudo confirmar la escritura a tiempo; compruebe el producto antes de reintentar", 1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido mientras esperaba el commit de la escritura", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void run() {
+        while (running || !queue.isEmpty()) {
+            List<Operation<?>> group = new ArrayList<>(maxBatch);
+            try {
+                Operation<?> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null || !first.claim()) continue;
+                group.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (group.size() < maxBatch) {
+                    Operation<?> next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    if (next.claim()) group.add(next);
+                }
+                commit(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(group, e);
+                return;
+            } catch (Throwable e) {
+                // El hilo sigue vivo: solo fallan las operaciones de este grupo que aún no tenían resultado
+                log.error("Error inesperado aplicando un grupo de {} escrituras", group.size(), e);
+                fail(group, e);
+            }
+        }
+    }
+
+    private void fail(List<Operation<?>> group, Throwable cause) {
+        for (Operation<?> operation : group) {
+            operation.result.completeExceptionally(cause);
+        }
+    }
+
+    private void commit(List<Operation<?>> group) {
+        groupSize.record(group.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // Una sola consulta para todo el grupo: los findById de cada operación se resuelven en memoria
+                Set<UUID> ids = new LinkedHashSet<>();
+                for (Operation<?> operation : group) ids.add(operation.productId);
+                productRepository.findAllById(ids);
+                for (Operation<?> operation : group) {
+                    operation.apply();
+                }
+            });
+            for (Operation<?> operation : group) operation.complete();
+        } catch (RuntimeException e) {
+            fallbacks.increment();
+            log.warn("Falló el commit de un grupo de {} escrituras; se reintentan de una en una: {}", group.size(), e.getMessage());
+            for (Operation<?> operation : group) {
+                operation.runAlone(transactionTemplate);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        if (worker == null) return;
+        // El hilo termina de aplicar lo que quede en la cola antes de salir
+        running = false;
+        worker.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private static final class Operation<T> {
+        private final UUID productId;
+        private final Supplier<T> work;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        /** Lo toma el hilo de grupo o lo retira su llamante (por tiempo de espera o cierre); nunca ambos. */
+        private final AtomicBoolean taken = new AtomicBoolean();
+        private T value;
+        private RuntimeException rejection;
+
+        Operation(UUID productId, Supplier<T> work) {
+            this.productId = productId;
+            this.work = work;
+        }
+
+        boolean claim() {
+            return taken.compareAndSet(false, true);
+        }
+
+        boolean abandon() {
+            return taken.compareAndSet(false, true);
+        }
+
+        /**
+         * Aplica la operación dentro de la transacción del grupo. Los errores de validación se guardan para su
+         * llamante; cualquier otro se propaga y deshace el grupo.
+         */
+        void apply() {
+            value = null;
+            rejection = null;
+            try {
+                value = AuditScope.within(this, work);
+            } catch (NotFoundException | BadRequestException e) {
+                rejection = e;
+            }
+        }
+
+        void complete() {
+            if (rejection != null) {
+                result.completeExceptionally(rejection);
+            } else {
+                result.complete(value);
+            }
+        }
+
+        void runAlone(TransactionTemplate transactionTemplate) {
+            try {
+                result.complete(transactionTemplate.execute(status -> work.get()));
+            } catch (RuntimeException | Error e) {
+                result.completeExceptionally(e);
+            }
+        }
+    }
+}
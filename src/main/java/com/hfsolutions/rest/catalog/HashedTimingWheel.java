@@ -0,0 +1,189 @@
+package com.hfsolutions.rest.catalog;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Rueda de temporización con hash (Varghese y Lauck) para caducar muchas claves con coste O(1) al programarlas
+ * y cancelarlas. La rueda tiene {@code wheelSize} casillas de un {@code tick} cada una; una clave que vence a más
+ * de una vuelta guarda las vueltas que le faltan y se salta hasta que llegan a cero.
+ * <p>
+ * Un único hilo avanza la rueda cada tick y entrega juntas a {@code onExpire} las claves vencidas en ese tick,
+ * para que el consumidor las trate en lote. Las altas y cancelaciones solo tocan estructuras concurrentes; las
+ * casillas solo las modifica ese hilo, y las entradas canceladas se descartan cuando llega su casilla.
+ * La precisión es de un tick: una clave vence entre su plazo y un tick después.
+ */
+public class HashedTimingWheel<K> implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(HashedTimingWheel.class);
+
+    private final long tickNanos;
+    private final int mask;
+    private final ArrayDeque<Timeout<K>>[] wheel;
+    private final Queue<Timeout<K>> additions = new ConcurrentLinkedQueue<>();
+    private final Map<K, Timeout<K>> timeouts = new ConcurrentHashMap<>();
+    private final Consumer<List<K>> onExpire;
+    private final LongSupplier clock;
+    private final long startNanos;
+    private final Thread worker;
+    private long tick;
+    private volatile boolean running = true;
+
+    public HashedTimingWheel(String name, Duration tick, int wheelSize, Consumer<List<K>> onExpire) {
+        this(name, tick, wheelSize, onExpire, System::nanoTime, true);
+    }
+
+    /**
+     * @param clock Reloj en nanosegundos.
+     * @param start Arrancar el hilo; si no, los ticks se procesan llamando a {@link #runDueTicks()}.
+     */
+    @SuppressWarnings("unchecked")
+    HashedTimingWheel(String name, Duration tick, int wheelSize, Consumer<List<K>> onExpire, LongSupplier clock, boolean start) {
+        if (wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("El tamaño de la rueda debe ser una potencia de 2");
+        }
+        if (tick.isZero() || tick.isNegative()) throw new IllegalArgumentException("El tick debe ser positivo");
+        this.tickNanos = tick.toNanos();
+        this.mask = wheelSize - 1;
+        this.wheel = new ArrayDeque[wheelSize];
+        for (int i = 0; i < wheelSize; i++) wheel[i] = new ArrayDeque<>();
+        this.onExpire = onExpire;
+        this.clock = clock;
+        this.startNanos = clock.getAsLong();
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        if (start) this.worker.start();
+    }
+
+    /**
+     * Programa la caducidad de {@code key} en {@code deadline}, sustituyendo la anterior si ya estaba programada.
+     * Un plazo ya pasado vence en el siguiente tick.
+     */
+    public void schedule(K key, Instant deadline) {
+        scheduleAfter(key, Duration.between(Instant.now(), deadline).toNanos());
+    }
+
+    void scheduleAfter(K key, long delayNanos) {
+        Timeout<K> timeout = new Timeout<>(key, clock.getAsLong() + Math.max(0, delayNanos));
+        Timeout<K> previous = timeouts.put(key, timeout);
+        if (previous != null) previous.cancelled = true;
+        additions.add(timeout);
+    }
+
+    /**
+     * Cancela la caducidad de {@code key}.
+     * @return true si la clave estaba programada y aún no había vencido.
+     */
+    public boolean cancel(K key) {
+        Timeout<K> timeout = timeouts.remove(key);
+        if (timeout == null) return false;
+        timeout.cancelled = true;
+        return true;
+    }
+
+    /** Claves programadas pendientes de vencer. */
+    public int size() {
+        return timeouts.size();
+    }
+
+    private void run() {
+        while (running) {
+            long tickEnd = tickEnd();
+            for (long wait = tickEnd - clock.getAsLong(); wait > 0 && running; wait = tickEnd - clock.getAsLong()) {
+                LockSupport.parkNanos(wait);
+            }
+            if (!running) return;
+            runDueTicks();
+        }
+    }
+
+    /**
+     * Procesa todos los ticks cuyo final ya pasó. Los plazos son absolutos desde el arranque: si un lote de
+     * caducidades tarda, los ticks que vencieron mientras tanto se procesan a continuación, sin esperar.
+     * @return Ticks procesados.
+     */
+    int runDueTicks() {
+        int processed = 0;
+        while (running && tickEnd() <= clock.getAsLong()) {
+            transferAdditions();
+            List<K> expired = expire(wheel[(int) (tick & mask)]);
+            tick++;
+            processed++;
+            if (expired.isEmpty()) continue;
+            try {
+                onExpire.accept(expired);
+            } catch (RuntimeException e) {
+                log.error("Error al procesar {} claves vencidas en {}", expired.size(), worker.getName(), e);
+            }
+        }
+        return processed;
+    }
+
+    private long tickEnd() {
+        return startNanos + (tick + 1) * tickNanos;
+    }
+
+    private void transferAdditions() {
+        Timeout<K> timeout;
+        while ((timeout = additions.poll()) != null) {
+            if (timeout.cancelled) continue;
+            // Primer tick cuyo final alcanza el plazo, nunca anterior al tick que se está procesando
+            long elapsed = timeout.deadlineNanos - startNanos;
+            long dueTick = Math.max(tick, (elapsed + tickNanos - 1) / tickNanos - 1);
+            timeout.remainingRounds = (dueTick - tick) / wheel.length;
+            wheel[(int) (dueTick & mask)].add(timeout);
+        }
+    }
+
+    private List<K> expire(ArrayDeque<Timeout<K>> bucket) {
+        List<K> expired = new ArrayList<>();
+        for (int i = bucket.size(); i > 0; i--) {
+            Timeout<K> timeout = bucket.poll();
+            if (timeout.cancelled) continue;
+            if (timeout.remainingRounds > 0) {
+                timeout.remainingRounds--;
+                bucket.add(timeout);
+            } else if (timeouts.remove(timeout.key, timeout)) {
+                expired.add(timeout.key);
+            }
+        }
+        return expired;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        if (!worker.isAlive()) return;
+        LockSupport.unpark(worker);
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Timeout<K> {
+        private final K key;
+        private final long deadlineNanos;
+        private long remainingRounds;
+        private volatile boolean cancelled;
+
+        Timeout(K key, long deadlineNanos) {
+            this.key = key;
+            this.deadlineNanos = deadlineNanos;
+        }
+    }
+}
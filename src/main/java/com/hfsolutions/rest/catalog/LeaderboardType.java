@@ -0,0 +1,47 @@
+package com.hfsolutions.rest.catalog;
+
+import com.hfsolutions.rest.dto.product.response.ProductResponse;
+import com.hfsolutions.rest.exception.BadRequestException;
+
+import java.util.Comparator;
+
+/**
+ * Criterios de ordenación disponibles para los rankings Top-N de productos.
+ * Cada criterio desempata por ID para que el orden en memoria coincida con el de la base de datos.
+ */
+public enum LeaderboardType {
+    PRICE("price", Comparator.comparing(ProductResponse::getPrice, Comparator.reverseOrder())),
+    RATING("rating", Comparator.comparing((ProductResponse p) -> p.getRating().getRate(), Comparator.reverseOrder())
+            .thenComparing((ProductResponse p) -> p.getRating().getCount() != null ? p.getRating().getCount() : 0, Comparator.reverseOrder())),
+    LOW_STOCK("lowStock", Comparator.comparing(ProductResponse::getStock));
+
+    private final String param;
+    private final Comparator<ProductResponse> comparator;
+
+    LeaderboardType(String param, Comparator<ProductResponse> order) {
+        this.param = param;
+        this.comparator = order.thenComparing(p -> p.getId().toString());
+    }
+
+    public Comparator<ProductResponse> comparator() {
+        return comparator;
+    }
+
+    /**
+     * Indica si un producto puede formar parte del ranking (p. ej. sin calificación no entra en RATING).
+     */
+    public boolean accepts(ProductResponse product) {
+        return switch (this) {
+            case PRICE -> product.getPrice() != null;
+            case RATING -> product.getRating() != null && product.getRating().getRate() != null;
+            case LOW_STOCK -> product.getStock() != null;
+        };
+    }
+
+    public static LeaderboardType fromParam(String value) {
+        for (LeaderboardType type : values()) {
+            if (type.param.equalsIgnoreCase(value)) return type;
+        }
+        throw new BadRequestException("Criterio de ranking inválido: '" + value + "'. Valores permitidos: price, rating, lowStock");
+    }
+}
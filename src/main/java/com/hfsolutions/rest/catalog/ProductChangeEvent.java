@@ -0,0 +1,24 @@
+package com.hfsolutions.rest.catalog;
+
+import com.hfsolutions.rest.dto.product.response.ProductResponse;
+
+import java.util.UUID;
+
+/**
+ * Evento publicado por {@code ProductService} cada vez que cambia el estado visible de un producto.
+ * Los modelos de lectura en memoria lo consumen una vez confirmada la transacción.
+ * @param productId ID del producto afectado.
+ * @param product Estado actual del producto, o {@code null} si fue eliminado.
+ * @param remote true si el cambio no se hizo en esta instancia: llegó por {@link ClusterInvalidationBus} o lo
+ *               recuperó {@link CatalogSnapshot} al ponerse al día (no debe reenviarse).
+ */
+public record ProductChangeEvent(UUID productId, ProductResponse product, boolean remote) {
+
+    public ProductChangeEvent(UUID productId, ProductResponse product) {
+        this(productId, product, false);
+    }
+
+    public boolean isRemoval() {
+        return product == null;
+    }
+}
@@ -0,0 +1,162 @@
+package com.hfsolutions.rest.catalog;
+
+import com.hfsolutions.rest.dto.product.response.ProductResponse;
+import com.hfsolutions.rest.entity.Product;
+import com.hfsolutions.rest.mapper.ProductMapper;
+import com.hfsolutions.rest.repository.jpa.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Rankings Top-N de productos (más caros, mejor calificados y próximos a agotarse) mantenidos en memoria.
+ * Cada ranking conserva como máximo {@code capacity} productos en una skip-list ordenada, se actualiza con
+ * cada {@link ProductChangeEvent} confirmado y solo vuelve a consultar la base de datos cuando pierde un
+ * miembro sin poder determinar quién lo reemplaza.
+ */
+@Component
+public class ProductLeaderboards {
+    private final ProductRepository productRepository;
+    private final int capacity;
+    private final Map<LeaderboardType, Board> boards = new EnumMap<>(LeaderboardType.class);
+
+    public ProductLeaderboards(ProductRepository productRepository,
+                               @Value("${catalog.leaderboard.capacity:100}") int capacity) {
+        this.productRepository = productRepository;
+        this.capacity = capacity;
+        for (LeaderboardType type : LeaderboardType.values()) {
+            boards.put(type, new Board(type));
+        }
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Devuelve los primeros {@code n} productos del ranking indicado, en O(n).
+     */
+    public List<ProductResponse> top(LeaderboardType type, int n) {
+        return boards.get(type).top(n);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void on(ProductChangeEvent event) {
+        for (Board board : boards.values()) {
+            if (event.isRemoval()) board.remove(event.productId());
+            else board.upsert(event.product());
+        }
+    }
+
+    @EventListener
+    public void on(CatalogReloadedEvent event) {
+        invalidate();
+    }
+
+    /**
+     * Marca todos los rankings para recargarse desde la base de datos en la siguiente lectura.
+     */
+    public void invalidate() {
+        boards.values().forEach(Board::invalidate);
+    }
+
+    private List<Product> load(LeaderboardType type) {
+        PageRequest limit = PageRequest.of(0, capacity);
+        return switch (type) {
+            case PRICE -> productRepository.findTopNByPrice(limit);
+            case RATING -> productRepository.findTopNByRating(limit);
+            case LOW_STOCK -> productRepository.findTopNByLowStock(limit);
+        };
+    }
+
+    /**
+     * Ranking individual. Invariante mientras no esté marcado como obsoleto: si contiene menos de
+     * {@code capacity} elementos, contiene todos los productos elegibles del catálogo.
+     * Las escrituras se serializan; las lecturas recorren la skip-list sin bloqueo.
+     */
+    private final class Board {
+        private final LeaderboardType type;
+        private volatile ConcurrentSkipListSet<ProductResponse> entries;
+        private Map<UUID, ProductResponse> members = new HashMap<>();
+        private volatile boolean stale = true;
+
+        Board(LeaderboardType type) {
+            this.type = type;
+            this.entries = new ConcurrentSkipListSet<>(type.comparator());
+        }
+
+        List<ProductResponse> top(int n) {
+            if (stale) refill();
+            List<ProductResponse> result = new ArrayList<>(n);
+            for (ProductResponse product : entries) {
+                if (result.size() == n) break;
+                result.add(product);
+            }
+            return result;
+        }
+
+        synchronized void refill() {
+            if (!stale) return;
+            ConcurrentSkipListSet<ProductResponse> fresh = new ConcurrentSkipListSet<>(type.comparator());
+            Map<UUID, ProductResponse> freshMembers = new HashMap<>();
+            for (Product product : load(type)) {
+                ProductResponse response = ProductMapper.toProductResponse(product);
+                fresh.add(response);
+                freshMembers.put(response.getId(), response);
+            }
+            entries = fresh;
+            members = freshMembers;
+            stale = false;
+        }
+
+        synchronized void upsert(ProductResponse product) {
+            int sizeBefore = entries.size();
+            ProductResponse previous = members.remove(product.getId());
+            if (previous != null) entries.remove(previous);
+            boolean slotFreed = previous != null && sizeBefore == capacity;
+
+            if (!type.accepts(product)) {
+                if (slotFreed) stale = true;
+                return;
+            }
+            if (entries.size() < capacity) {
+                // Si el producto salió del ranking hacia abajo, puede haber otro desconocido por delante de él
+                if (slotFreed && !entries.isEmpty() && type.comparator().compare(product, entries.last()) > 0) {
+                    stale = true;
+                }
+                add(product);
+            } else if (type.comparator().compare(product, entries.last()) < 0) {
+                add(product);
+                ProductResponse evicted = entries.pollLast();
+                if (evicted != null) members.remove(evicted.getId());
+            }
+        }
+
+        synchronized void remove(UUID productId) {
+            int sizeBefore = entries.size();
+            ProductResponse previous = members.remove(productId);
+            if (previous == null) return;
+            entries.remove(previous);
+            if (sizeBefore == capacity) stale = true;
+        }
+
+        synchronized void invalidate() {
+            stale = true;
+        }
+
+        private void add(ProductResponse product) {
+            entries.add(product);
+            members.put(product.getId(), product);
+        }
+    }
+}
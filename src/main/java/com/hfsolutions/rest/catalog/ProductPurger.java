@@ -0,0 +1,108 @@
+package com.hfsolutions.rest.catalog;
+
+import com.hfsolutions.rest.repository.jpa.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Borrado físico de productos eliminados lógicamente, en lotes de {@code catalog.purge.chunk-size} filas.
+ * Cada lote es un único DELETE en su propia transacción: no se cargan entidades en memoria y ni la conexión ni
+ * los bloqueos de filas se retienen durante toda la limpieza. Si se invoca dentro de una transacción ya abierta,
+ * los lotes se unen a ella.
+ * <p>
+ * Métricas por motivo ({@code category} o {@code retention}): {@code catalog.purge.rows} (filas eliminadas) y
+ * {@code catalog.purge.chunk} (duración de cada lote, que es el tiempo que se mantienen los bloqueos).
+ */
+@Component
+public class ProductPurger {
+    private static final Logger log = LoggerFactory.getLogger(ProductPurger.class);
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int chunkSize;
+    private final boolean enabled;
+    private final Duration retention;
+
+    public ProductPurger(ProductRepository productRepository,
+                         PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry,
+                         @Value("${catalog.purge.chunk-size:1000}") int chunkSize,
+                         @Value("${catalog.purge.enabled:true}") boolean enabled,
+                         @Value("${catalog.purge.retention:30d}") Duration retention) {
+        this.productRepository = productRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.chunkSize = chunkSize;
+        this.enabled = enabled;
+        this.retention = retention;
+    }
+
+    /**
+     * Elimina físicamente los productos eliminados lógicamente de una categoría (los activos no se tocan).
+     */
+    public PurgeResult purgeCategory(UUID categoryId) {
+        return purge("category", limit -> productRepository.deleteDeletedChunkByCategoryId(categoryId, limit));
+    }
+
+    /**
+     * Elimina físicamente los productos eliminados lógicamente hace más de {@code catalog.purge.retention}.
+     */
+    @Scheduled(fixedDelayString = "${catalog.purge.interval-ms:3600000}", initialDelayString = "${catalog.purge.interval-ms:3600000}")
+    public void purgeExpired() {
+        if (!enabled) return;
+        Instant cutoff = Instant.now().minus(retention);
+        purge("retention", limit -> productRepository.deleteDeletedChunkBefore(cutoff, limit));
+    }
+
+    private PurgeResult purge(String reason, IntUnaryOperator deleteChunk) {
+        Timer chunkTimer = Timer.builder("catalog.purge.chunk").tag("reason", reason).register(meterRegistry);
+        Counter rowCounter = Counter.builder("catalog.purge.rows").tag("reason", reason).register(meterRegistry);
+
+        long rows = 0;
+        int chunks = 0;
+        long lockNanos = 0;
+        long maxChunkNanos = 0;
+        int deleted;
+        do {
+            long start = System.nanoTime();
+            Integer result = transactionTemplate.execute(status -> deleteChunk.applyAsInt(chunkSize));
+            long elapsed = System.nanoTime() - start;
+            deleted = result != null ? result : 0;
+
+            chunkTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            rowCounter.increment(deleted);
+            rows += deleted;
+            chunks++;
+            lockNanos += elapsed;
+            maxChunkNanos = Math.max(maxChunkNanos, elapsed);
+        } while (deleted == chunkSize);
+
+        PurgeResult purged = new PurgeResult(rows, chunks, Duration.ofNanos(lockNanos), Duration.ofNanos(maxChunkNanos));
+        if (rows > 0) {
+            log.info("Purga de productos ({}): {} filas en {} lotes; bloqueos {} ms en total, {} ms como máximo por lote",
+                    reason, purged.rows(), purged.chunks(), purged.lockTime().toMillis(), purged.maxChunkLockTime().toMillis());
+        }
+        return purged;
+    }
+
+    /**
+     * Resultado de una purga: filas eliminadas, lotes ejecutados y tiempo total y máximo con bloqueos retenidos.
+     */
+    public record PurgeResult(long rows, int chunks, Duration lockTime, Duration maxChunkLockTime) {
+    }
+}
@@ -0,0 +1,95 @@
+package com.hfsolutions.rest.catalog;
+
+import com.hfsolutions.rest.entity.Product;
+import com.hfsolutions.rest.mapper.ProductMapper;
+import com.hfsolutions.rest.repository.jpa.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Acumula sin bloqueos las calificaciones individuales y las vuelca periódicamente, en un único lote JDBC,
+ * sobre las columnas {@code rate}/{@code count} de {@code products}. Así una avalancha de reseñas sobre un mismo
+ * producto no se serializa en el bloqueo de su fila: cada volcado la actualiza una sola vez.
+ * <p>
+ * Cada producto tiene un único {@link LongAdder} que empaqueta el número de votos en los 32 bits altos y la suma
+ * de puntuaciones en los 32 bajos; {@link LongAdder#sumThenReset()} recoge ambos a la vez, de modo que un voto
+ * concurrente con el volcado entra completo en este volcado o en el siguiente, nunca a medias ni se pierde.
+ */
+@Component
+public class RatingAggregator {
+    private static final Logger log = LoggerFactory.getLogger(RatingAggregator.class);
+    private static final long ONE_VOTE = 1L << 32;
+    private static final long SCORE_MASK = ONE_VOTE - 1;
+    private static final String APPLY_VOTES = "UPDATE products SET "
+            + "rate = (COALESCE(rate, 0) * COALESCE(count, 0) + ?) / (COALESCE(count, 0) + ?), "
+            + "count = COALESCE(count, 0) + ? "
+            + "WHERE id = ? AND deleted = false";
+
+    private final Map<UUID, LongAdder> pending = new ConcurrentHashMap<>();
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public RatingAggregator(JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            ProductRepository productRepository,
+                            ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public void submit(UUID productId, int score) {
+        pending.computeIfAbsent(productId, id -> new LongAdder()).add(ONE_VOTE + score);
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.ratings.flush-interval-ms:1000}")
+    @PreDestroy
+    public void flush() {
+        List<Object[]> batch = new ArrayList<>();
+        List<UUID> productIds = new ArrayList<>();
+        for (Map.Entry<UUID, LongAdder> entry : pending.entrySet()) {
+            long packed = entry.getValue().sumThenReset();
+            if (packed == 0) continue;
+            long votes = packed >>> 32;
+            long scoreSum = packed & SCORE_MASK;
+            batch.add(new Object[]{(double) scoreSum, votes, votes, entry.getKey()});
+            productIds.add(entry.getKey());
+        }
+        if (batch.isEmpty()) return;
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(APPLY_VOTES, batch);
+                // Los modelos de lectura (p. ej. el ranking por calificación) reciben el nuevo agregado tras el commit
+                for (Product product : productRepository.findActiveByIdIn(productIds)) {
+                    eventPublisher.publishEvent(new ProductChangeEvent(product.getId(), ProductMapper.toProductResponse(product)));
+                }
+            });
+        } catch (RuntimeException e) {
+            // Se devuelven los votos al acumulador para reintentarlos en el siguiente volcado
+            for (Object[] row : batch) {
+                long votes = (long) row[1];
+                long scoreSum = (long) (double) row[0];
+                pending.computeIfAbsent((UUID) row[3], id -> new LongAdder()).add((votes << 32) + scoreSum);
+            }
+            log.warn("No se pudieron volcar las calificaciones de {} productos: {}", batch.size(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.hfsolutions.rest.catalog;
+
+import com.hfsolutions.rest.config.ReadYourWritesContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Agrupa lecturas idénticas concurrentes ("single-flight"): mientras una carga está en curso para una clave,
+ * las llamadas posteriores con la misma clave esperan y reciben su mismo resultado (o su misma excepción)
+ * en lugar de ocupar otra conexión y repetir la consulta. No es una caché: la entrada se descarta en cuanto
+ * la carga termina.
+ * <p>
+ * Métricas por operación: {@code catalog.reads.loads} (cargas reales) y {@code catalog.reads.coalesced}
+ * (llamadas resueltas con la carga de otra). No se etiqueta por clave concreta para no disparar la cardinalidad.
+ */
+@Component
+public class ReadCoalescer {
+    private final Map<List<Object>, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Counter> loads = new ConcurrentHashMap<>();
+    private final Map<String, Counter> coalesced = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    public ReadCoalescer(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Ejecuta {@code loader}, o se une a una ejecución en curso de la misma operación con los mismos argumentos.
+     * @param operation Nombre de la operación (etiqueta de las métricas).
+     * @param args Argumentos que identifican la lectura; deben implementar {@code equals}/{@code hashCode}.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String operation, Supplier<T> loader, Object... args) {
+        // Una petición fijada a la primaria no puede reutilizar una lectura que quizá se sirve desde una réplica
+        List<Object> key = List.of(operation, ReadYourWritesContext.isPinnedToPrimary(), Arrays.asList(args));
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            counter(coalesced, "catalog.reads.coalesced", operation).increment();
+            return (T) await(running);
+        }
+
+        counter(loads, "catalog.reads.loads", operation).increment();
+        try {
+            T value = loader.get();
+            inFlight.remove(key, mine);
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw e;
+        }
+    }
+
+    private Counter counter(Map<String, Counter> counters, String name, String operation) {
+        return counters.computeIfAbsent(operation, op -> Counter.builder(name)
+                .tag("operation", op)
+                .register(meterRegistry));
+    }
+}
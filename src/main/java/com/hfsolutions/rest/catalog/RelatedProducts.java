@@ -0,0 +1,408 @@
+package com.hfsolutions.rest.catalog;
+
+import com.hfsolutions.rest.dto.product.response.ProductResponse;
+import com.hfsolutions.rest.entity.Product;
+import com.hfsolutions.rest.exception.NotFoundException;
+import com.hfsolutions.rest.repository.jpa.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Tabla precalculada de los {@code k} vecinos más cercanos de cada producto dentro de su categoría, para
+ * {@code GET /api/products/{id}/related}. La distancia combina el precio en escala logarítmica (duplicar el
+ * precio cuenta una unidad) y la calificación (una estrella cuenta una unidad); los productos sin calificar se
+ * tratan como de calificación media.
+ * <p>
+ * Cada categoría guarda sus productos ordenados por precio: la búsqueda de vecinos avanza desde el producto hacia
+ * ambos lados y se detiene cuando la diferencia de precio ya supera al peor de los {@code k} encontrados.
+ * La tabla completa se construye al arrancar (desde la instantánea de {@link CatalogSnapshot} si la hay) y tras cada
+ * {@link CatalogReloadedEvent}, repartiendo las categorías entre los hilos del {@link ForkJoinPool} común. Cada
+ * {@link ProductChangeEvent} confirmado solo recalcula el producto y los vecinos de su categoría a los que afecta:
+ * los que lo tenían en su lista y los que lo tienen más cerca que su vecino más lejano. Solo pueden estar afectados
+ * los productos cuya diferencia de precio cabe en el mayor radio de la categoría, así que la búsqueda se limita a
+ * esa franja de precios. Los cambios se aplican en un hilo propio, fuera de la transacción que los confirma: la
+ * tabla los refleja con un pequeño retraso.
+ */
+@Component
+public class RelatedProducts {
+    private static final Logger log = LoggerFactory.getLogger(RelatedProducts.class);
+    private static final double LOG2 = Math.log(2);
+    private static final double NEUTRAL_RATE = 3.0;
+    private static final int LOAD_CHUNK = 1000;
+    private static final Comparator<Point> BY_PRICE = Comparator.comparingDouble(Point::x).thenComparing(Point::id);
+
+    private final ProductRepository productRepository;
+    private final CatalogSnapshot catalogSnapshot;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int maxK;
+    private final Object rebuildLock = new Object();
+
+    // Las listas de vecinos se leen sin bloqueo; el resto solo lo tocan los métodos sincronizados
+    private volatile Map<UUID, Neighbours> neighbours = new ConcurrentHashMap<>();
+    private Map<UUID, Point> points = new HashMap<>();
+    private Map<UUID, List<Point>> categories = new HashMap<>();
+    // Cota superior de los radios finitos de cada categoría; solo crece hasta la siguiente reconstrucción
+    private Map<UUID, Double> radiusBounds = new HashMap<>();
+    private List<ProductChangeEvent> missedDuringRebuild;
+    private volatile boolean built;
+    private final BlockingQueue<ProductChangeEvent> pendingChanges = new LinkedBlockingQueue<>();
+    private final Thread updater;
+
+    public RelatedProducts(ProductRepository productRepository,
+                           CatalogSnapshot catalogSnapshot,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${catalog.related.max-k:10}") int maxK) {
+        this.productRepository = productRepository;
+        this.catalogSnapshot = catalogSnapshot;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.maxK = maxK;
+        this.updater = new Thread(this::applyPendingChanges, "related-products-updater");
+        this.updater.setDaemon(true);
+        this.updater.start();
+    }
+
+    public int maxK() {
+        return maxK;
+    }
+
+    /**
+     * IDs de los {@code k} productos más parecidos al indicado, del más cercano al más lejano.
+     */
+    public List<UUID> neighbours(UUID productId, int k) {
+        if (!built) ensureBuilt();
+        Neighbours found = neighbours.get(productId);
+        if (found == null) throw new NotFoundException("Producto no encontrado");
+        return Arrays.asList(found.ids()).subList(0, Math.min(k, found.ids().length));
+    }
+
+    /**
+     * Indica si el producto está activo según la tabla en memoria, sin esperar a que se construya.
+     * @return false también mientras la tabla no está construida.
+     */
+    public boolean contains(UUID productId) {
+        return built && neighbours.containsKey(productId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void on(ProductChangeEvent event) {
+        pendingChanges.add(event);
+    }
+
+    /**
+     * Aplica en orden los cambios encolados, en lotes con todo lo acumulado mientras se aplicaba el anterior.
+     */
+    private void applyPendingChanges() {
+        List<ProductChangeEvent> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(pendingChanges.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            pendingChanges.drainTo(batch);
+            synchronized (this) {
+                for (ProductChangeEvent event : batch) {
+                    if (missedDuringRebuild != null) missedDuringRebuild.add(event);
+                    try {
+                        apply(event);
+                    } catch (RuntimeException e) {
+                        log.error("No se pudo actualizar la tabla de relacionados para el producto {}", event.productId(), e);
+                    }
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        updater.interrupt();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        synchronized (rebuildLock) {
+            if (!built) rebuild(true);
+        }
+    }
+
+    @EventListener
+    public void on(CatalogReloadedEvent event) {
+        rebuild();
+    }
+
+    private void ensureBuilt() {
+        synchronized (rebuildLock) {
+            if (!built) rebuild();
+        }
+    }
+
+    /**
+     * Recalcula la tabla completa desde la base de datos.
+     */
+    public void rebuild() {
+        rebuild(false);
+    }
+
+    /**
+     * Recalcula la tabla completa sin bloquear las consultas y la sustituye al terminar. Los cambios que llegan
+     * mientras tanto se aplican también a la tabla nueva.
+     * @param fromSnapshot Partir de la instantánea del catálogo si se arrancó desde una, en lugar de la base de datos.
+     */
+    private void rebuild(boolean fromSnapshot) {
+        synchronized (rebuildLock) {
+            long start = System.nanoTime();
+            synchronized (this) {
+                missedDuringRebuild = new ArrayList<>();
+            }
+
+            Map<UUID, Point> freshPoints = new HashMap<>();
+            boolean loaded = fromSnapshot && catalogSnapshot.load((id, name) -> {
+            }, product -> freshPoints.put(product.getId(), point(product)));
+            if (!loaded) load(freshPoints);
+
+            Map<UUID, List<Point>> freshCategories = new HashMap<>();
+            for (Point point : freshPoints.values()) {
+                freshCategories.computeIfAbsent(point.categoryId(), id -> new ArrayList<>()).add(point);
+            }
+            Map<UUID, Neighbours> freshNeighbours = new ConcurrentHashMap<>(freshPoints.size());
+            Map<UUID, Double> freshBounds = new ConcurrentHashMap<>(freshCategories.size());
+            List<List<Point>> work = new ArrayList<>(freshCategories.values());
+            ForkJoinPool.commonPool().invoke(new BuildCategories(work, 0, work.size(), freshNeighbours, freshBounds));
+
+            synchronized (this) {
+                points = freshPoints;
+                categories = freshCategories;
+                neighbours = freshNeighbours;
+                radiusBounds = new HashMap<>(freshBounds);
+                missedDuringRebuild.forEach(this::apply);
+                missedDuringRebuild = null;
+                built = true;
+            }
+            log.info("Tabla de productos relacionados construida: {} productos en {} categorías en {} ms",
+                    freshPoints.size(), freshCategories.size(), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    private void load(Map<UUID, Point> freshPoints) {
+        UUID after = new UUID(0, 0);
+        List<Product> chunk;
+        do {
+            UUID from = after;
+            chunk = readOnlyTransaction.execute(status -> {
+                List<Product> products = productRepository.findActiveAfter(from, PageRequest.ofSize(LOAD_CHUNK));
+                for (Product product : products) {
+                    freshPoints.put(product.getId(), point(product.getId(), product.getCategory().getId(), product.getPrice(),
+                            product.getRating() == null ? null : product.getRating().getRate()));
+                }
+                return products;
+            });
+            if (!chunk.isEmpty()) after = chunk.get(chunk.size() - 1).getId();
+        } while (chunk.size() == LOAD_CHUNK);
+    }
+
+    private void apply(ProductChangeEvent event) {
+        if (event.isRemoval()) {
+            remove(event.productId());
+            return;
+        }
+        Point updated = point(event.product());
+        Point previous = points.get(updated.id());
+        if (updated.equals(previous)) return;
+        if (previous != null) remove(previous.id());
+
+        List<Point> category = categories.computeIfAbsent(updated.categoryId(), id -> new ArrayList<>());
+        int position = -Collections.binarySearch(category, updated, BY_PRICE) - 1;
+        category.add(position, updated);
+        points.put(updated.id(), updated);
+        double reach = reach(category);
+        update(category, position);
+
+        // Vecinos a los que el producto nuevo desplaza de su lista, hacia ambos lados dentro de la franja alcanzable
+        for (int i = position - 1; i >= 0 && gap(category.get(i), updated) < reach; i--) {
+            displace(category, i, updated);
+        }
+        for (int i = position + 1; i < category.size() && gap(category.get(i), updated) < reach; i++) {
+            displace(category, i, updated);
+        }
+    }
+
+    private void displace(List<Point> category, int index, Point updated) {
+        Point other = category.get(index);
+        Neighbours current = neighbours.get(other.id());
+        if (current.ids().length < maxK || distance(other, updated) < current.radius()) update(category, index);
+    }
+
+    private void remove(UUID productId) {
+        Point previous = points.remove(productId);
+        if (previous == null) return;
+        neighbours.remove(productId);
+        List<Point> category = categories.get(previous.categoryId());
+        double reach = reach(category);
+        int position = Collections.binarySearch(category, previous, BY_PRICE);
+        category.remove(position);
+        if (category.isEmpty()) {
+            categories.remove(previous.categoryId());
+            radiusBounds.remove(previous.categoryId());
+            return;
+        }
+        // Solo cambian las listas que lo contenían, y solo pueden contenerlo los que están a su alcance
+        for (int i = position - 1; i >= 0 && gap(category.get(i), previous) <= reach; i--) {
+            if (neighbours.get(category.get(i).id()).contains(productId)) update(category, i);
+        }
+        for (int i = position; i < category.size() && gap(category.get(i), previous) <= reach; i++) {
+            if (neighbours.get(category.get(i).id()).contains(productId)) update(category, i);
+        }
+    }
+
+    private void update(List<Point> category, int index) {
+        Neighbours updated = nearest(category, index);
+        neighbours.put(category.get(index).id(), updated);
+        if (updated.radius() != Double.MAX_VALUE) {
+            radiusBounds.merge(category.get(index).categoryId(), updated.radius(), Math::max);
+        }
+    }
+
+    /**
+     * Distancia al cuadrado más allá de la cual ningún producto de la categoría puede tener a otro en su lista.
+     * Con {@code maxK + 1} productos o menos las listas pueden estar incompletas (radio infinito) y se revisan todos.
+     */
+    private double reach(List<Point> category) {
+        if (category.size() <= maxK + 1) return Double.MAX_VALUE;
+        return radiusBounds.getOrDefault(category.get(0).categoryId(), Double.MAX_VALUE);
+    }
+
+    /**
+     * Los {@code maxK} vecinos más cercanos del producto en la posición {@code index} de su categoría
+     * (ordenada por precio), avanzando hacia ambos lados mientras la diferencia de precio pueda mejorar la lista.
+     */
+    private Neighbours nearest(List<Point> category, int index) {
+        Point origin = category.get(index);
+        // Montículo con el peor candidato en la cima
+        PriorityQueue<Candidate> best = new PriorityQueue<>(maxK + 1, Comparator.comparingDouble(Candidate::distance).reversed()
+                .thenComparing(candidate -> candidate.point().id(), Comparator.reverseOrder()));
+        int lo = index - 1;
+        int hi = index + 1;
+        while (lo >= 0 || hi < category.size()) {
+            double loGap = lo >= 0 ? origin.x() - category.get(lo).x() : Double.MAX_VALUE;
+            double hiGap = hi < category.size() ? category.get(hi).x() - origin.x() : Double.MAX_VALUE;
+            double gap = Math.min(loGap, hiGap);
+            if (best.size() == maxK && gap * gap >= best.peek().distance()) break;
+            Point next = loGap <= hiGap ? category.get(lo--) : category.get(hi++);
+            best.add(new Candidate(next, distance(origin, next)));
+            if (best.size() > maxK) best.poll();
+        }
+        UUID[] ids = new UUID[best.size()];
+        double radius = best.size() < maxK ? Double.MAX_VALUE : best.peek().distance();
+        for (int i = ids.length - 1; i >= 0; i--) ids[i] = best.poll().point().id();
+        return new Neighbours(ids, radius);
+    }
+
+    /** Diferencia de precio al cuadrado: cota inferior de {@link #distance(Point, Point)}. */
+    private static double gap(Point a, Point b) {
+        double dx = a.x() - b.x();
+        return dx * dx;
+    }
+
+    /** Distancia al cuadrado. */
+    private static double distance(Point a, Point b) {
+        double dx = a.x() - b.x();
+        double dy = a.y() - b.y();
+        return dx * dx + dy * dy;
+    }
+
+    private static Point point(ProductResponse product) {
+        return point(product.getId(), product.getCategoryId(), product.getPrice(),
+                product.getRating() == null ? null : product.getRating().getRate());
+    }
+
+    private static Point point(UUID id, UUID categoryId, BigDecimal price, Double rate) {
+        double x = price != null && price.signum() > 0 ? Math.log(price.doubleValue()) / LOG2 : 0;
+        return new Point(id, categoryId, x, rate != null ? rate : NEUTRAL_RATE);
+    }
+
+    /**
+     * Calcula en paralelo las listas de un rango de categorías, dividiéndolo por la mitad hasta llegar a una.
+     */
+    private final class BuildCategories extends RecursiveAction {
+        private final List<List<Point>> categories;
+        private final int from;
+        private final int to;
+        private final Map<UUID, Neighbours> result;
+        private final Map<UUID, Double> bounds;
+
+        BuildCategories(List<List<Point>> categories, int from, int to, Map<UUID, Neighbours> result, Map<UUID, Double> bounds) {
+            this.categories = categories;
+            this.from = from;
+            this.to = to;
+            this.result = result;
+            this.bounds = bounds;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new BuildCategories(categories, from, middle, result, bounds),
+                        new BuildCategories(categories, middle, to, result, bounds));
+                return;
+            }
+            if (to == from) return;
+            List<Point> category = categories.get(from);
+            category.sort(BY_PRICE);
+            double bound = 0;
+            for (int i = 0; i < category.size(); i++) {
+                Neighbours found = nearest(category, i);
+                result.put(category.get(i).id(), found);
+                if (found.radius() != Double.MAX_VALUE) bound = Math.max(bound, found.radius());
+            }
+            bounds.put(category.get(0).categoryId(), bound);
+        }
+    }
+
+    /** Producto en el espacio de búsqueda: {@code x} = log2(precio), {@code y} = calificación. */
+    private record Point(UUID id, UUID categoryId, double x, double y) {
+    }
+
+    private record Candidate(Point point, double distance) {
+    }
+
+    /**
+     * Vecinos de un producto, del más cercano al más lejano, y la distancia al cuadrado del más lejano
+     * ({@link Double#MAX_VALUE} si la lista no está completa).
+     */
+    private record Neighbours(UUID[] ids, double radius) {
+        boolean contains(UUID id) {
+            for (UUID candidate : ids) {
+                if (candidate.equals(id)) return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package com.hfsolutions.rest.catalog;
+
+import com.hfsolutions.rest.dto.product.response.RatingResponse;
+import com.hfsolutions.rest.dto.product.response.SuggestionResponse;
+import com.hfsolutions.rest.entity.Category;
+import com.hfsolutions.rest.entity.Product;
+import com.hfsolutions.rest.entity.Rating;
+import com.hfsolutions.rest.repository.jpa.CategoryRepository;
+import com.hfsolutions.rest.repository.jpa.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice en memoria para el autocompletado de {@code GET /api/products/suggest}: dos {@link SuggestTrie} sobre
+ * los nombres de categoría y los títulos de producto normalizados (sin tildes ni mayúsculas), con una clave por
+ * palabra para que "galaxy" sugiera también "Samsung Galaxy S23". Los productos se ordenan por su calificación
+ * (media bayesiana: pocas valoraciones pesan menos que muchas con la misma media) y las categorías por nombre.
+ * <p>
+ * Se construye al arrancar (desde la instantánea de {@link CatalogSnapshot} si la hay) y tras cada {@link CatalogReloadedEvent}, y se mantiene con cada
+ * {@link ProductChangeEvent} y {@link CategoryChangeEvent} confirmado. Una consulta solo recorre tantos nodos
+ * como caracteres tiene el prefijo, salvo si el prefijo supera la longitud de las claves y el ranking del nodo no
+ * basta para llenar el resultado: entonces recorre el subárbol de ese nodo. Las lecturas comparten un cerrojo de
+ * lectura que solo excluyen las actualizaciones.
+ */
+@Component
+public class SuggestIndex {
+    private static final Logger log = LoggerFactory.getLogger(SuggestIndex.class);
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    // Una clave por palabra, hasta esta cantidad de palabras por texto
+    private static final int MAX_WORDS = 8;
+    // Más allá de esta longitud el prefijo ya identifica el texto; truncar las claves acota el tamaño del trie
+    private static final int MAX_KEY_LENGTH = 32;
+    private static final int MAX_CATEGORIES = 3;
+    private static final double PRIOR_RATE = 3.0;
+    private static final int PRIOR_VOTES = 10;
+    private static final int LOAD_CHUNK = 1000;
+    private static final Comparator<ProductEntry> PRODUCT_RANKING = Comparator.comparingDouble(ProductEntry::weight).reversed()
+            .thenComparing(ProductEntry::title)
+            .thenComparing(ProductEntry::id);
+    private static final Comparator<CategoryEntry> CATEGORY_RANKING = Comparator.comparing(CategoryEntry::name, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(CategoryEntry::id);
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final CatalogSnapshot catalogSnapshot;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int maxLimit;
+    private final Timer latency;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object rebuildLock = new Object();
+
+    // Se modifican con el cerrojo de escritura
+    private volatile Index index;
+    private List<Object> missedDuringRebuild;
+
+    public SuggestIndex(ProductRepository productRepository,
+                        CategoryRepository categoryRepository,
+                        CatalogSnapshot catalogSnapshot,
+                        PlatformTransactionManager transactionManager,
+                        MeterRegistry meterRegistry,
+                        @Value("${catalog.suggest.max-limit:10}") int maxLimit) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.catalogSnapshot = catalogSnapshot;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.maxLimit = maxLimit;
+        this.latency = Timer.builder("catalog.suggest.latency").register(meterRegistry);
+        this.index = new Index(maxLimit);
+    }
+
+    public int maxLimit() {
+        return maxLimit;
+    }
+
+    /**
+     * Hasta {@code limit} sugerencias para el prefijo: primero las categorías que coinciden (como máximo
+     * {@value #MAX_CATEGORIES}) y después los productos mejor calificados.
+     */
+    public List<SuggestionResponse> suggest(String prefix, int limit) {
+        long start = System.nanoTime();
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty()) return List.of();
+        String key = truncate(normalized, 0);
+        List<SuggestionResponse> result = new ArrayList<>(limit);
+        lock.readLock().lock();
+        try {
+            // Con un prefijo más largo que las claves, el trie devuelve candidatos hasta llenar el resultado
+            for (CategoryEntry category : index.categories.top(key, Math.min(MAX_CATEGORIES, limit),
+                    category -> matches(category.name(), normalized))) {
+                result.add(new SuggestionResponse(SuggestionResponse.Type.CATEGORY, category.id(), category.name()));
+            }
+            for (ProductEntry product : index.products.top(key, limit - result.size(),
+                    product -> matches(product.title(), normalized))) {
+                result.add(new SuggestionResponse(SuggestionResponse.Type.PRODUCT, product.id(), product.title()));
+            }
+        } finally {
+            lock.readLock().unlock();
+            latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return result;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void on(ProductChangeEvent event) {
+        apply(event);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void on(CategoryChangeEvent event) {
+        // Se consulta fuera del cerrojo; la actualización del índice no accede a la base de datos
+        apply(new CategoryState(event.categoryId(), categoryRepository.findById(event.categoryId()).map(Category::getName).orElse(null)));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (index.built) return;
+        rebuild(true);
+    }
+
+    @EventListener
+    public void on(CatalogReloadedEvent event) {
+        rebuild();
+    }
+
+    /**
+     * Reconstruye el índice desde la base de datos.
+     */
+    public void rebuild() {
+        rebuild(false);
+    }
+
+    /**
+     * Construye un índice nuevo sin bloquear las consultas y lo sustituye al terminar. Los cambios que llegan
+     * mientras tanto se aplican a ambos índices.
+     * @param fromSnapshot Partir de la instantánea del catálogo si se arrancó desde una, en lugar de la base de datos.
+     */
+    private void rebuild(boolean fromSnapshot) {
+        synchronized (rebuildLock) {
+            long start = System.nanoTime();
+            lock.writeLock().lock();
+            try {
+                missedDuringRebuild = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            Index fresh = new Index(maxLimit);
+            boolean loaded = fromSnapshot && catalogSnapshot.load(fresh::upsertCategory, product -> {
+                RatingResponse rating = product.getRating();
+                fresh.upsertProduct(product.getId(), product.getTitle(), rating == null ? 0 : weight(rating.getRate(), rating.getCount()));
+            });
+            if (!loaded) load(fresh);
+            fresh.built = true;
+
+            lock.writeLock().lock();
+            try {
+                missedDuringRebuild.forEach(fresh::apply);
+                missedDuringRebuild = null;
+                index = fresh;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Índice de sugerencias construido: {} productos, {} categorías, {} nodos en {} ms",
+                    fresh.productEntries.size(), fresh.categoryEntries.size(),
+                    fresh.products.nodeCount() + fresh.categories.nodeCount(), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    private void load(Index fresh) {
+        for (Category category : categoryRepository.findAll()) {
+            fresh.upsertCategory(category.getId(), category.getName());
+        }
+        UUID after = new UUID(0, 0);
+        List<Product> chunk;
+        do {
+            UUID from = after;
+            // Una transacción por bloque: el contexto de persistencia no acumula todo el catálogo
+            chunk = readOnlyTransaction.execute(status -> {
+                List<Product> products = productRepository.findActiveAfter(from, PageRequest.ofSize(LOAD_CHUNK));
+                for (Product product : products) {
+                    Rating rating = product.getRating();
+                    fresh.upsertProduct(product.getId(), product.getTitle(),
+                            rating == null ? 0 : weight(rating.getRate(), rating.getCount()));
+                }
+                return products;
+            });
+            if (!chunk.isEmpty()) after = chunk.get(chunk.size() - 1).getId();
+        } while (chunk.size() == LOAD_CHUNK);
+    }
+
+    private void apply(Object change) {
+        lock.writeLock().lock();
+        try {
+            index.apply(change);
+            if (missedDuringRebuild != null) missedDuringRebuild.add(change);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Minúsculas, sin tildes ni diacríticos y con cualquier separador reducido a un espacio.
+     */
+    static String normalize(String text) {
+        if (text == null) return "";
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARATORS.matcher(folded.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    /**
+     * Claves de un texto: el texto normalizado a partir de cada una de sus primeras palabras, truncado.
+     */
+    private static Set<String> keys(String text) {
+        String normalized = normalize(text);
+        Set<String> keys = new LinkedHashSet<>();
+        int start = 0;
+        for (int words = 0; words < MAX_WORDS && start < normalized.length(); words++) {
+            keys.add(truncate(normalized, start));
+            int space = normalized.indexOf(' ', start);
+            if (space < 0) break;
+            start = space + 1;
+        }
+        return keys;
+    }
+
+    private static String truncate(String normalized, int start) {
+        return normalized.substring(start, Math.min(normalized.length(), start + MAX_KEY_LENGTH));
+    }
+
+    /**
+     * Las claves están truncadas: un prefijo más largo se comprueba contra el texto completo.
+     */
+    private static boolean matches(String text, String normalizedPrefix) {
+        if (normalizedPrefix.length() <= MAX_KEY_LENGTH) return true;
+        String normalized = normalize(text);
+        return normalized.startsWith(normalizedPrefix) || normalized.contains(" " + normalizedPrefix);
+    }
+
+    /**
+     * Media bayesiana de la calificación; los productos sin calificar quedan al final.
+     */
+    private static double weight(Double rate, Integer count) {
+        if (rate == null) return 0;
+        int votes = count == null ? 0 : count;
+        return (rate * votes + PRIOR_RATE * PRIOR_VOTES) / (votes + PRIOR_VOTES);
+    }
+
+    private record ProductEntry(UUID id, String title, double weight) {
+    }
+
+    private record CategoryEntry(UUID id, String name) {
+    }
+
+    /** Estado de una categoría tras un {@link CategoryChangeEvent}; {@code name} es null si se eliminó. */
+    private record CategoryState(UUID id, String name) {
+    }
+
+    private static final class Index {
+        private final SuggestTrie<ProductEntry> products;
+        private final SuggestTrie<CategoryEntry> categories = new SuggestTrie<>(MAX_CATEGORIES, CATEGORY_RANKING);
+        private final Map<UUID, ProductEntry> productEntries = new HashMap<>();
+        private final Map<UUID, CategoryEntry> categoryEntries = new HashMap<>();
+        private boolean built;
+
+        Index(int maxLimit) {
+            this.products = new SuggestTrie<>(maxLimit, PRODUCT_RANKING);
+        }
+
+        void apply(Object change) {
+            if (change instanceof ProductChangeEvent event) {
+                if (event.isRemoval()) {
+                    removeProduct(event.productId());
+                } else {
+                    RatingResponse rating = event.product().getRating();
+                    upsertProduct(event.productId(), event.product().getTitle(),
+                            rating == null ? 0 : weight(rating.getRate(), rating.getCount()));
+                }
+            } else if (change instanceof CategoryState state) {
+                if (state.name() == null) {
+                    removeCategory(state.id());
+                } else {
+                    upsertCategory(state.id(), state.name());
+                }
+            }
+        }
+
+        void upsertProduct(UUID id, String title, double weight) {
+            ProductEntry entry = new ProductEntry(id, title, weight);
+            if (entry.equals(productEntries.get(id))) return;
+            removeProduct(id);
+            productEntries.put(id, entry);
+            for (String key : keys(title)) products.add(key, entry);
+        }
+
+        void removeProduct(UUID id) {
+            ProductEntry previous = productEntries.remove(id);
+            if (previous == null) return;
+            for (String key : keys(previous.title())) products.remove(key, previous);
+        }
+
+        void upsertCategory(UUID id, String name) {
+            CategoryEntry entry = new CategoryEntry(id, name);
+            if (entry.equals(categoryEntries.get(id))) return;
+            removeCategory(id);
+            categoryEntries.put(id, entry);
+            for (String key : keys(name)) categories.add(key, entry);
+        }
+
+        void removeCategory(UUID id) {
+            CategoryEntry previous = categoryEntries.remove(id);
+            if (previous == null) return;
+            for (String key : keys(previous.name())) categories.remove(key, previous);
+        }
+    }
+}
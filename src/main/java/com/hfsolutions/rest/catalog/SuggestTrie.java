@@ -0,0 +1,266 @@
+package com.hfsolutions.rest.catalog;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Trie compacto (radix: cada arista guarda una cadena y solo hay nodos donde las claves se bifurcan) que asocia
+ * claves de texto a valores y responde "los {@code k} mejores valores con una clave que empieza por este prefijo"
+ * en O(longitud del prefijo). Cada nodo guarda precalculados los {@code k} mejores valores distintos de su
+ * subárbol según {@code ranking}, por lo que la consulta no recorre el subárbol.
+ * <p>
+ * Los hijos de cada nodo se guardan en arrays ordenados por el primer carácter de su arista (búsqueda binaria,
+ * sin mapas por nodo). Un mismo valor puede tener varias claves; aparece una sola vez en cada ranking.
+ * <p>
+ * No es seguro para hilos: {@link SuggestIndex} serializa las modificaciones y las separa de las lecturas.
+ */
+public final class SuggestTrie<T> {
+    private static final char[] NO_CHARS = new char[0];
+    private static final Object[] NO_VALUES = new Object[0];
+
+    private final int k;
+    private final Comparator<? super T> ranking;
+    private final Node root = new Node("");
+    private int nodes = 1;
+
+    /**
+     * @param k Tamaño de los rankings precalculados: límite máximo de {@link #top(String, int)}.
+     * @param ranking Orden de los valores, el mejor primero. Solo debe devolver 0 para valores iguales.
+     */
+    public SuggestTrie(int k, Comparator<? super T> ranking) {
+        this.k = k;
+        this.ranking = ranking;
+    }
+
+    public void add(String key, T value) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            int index = Arrays.binarySearch(node.firsts, key.charAt(i));
+            if (index < 0) {
+                Node leaf = new Node(key.substring(i));
+                node.insertChild(-index - 1, leaf);
+                nodes++;
+                node = leaf;
+                path.add(node);
+                break;
+            }
+            Node child = node.children[index];
+            int common = commonPrefix(child.label, key, i);
+            if (common < child.label.length()) {
+                // La clave se separa a mitad de la arista: se parte en un nodo intermedio con el tramo común
+                Node middle = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                middle.firsts = new char[]{child.label.charAt(0)};
+                middle.children = new Node[]{child};
+                middle.top = child.top.clone();
+                node.children[index] = middle;
+                nodes++;
+                child = middle;
+            }
+            node = child;
+            path.add(node);
+            i += common;
+        }
+        if (contains(node.values, value)) return;
+        node.values = append(node.values, value);
+        for (Node n : path) n.top = offer(n.top, value);
+    }
+
+    public void remove(String key, T value) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            int index = Arrays.binarySearch(node.firsts, key.charAt(i));
+            if (index < 0) return;
+            Node child = node.children[index];
+            if (!key.startsWith(child.label, i)) return;
+            node = child;
+            path.add(node);
+            i += child.label.length();
+        }
+        if (!contains(node.values, value)) return;
+        node.values = without(node.values, value);
+
+        // De abajo arriba: se podan las hojas vacías y se recalculan los rankings que contenían el valor
+        for (int j = path.size() - 1; j >= 0; j--) {
+            Node n = path.get(j);
+            if (j > 0 && n.values.length == 0 && n.children.length == 0) {
+                path.get(j - 1).removeChild(n);
+                nodes--;
+                continue;
+            }
+            if (contains(n.top, value)) n.top = recompute(n);
+        }
+    }
+
+    /**
+     * Los mejores valores (como máximo {@code min(limit, k)}) con alguna clave que empieza por {@code prefix}.
+     */
+    public List<T> top(String prefix, int limit) {
+        return top(prefix, limit, value -> true);
+    }
+
+    /**
+     * Los mejores valores (como máximo {@code min(limit, k)}) con alguna clave que empieza por {@code prefix} y que
+     * cumplen {@code filter}. Si el ranking precalculado no basta para llenar el resultado, se recorre el subárbol
+     * completo: pensado para filtros que descartan pocos valores o subárboles pequeños.
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> top(String prefix, int limit, Predicate<? super T> filter) {
+        Node node = find(prefix);
+        if (node == null) return List.of();
+        int max = Math.min(limit, k);
+        List<T> result = new ArrayList<>(Math.min(max, node.top.length));
+        for (Object value : node.top) {
+            if (result.size() == max) return result;
+            if (filter.test((T) value)) result.add((T) value);
+        }
+        // Un ranking incompleto contiene ya todo el subárbol
+        if (result.size() == max || node.top.length < k) return result;
+
+        Set<T> candidates = new LinkedHashSet<>();
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(node);
+        while (!pending.isEmpty()) {
+            Node n = pending.pop();
+            for (Object value : n.values) {
+                if (filter.test((T) value)) candidates.add((T) value);
+            }
+            for (Node child : n.children) pending.push(child);
+        }
+        return candidates.stream().sorted(ranking).limit(max).toList();
+    }
+
+    /**
+     * Nodo en el que termina el prefijo (puede estar a mitad de su arista), o null si ninguna clave empieza por él.
+     */
+    private Node find(String prefix) {
+        Node node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            int index = Arrays.binarySearch(node.firsts, prefix.charAt(i));
+            if (index < 0) return null;
+            Node child = node.children[index];
+            int length = Math.min(child.label.length(), prefix.length() - i);
+            if (!prefix.regionMatches(i, child.label, 0, length)) return null;
+            node = child;
+            i += length;
+        }
+        return node;
+    }
+
+    public int nodeCount() {
+        return nodes;
+    }
+
+    /**
+     * Inserta el valor en un ranking ordenado si no estaba y cabe entre los {@code k} mejores.
+     */
+    @SuppressWarnings("unchecked")
+    private Object[] offer(Object[] top, T value) {
+        if (contains(top, value)) return top;
+        int position = 0;
+        while (position < top.length && ranking.compare((T) top[position], value) < 0) position++;
+        if (position >= k) return top;
+        int length = Math.min(k, top.length + 1);
+        Object[] result = new Object[length];
+        System.arraycopy(top, 0, result, 0, position);
+        result[position] = value;
+        System.arraycopy(top, position, result, position + 1, length - position - 1);
+        return result;
+    }
+
+    /**
+     * Ranking de un nodo a partir de sus propios valores y de los rankings (ya actualizados) de sus hijos.
+     */
+    @SuppressWarnings("unchecked")
+    private Object[] recompute(Node node) {
+        Set<T> candidates = new LinkedHashSet<>();
+        for (Object value : node.values) candidates.add((T) value);
+        for (Node child : node.children) {
+            for (Object value : child.top) candidates.add((T) value);
+        }
+        return candidates.stream().sorted(ranking).limit(k).toArray();
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(offset + i)) i++;
+        return i;
+    }
+
+    private static boolean contains(Object[] values, Object value) {
+        for (Object v : values) {
+            if (v.equals(value)) return true;
+        }
+        return false;
+    }
+
+    private static Object[] append(Object[] values, Object value) {
+        Object[] result = Arrays.copyOf(values, values.length + 1);
+        result[values.length] = value;
+        return result;
+    }
+
+    private static Object[] without(Object[] values, Object value) {
+        if (values.length == 1) return NO_VALUES;
+        Object[] result = new Object[values.length - 1];
+        int j = 0;
+        for (Object v : values) {
+            if (!v.equals(value)) result[j++] = v;
+        }
+        return result;
+    }
+
+    private static final class Node {
+        private String label;
+        private char[] firsts = NO_CHARS;
+        private Node[] children = new Node[0];
+        // Valores cuya clave termina exactamente en este nodo
+        private Object[] values = NO_VALUES;
+        // Los k mejores valores distintos del subárbol, el mejor primero
+        private Object[] top = NO_VALUES;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        void insertChild(int index, Node child) {
+            char[] newFirsts = new char[firsts.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(firsts, 0, newFirsts, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            newFirsts[index] = child.label.charAt(0);
+            newChildren[index] = child;
+            System.arraycopy(firsts, index, newFirsts, index + 1, firsts.length - index);
+            System.arraycopy(children, index, newChildren, index + 1, children.length - index);
+            firsts = newFirsts;
+            children = newChildren;
+        }
+
+        void removeChild(Node child) {
+            int index = Arrays.binarySearch(firsts, child.label.charAt(0));
+            char[] newFirsts = new char[firsts.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(firsts, 0, newFirsts, 0, index);
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(firsts, index + 1, newFirsts, index, firsts.length - index - 1);
+            System.arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+            firsts = newFirsts;
+            children = newChildren;
+        }
+    }
+}
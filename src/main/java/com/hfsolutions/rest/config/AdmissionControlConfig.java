@@ -0,0 +1,48 @@
+package com.hfsolutions.rest.config;
+
+import com.hfsolutions.rest.web.AdaptiveConcurrencyLimit;
+import com.hfsolutions.rest.web.AdmissionControlInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+/**
+ * Registra {@link AdmissionControlInterceptor} sobre {@code /api/**}. Cada clase de tráfico (read, write, audit)
+ * se configura con {@code catalog.admission.<clase>.initial-limit}, {@code min-limit}, {@code max-limit} y
+ * {@code latency-target}; la ventana del mínimo de latencia es común a todas ({@code catalog.admission.baseline-window}).
+ * Los límites iniciales por defecto suman 10, el tamaño por defecto del pool de Hikari.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "catalog.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionControlConfig implements WebMvcConfigurer {
+    private final AdmissionControlInterceptor interceptor;
+
+    public AdmissionControlConfig(Environment environment, MeterRegistry meterRegistry) {
+        this.interceptor = new AdmissionControlInterceptor(
+                limit(environment, "read", 6, 2, 200, Duration.ofMillis(250)),
+                limit(environment, "write", 3, 1, 40, Duration.ofMillis(500)),
+                limit(environment, "audit", 1, 1, 16, Duration.ofSeconds(1)),
+                meterRegistry);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(interceptor).addPathPatterns("/api/**");
+    }
+
+    private static AdaptiveConcurrencyLimit limit(Environment environment, String name,
+                                                  int initialLimit, int minLimit, int maxLimit, Duration latencyTarget) {
+        String prefix = "catalog.admission." + name + ".";
+        return new AdaptiveConcurrencyLimit(name,
+                environment.getProperty(prefix + "initial-limit", Integer.class, initialLimit),
+                environment.getProperty(prefix + "min-limit", Integer.class, minLimit),
+                environment.getProperty(prefix + "max-limit", Integer.class, maxLimit),
+                environment.getProperty(prefix + "latency-target", Duration.class, latencyTarget),
+                environment.getProperty("catalog.admission.baseline-window", Duration.class, Duration.ofMinutes(1)));
+    }
+}
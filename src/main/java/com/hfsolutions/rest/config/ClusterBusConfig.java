@@ -0,0 +1,34 @@
+package com.hfsolutions.rest.config;
+
+import com.hfsolutions.rest.catalog.ClusterInvalidationBus;
+import com.hfsolutions.rest.repository.jpa.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Invalidación de los modelos de lectura en memoria entre varias instancias de la aplicación, mediante
+ * {@code LISTEN/NOTIFY} sobre la base de datos primaria. Solo se activa con {@code catalog.cluster.bus.enabled=true}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "catalog.cluster.bus.enabled", havingValue = "true")
+public class ClusterBusConfig {
+
+    @Bean(destroyMethod = "close")
+    public ClusterInvalidationBus clusterInvalidationBus(DataSourceProperties properties,
+                                                         JdbcTemplate jdbcTemplate,
+                                                         ProductRepository productRepository,
+                                                         PlatformTransactionManager transactionManager,
+                                                         ApplicationEventPublisher eventPublisher,
+                                                         MeterRegistry meterRegistry,
+                                                         @Value("${catalog.cluster.bus.channel:catalog_invalidation}") String channel) {
+        return new ClusterInvalidationBus(properties.determineUrl(), properties.determineUsername(), properties.determinePassword(),
+                channel, jdbcTemplate, productRepository, transactionManager, eventPublisher, meterRegistry);
+    }
+}
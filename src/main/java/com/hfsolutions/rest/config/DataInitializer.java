@@ -1,86 +1,166 @@
 package com.hfsolutions.rest.config;
 
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hfsolutions.rest.catalog.CatalogReloadedEvent;
+import com.hfsolutions.rest.catalog.CatalogSeedGate;
 import com.hfsolutions.rest.entity.Category;
-import com.hfsolutions.rest.entity.Product;
-import com.hfsolutions.rest.entity.Rating;
 import com.hfsolutions.rest.dto.product.data.ProductDataDTO;
 import com.hfsolutions.rest.repository.jpa.CategoryRepository;
 import com.hfsolutions.rest.repository.jpa.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Profile;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
+/**
+ * Carga inicial del catálogo desde {@code catalog.seed.location} cuando la tabla de productos está vacía.
+ * El fichero se recorre con un parser JSON en streaming (sin materializar la lista completa) y los productos se
+ * insertan con lotes JDBC dentro de una única transacción. Con {@code catalog.seed.async=true} la carga corre en
+ * segundo plano y {@link CatalogSeedGate} mantiene la aplicación fuera de servicio hasta que termina.
+ */
 @Component
 @Profile("!test")
 public class DataInitializer implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(DataInitializer.class);
+    private static final String INSERT_PRODUCT = "INSERT INTO products "
+            + "(id, title, description, price, stock, category_id, deleted, rate, count, image) "
+            + "VALUES (?, ?, ?, ?, ?, ?, false, ?, ?, ?)";
+    private static final int DEFAULT_STOCK = 100;
 
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private final ResourceLoader resourceLoader;
     private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CatalogSeedGate seedGate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final String location;
+    private final int batchSize;
+    private final boolean async;
 
     public DataInitializer(ProductRepository productRepository,
                            CategoryRepository categoryRepository,
                            ResourceLoader resourceLoader,
-                           ObjectMapper objectMapper) {
+                           ObjectMapper objectMapper,
+                           JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           CatalogSeedGate seedGate,
+                           ApplicationEventPublisher eventPublisher,
+                           @Value("${catalog.seed.location:classpath:data.json}") String location,
+                           @Value("${catalog.seed.batch-size:1000}") int batchSize,
+                           @Value("${catalog.seed.async:false}") boolean async) {
         this.productRepository = productRepository;
         this.categoryRepository = categoryRepository;
         this.resourceLoader = resourceLoader;
         this.objectMapper = objectMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.seedGate = seedGate;
+        this.eventPublisher = eventPublisher;
+        this.location = location;
+        this.batchSize = batchSize;
+        this.async = async;
     }
 
     @Override
     public void run(ApplicationArguments args) throws Exception {
-        if (productRepository.count() == 0) {
-            // Load data from JSON
-            Resource resource = resourceLoader.getResource("classpath:data.json");
-            InputStream inputStream = resource.getInputStream();
-            List<ProductDataDTO> productDTOs = objectMapper.readValue(inputStream, new TypeReference<List<ProductDataDTO>>() {});
+        if (productRepository.count() > 0) return;
+        if (!async) {
+            seed();
+            return;
+        }
+        seedGate.close();
+        Thread worker = new Thread(() -> {
+            try {
+                seed();
+            } catch (Exception e) {
+                log.error("Falló la carga inicial del catálogo desde {}", location, e);
+            } finally {
+                seedGate.open();
+            }
+        }, "catalog-seed");
+        worker.setDaemon(true);
+        worker.start();
+    }
 
-            Map<String, Category> categoryCache = new HashMap<>();
-            List<Product> productsToSave = new ArrayList<>();
+    private void seed() throws Exception {
+        long start = System.nanoTime();
+        Resource resource = resourceLoader.getResource(location);
+        long[] inserted = new long[1];
+        try (InputStream inputStream = resource.getInputStream();
+             JsonParser parser = objectMapper.getFactory().createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalStateException("El fichero " + location + " debe contener un array de productos");
+            }
+            transactionTemplate.executeWithoutResult(status -> inserted[0] = insertAll(parser));
+        }
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        log.info("Catálogo inicial cargado: {} productos en {} ms ({} productos/s)",
+                inserted[0], elapsedMs, inserted[0] * 1000 / elapsedMs);
+        eventPublisher.publishEvent(new CatalogReloadedEvent());
+    }
 
-            for (ProductDataDTO dto : productDTOs) {
-                System.out.println("Procesando producto: " + dto.getTitle() + " | Rating: " + dto.getRating());
-                Category category = categoryCache.computeIfAbsent(dto.getCategory(), name -> {
-                    Category newCategory = Category.builder()
-                            .name(name)
-                            .build();
-                    return categoryRepository.save(newCategory);
+    private long insertAll(JsonParser parser) {
+        Map<String, UUID> categories = new HashMap<>();
+        for (Category category : categoryRepository.findAll()) {
+            categories.put(category.getName(), category.getId());
+        }
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        long inserted = 0;
+        try {
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                ProductDataDTO dto = objectMapper.readValue(parser, ProductDataDTO.class);
+                // saveAndFlush: los INSERT por JDBC no provocan el flush de Hibernate y la FK debe existir
+                UUID categoryId = categories.computeIfAbsent(dto.getCategory(),
+                        name -> categoryRepository.saveAndFlush(Category.builder().name(name).build()).getId());
+                batch.add(new Object[]{
+                        UUID.randomUUID(),
+                        dto.getTitle(),
+                        dto.getDescription(),
+                        BigDecimal.valueOf(dto.getPrice()),
+                        DEFAULT_STOCK,
+                        categoryId,
+                        dto.getRating() != null ? dto.getRating().getRate() : null,
+                        dto.getRating() != null ? dto.getRating().getCount() : null,
+                        dto.getImage()
                 });
-
-                Product product = Product.builder()
-                                .title(dto.getTitle())
-                                .price(BigDecimal.valueOf(dto.getPrice()))
-                                .description(dto.getDescription())
-                                .image(dto.getImage())
-                                .category(category)
-                                .deleted(false)
-                                .stock(100)
-                                .rating(dto.getRating() != null ?
-                                        Rating.builder()
-                                                .rate(dto.getRating().getRate())
-                                                .count(dto.getRating().getCount())
-                                                .build()
-                                        : null)
-                                .build();
-
-                productsToSave.add(product);
+                if (batch.size() == batchSize) {
+                    inserted += flush(batch);
+                    log.debug("Carga inicial: {} productos insertados", inserted);
+                }
             }
-
-            productRepository.saveAll(productsToSave);
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo leer el fichero " + location, e);
         }
+        return inserted + flush(batch);
+    }
+
+    private int flush(List<Object[]> batch) {
+        if (batch.isEmpty()) return 0;
+        int size = batch.size();
+        jdbcTemplate.batchUpdate(INSERT_PRODUCT, batch);
+        batch.clear();
+        return size;
     }
 }
@@ -0,0 +1,93 @@
+package com.hfsolutions.rest.config;
+
+import com.hfsolutions.rest.audit.ProductAudit;
+import com.hfsolutions.rest.audit.ProductAuditRollup;
+import com.hfsolutions.rest.audit.ProductStateSnapshot;
+import com.hfsolutions.rest.dto.audit.response.ProductSeriesResponse;
+import com.hfsolutions.rest.dto.audit.response.ProductStateResponse;
+import com.hfsolutions.rest.dto.audit.response.SeriesPointResponse;
+import com.hfsolutions.rest.dto.category.request.CategoryCreateRequest;
+import com.hfsolutions.rest.dto.category.request.CategoryUpdateRequest;
+import com.hfsolutions.rest.dto.category.response.CategoryResponse;
+import com.hfsolutions.rest.dto.common.ApiError;
+import com.hfsolutions.rest.dto.product.data.ProductDataDTO;
+import com.hfsolutions.rest.dto.product.data.RatingDataDTO;
+import com.hfsolutions.rest.dto.product.request.CreateProductRequest;
+import com.hfsolutions.rest.dto.product.request.ProductBatchRequest;
+import com.hfsolutions.rest.dto.product.request.RatingSubmissionRequest;
+import com.hfsolutions.rest.dto.product.request.StockReservationRequest;
+import com.hfsolutions.rest.dto.product.request.UpdateProductRequest;
+import com.hfsolutions.rest.dto.product.request.UpdateStockRequest;
+import com.hfsolutions.rest.dto.product.response.ProductBatchItemResponse;
+import com.hfsolutions.rest.dto.product.response.StockReservationResponse;
+import com.hfsolutions.rest.dto.product.response.SuggestionResponse;
+import com.hfsolutions.rest.dto.product.response.ProductResponse;
+import com.hfsolutions.rest.dto.product.response.RatingResponse;
+import com.hfsolutions.rest.entity.AuditOutboxEntry;
+import com.hfsolutions.rest.entity.Category;
+import com.hfsolutions.rest.entity.Product;
+import com.hfsolutions.rest.entity.Rating;
+import com.hfsolutions.rest.entity.StockReservation;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Pistas de alcanzabilidad para el procesamiento AOT de Spring y la imagen nativa de GraalVM.
+ * Los controladores devuelven {@code Page<?>}/{@code Object} y MongoTemplate trabaja con documentos que no
+ * pertenecen a ningún repositorio, por lo que el análisis estático no descubre todos los tipos serializados.
+ */
+@Configuration(proxyBeanMethods = false)
+@ImportRuntimeHints(NativeHintsConfig.CatalogRuntimeHints.class)
+public class NativeHintsConfig {
+
+    static class CatalogRuntimeHints implements RuntimeHintsRegistrar {
+        private static final List<Class<?>> ENTITIES = List.of(
+                Product.class, Category.class, Rating.class, AuditOutboxEntry.class, StockReservation.class);
+
+        private static final List<Class<?>> DOCUMENTS = List.of(
+                ProductAudit.class, ProductAuditRollup.class, ProductStateSnapshot.class);
+
+        private static final List<Class<?>> DTOS = List.of(
+                ProductResponse.class, RatingResponse.class, CategoryResponse.class, ProductStateResponse.class,
+                ProductSeriesResponse.class, SeriesPointResponse.class,
+                CreateProductRequest.class, UpdateProductRequest.class, UpdateStockRequest.class,
+                CategoryCreateRequest.class, CategoryUpdateRequest.class, ApiError.class,
+                ProductBatchRequest.class, ProductBatchItemResponse.class, RatingSubmissionRequest.class,
+                ProductDataDTO.class, RatingDataDTO.class, StockReservationRequest.class, StockReservationResponse.class,
+                SuggestionResponse.class);
+
+        private final BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            for (Class<?> type : ENTITIES) {
+                hints.reflection().registerType(type, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                        MemberCategory.INVOKE_DECLARED_METHODS, MemberCategory.DECLARED_FIELDS);
+            }
+            // Documentos y DTOs: constructores, getters/setters y tipos anidados para Jackson y Spring Data MongoDB
+            bindingRegistrar.registerReflectionHints(hints.reflection(), DOCUMENTS.toArray(Class<?>[]::new));
+            bindingRegistrar.registerReflectionHints(hints.reflection(), DTOS.toArray(Class<?>[]::new));
+
+            // Builders generados por Lombok (Product$ProductBuilder, ...)
+            for (Class<?> type : concat(ENTITIES, DOCUMENTS, DTOS)) {
+                String builder = type.getName() + "$" + type.getSimpleName() + "Builder";
+                hints.reflection().registerTypeIfPresent(classLoader, builder,
+                        MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+            }
+
+            hints.resources().registerPattern("data.json");
+        }
+
+        @SafeVarargs
+        private static List<Class<?>> concat(List<Class<?>>... lists) {
+            return Arrays.stream(lists).flatMap(List::stream).toList();
+        }
+    }
+}
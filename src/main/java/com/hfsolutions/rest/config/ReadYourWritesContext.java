@@ -0,0 +1,24 @@
+package com.hfsolutions.rest.config;
+
+/**
+ * Marca por hilo que fija las lecturas de la petición actual a la base de datos primaria,
+ * usada por {@link ReplicaRoutingDataSource} para garantizar que un cliente vea sus propias escrituras.
+ */
+public final class ReadYourWritesContext {
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private ReadYourWritesContext() {
+    }
+
+    public static void pinToPrimary() {
+        PINNED.set(Boolean.TRUE);
+    }
+
+    public static void clear() {
+        PINNED.remove();
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return Boolean.TRUE.equals(PINNED.get());
+    }
+}
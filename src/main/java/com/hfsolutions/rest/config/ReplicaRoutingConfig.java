@@ -0,0 +1,70 @@
+package com.hfsolutions.rest.config;
+
+import com.hfsolutions.rest.web.ReadYourWritesFilter;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Enrutamiento a réplicas de lectura. Las transacciones {@code @Transactional(readOnly = true)} obtienen su conexión
+ * de {@link ReplicaRoutingDataSource}; el resto, de la primaria configurada en {@code spring.datasource.*}.
+ * {@link LazyConnectionDataSourceProxy} retrasa la obtención de la conexión hasta conocer si la transacción es
+ * de solo lectura.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "catalog.datasource.replicas.enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaDataSource(HikariDataSource primaryDataSource,
+                                                      DataSourceProperties properties,
+                                                      @Value("${catalog.datasource.replicas.urls}") String[] urls,
+                                                      @Value("${catalog.datasource.replicas.max-lag:10s}") Duration maxLag,
+                                                      @Value("${catalog.datasource.replicas.connection-timeout:1s}") Duration connectionTimeout) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < urls.length; i++) {
+            HikariDataSource replica = properties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(urls[i].trim())
+                    .build();
+            replica.setPoolName("replica-" + (i + 1));
+            replica.setMaximumPoolSize(primaryDataSource.getMaximumPoolSize());
+            replica.setReadOnly(true);
+            // Una réplica caída debe fallar rápido: la lectura pasa a otra réplica o a la primaria, y la comprobación
+            // periódica no retiene el hilo del planificador los 30 s por defecto de Hikari
+            replica.setConnectionTimeout(connectionTimeout.toMillis());
+            replicas.add(replica);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, maxLag);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaRoutingDataSource replicaDataSource) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primaryDataSource);
+        proxy.setReadOnlyDataSource(replicaDataSource);
+        return proxy;
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(@Value("${catalog.datasource.read-your-writes-window:5s}") Duration window) {
+        return new ReadYourWritesFilter(window);
+    }
+}
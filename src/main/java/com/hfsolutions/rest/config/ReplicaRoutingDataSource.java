@@ -0,0 +1,110 @@
+package com.hfsolutions.rest.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Origen de datos para transacciones de solo lectura. Reparte las conexiones en round-robin entre las réplicas
+ * sanas y recurre a la primaria cuando ninguna lo está o cuando la petición está fijada por
+ * {@link ReadYourWritesContext}. Una réplica deja de usarse si no responde o si su retraso de replicación supera
+ * {@code maxLag}, y vuelve a usarse en cuanto la comprobación periódica la encuentra sana.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    // Retraso en segundos; 0 si la réplica ya aplicó todo lo recibido y null si no está en recuperación
+    private static final String LAG_QUERY = "SELECT CASE WHEN NOT pg_is_in_recovery() THEN NULL "
+            + "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+            + "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) END";
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final Duration maxLag;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<HikariDataSource> replicas, Duration maxLag) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.maxLag = maxLag;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!ReadYourWritesContext.isPinnedToPrimary() && !replicas.isEmpty()) {
+            int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get((start + i) % replicas.size());
+                if (!replica.healthy) continue;
+                try {
+                    Connection connection = replica.dataSource.getConnection();
+                    log.debug("Lectura servida por {}", replica.dataSource.getPoolName());
+                    return connection;
+                } catch (SQLException e) {
+                    markUnhealthy(replica, e.getMessage());
+                }
+            }
+        }
+        log.debug("Lectura servida por la primaria");
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        // Las réplicas usan las credenciales configuradas en su pool; con credenciales explícitas se usa la primaria
+        return primary.getConnection(username, password);
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.datasource.replicas.health-check-interval-ms:5000}")
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(LAG_QUERY)) {
+                rs.next();
+                double lagSeconds = rs.getDouble(1);
+                if (!rs.wasNull() && lagSeconds * 1000 > maxLag.toMillis()) {
+                    markUnhealthy(replica, "retraso de replicación de " + Math.round(lagSeconds) + " s");
+                } else if (!replica.healthy) {
+                    replica.healthy = true;
+                    log.info("Réplica {} disponible de nuevo", replica.dataSource.getPoolName());
+                }
+            } catch (SQLException e) {
+                markUnhealthy(replica, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Cierra los pools de las réplicas; Spring lo invoca al destruir el bean.
+     */
+    public void close() {
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+
+    private void markUnhealthy(Replica replica, String reason) {
+        if (replica.healthy) {
+            replica.healthy = false;
+            log.warn("Réplica {} fuera de servicio: {}", replica.dataSource.getPoolName(), reason);
+        }
+    }
+
+    private static final class Replica {
+        private final HikariDataSource dataSource;
+        private volatile boolean healthy = true;
+
+        Replica(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.hfsolutions.rest.config;
+
+import com.hfsolutions.rest.traffic.TrafficRecorder;
+import com.hfsolutions.rest.web.TrafficRecordingFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Grabación opcional del tráfico de {@code /api/**} para reproducirlo contra otra instancia
+ * ({@code scripts/replay-traffic.sh}). Solo se activa con {@code catalog.traffic.recording.enabled=true}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "catalog.traffic.recording.enabled", havingValue = "true")
+public class TrafficRecordingConfig {
+
+    @Bean(destroyMethod = "close")
+    public TrafficRecorder trafficRecorder(@Value("${catalog.traffic.recording.file:traffic/requests.bin}") String file,
+                                           @Value("${catalog.traffic.recording.queue-capacity:10000}") int queueCapacity) throws IOException {
+        return new TrafficRecorder(Path.of(file), queueCapacity);
+    }
+
+    @Bean
+    public TrafficRecordingFilter trafficRecordingFilter(TrafficRecorder trafficRecorder,
+                                                         @Value("${catalog.traffic.recording.sample-rate:0.1}") double sampleRate,
+                                                         @Value("${catalog.traffic.recording.max-body-bytes:65536}") int maxBodyBytes) {
+        return new TrafficRecordingFilter(trafficRecorder, sampleRate, maxBodyBytes);
+    }
+}
@@ -2,8 +2,13 @@ package com.hfsolutions.rest.controller;
 
 import com.hfsolutions.rest.audit.AuditAction;
 import com.hfsolutions.rest.audit.ProductAudit;
+import com.hfsolutions.rest.audit.ProductAuditRollup;
+import com.hfsolutions.rest.audit.RollupGranularity;
+import com.hfsolutions.rest.dto.audit.response.ProductSeriesResponse;
+import com.hfsolutions.rest.dto.audit.response.ProductStateResponse;
 import com.hfsolutions.rest.dto.common.ApiError;
 import com.hfsolutions.rest.repository.mongo.ProductAuditRepository;
+import com.hfsolutions.rest.service.AuditService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
@@ -13,8 +18,10 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 
@@ -23,9 +30,11 @@ import java.util.UUID;
 @Tag(name = "Auditoría", description = "Consulta del historial de cambios y eventos del sistema (MongoDB)")
 public class AuditController {
     private final ProductAuditRepository repository;
+    private final AuditService auditService;
 
-    public AuditController(ProductAuditRepository repository) {
+    public AuditController(ProductAuditRepository repository, AuditService auditService) {
         this.repository = repository;
+        this.auditService = auditService;
     }
 
     @GetMapping("/products/{productId}")
@@ -36,7 +45,38 @@ public class AuditController {
 
     })
     public List<ProductAudit> byProduct(@Parameter(description = "ID del producto") @PathVariable UUID productId) {
-        return repository.findByProductIdOrderByTimestampDesc(productId);
+        return repository.findByProductIdOrderByTimestampDescIdDesc(productId);
+    }
+
+    @GetMapping("/products/{productId}/state")
+    @Operation(summary = "Estado histórico de un producto", description = "Reconstruye cómo era un producto en un instante dado combinando el snapshot periódico más cercano con los cambios posteriores.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Estado reconstruido exitosamente",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductStateResponse.class))),
+            @ApiResponse(responseCode = "404", description = "Sin historial para el producto en la fecha indicada",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class),
+                            examples = @ExampleObject(value = "{\"status\": 404, \"error\": \"RESOURCE_NOT_FOUND\", \"message\": \"No hay historial del producto para la fecha indicada\", \"path\": \"/api/audit/products/123e4567-e89b-12d3-a456-426614174000/state\", \"timestamp\": \"2023-10-01T12:00:00Z\"}")))
+    })
+    public ProductStateResponse stateAt(@Parameter(description = "ID del producto") @PathVariable UUID productId,
+                                        @Parameter(description = "Instante a reconstruir (ISO-8601). Por defecto, ahora") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant at) {
+        return auditService.stateAt(productId, at);
+    }
+
+    @GetMapping("/products/{productId}/series")
+    @Operation(summary = "Serie histórica de precio o stock", description = "Devuelve la evolución de price o stock de un producto reducida en el servidor a como máximo 'points' puntos (mínimo y máximo de cada intervalo), apta para gráficas aunque el producto tenga millones de eventos.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Serie calculada exitosamente",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductSeriesResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Campo, rango o cantidad de puntos inválidos",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class),
+                            examples = @ExampleObject(value = "{\"status\": 400, \"error\": \"BUSINESS_RULE_VIOLATION\", \"message\": \"Campo inválido: 'title'. Valores permitidos: price, stock\", \"path\": \"/api/audit/products/123e4567-e89b-12d3-a456-426614174000/series\", \"timestamp\": \"2023-10-01T12:00:00Z\"}")))
+    })
+    public ProductSeriesResponse series(@Parameter(description = "ID del producto") @PathVariable UUID productId,
+                                        @Parameter(description = "Campo: price o stock") @RequestParam(defaultValue = "price") String field,
+                                        @Parameter(description = "Inicio del rango (ISO-8601). Por defecto, 30 días antes de 'to'") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                        @Parameter(description = "Fin del rango (ISO-8601). Por defecto, ahora") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                                        @Parameter(description = "Cantidad máxima de puntos (2-5000)") @RequestParam(defaultValue = "500") int points) {
+        return auditService.series(productId, field, from, to, points);
     }
 
     @GetMapping("/products")
@@ -47,7 +87,7 @@ public class AuditController {
 
     })
     public List<ProductAudit> latest() {
-        return repository.findTop100ByOrderByTimestampDesc();
+        return repository.findTop100ByOrderByTimestampDescIdDesc();
     }
 
     @GetMapping("/actions/{action}")
@@ -58,6 +98,23 @@ public class AuditController {
 
     })
     public List<ProductAudit> byAction(@Parameter(description = "Tipo de acción a consultar") @PathVariable AuditAction action) {
-        return repository.findByActionOrderByTimestampDesc(action);
+        return repository.findByActionOrderByTimestampDescIdDesc(action);
+    }
+
+    @GetMapping("/rollups")
+    @Operation(summary = "Conteos agregados por intervalo", description = "Devuelve los conteos pre-agregados de eventos por hora o por día. Sin productId devuelve los totales globales por acción; con productId, los del producto indicado.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Conteos recuperados exitosamente",
+                    content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = ProductAuditRollup.class)))),
+            @ApiResponse(responseCode = "400", description = "Rango de fechas inválido",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class),
+                            examples = @ExampleObject(value = "{\"status\": 400, \"error\": \"BUSINESS_RULE_VIOLATION\", \"message\": \"La fecha 'from' debe ser anterior a 'to'\", \"path\": \"/api/audit/rollups\", \"timestamp\": \"2023-10-01T12:00:00Z\"}")))
+    })
+    public List<ProductAuditRollup> rollups(@Parameter(description = "Granularidad: HOUR o DAY") @RequestParam(defaultValue = "HOUR") RollupGranularity granularity,
+                                            @Parameter(description = "Inicio del rango (ISO-8601). Por defecto, 1 día (HOUR) o 30 días (DAY) antes de 'to'") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                            @Parameter(description = "Fin del rango (ISO-8601). Por defecto, ahora") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                                            @Parameter(description = "ID del producto (opcional)") @RequestParam(required = false) UUID productId,
+                                            @Parameter(description = "Tipo de acción (opcional)") @RequestParam(required = false) AuditAction action) {
+        return auditService.rollups(granularity, from, to, productId, action);
     }
 }
\ No newline at end of file
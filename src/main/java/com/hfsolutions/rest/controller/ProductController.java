@@ -1,13 +1,24 @@
 package com.hfsolutions.rest.controller;
 
+import com.hfsolutions.rest.catalog.ReadCoalescer;
 import com.hfsolutions.rest.dto.product.request.CreateProductRequest;
+import com.hfsolutions.rest.dto.product.request.ProductBatchRequest;
+import com.hfsolutions.rest.dto.product.request.ProductField;
+import com.hfsolutions.rest.dto.product.request.RatingSubmissionRequest;
+import com.hfsolutions.rest.dto.product.request.StockReservationRequest;
 import com.hfsolutions.rest.dto.product.request.UpdateProductRequest;
 import com.hfsolutions.rest.dto.product.request.UpdateStockRequest;
 
 
+import com.hfsolutions.rest.dto.product.response.ProductBatchItemResponse;
+import com.hfsolutions.rest.dto.product.response.ProductPageResponse;
 import com.hfsolutions.rest.dto.product.response.ProductResponse;
+import com.hfsolutions.rest.dto.product.response.StockReservationResponse;
+import com.hfsolutions.rest.dto.product.response.SuggestionResponse;
 import com.hfsolutions.rest.dto.common.ApiError;
+import com.hfsolutions.rest.repository.jpa.ProductFilter;
 import com.hfsolutions.rest.service.ProductService;
+import com.hfsolutions.rest.service.StockReservationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -19,21 +30,36 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/products")
 @Tag(name = "Inventario", description = "Operaciones para la gestión del ciclo de vida de los productos (creación, edición, consulta y eliminación)")
 public class ProductController {
+    private static final String FIELDS_DESCRIPTION = "Campos a incluir separados por comas (id, title, description, price, stock, available, categoryId, categoryName, rating, image). Por defecto, todos";
+    // Orden estable para paginar: coincide con los índices parciales de la migración V2 (ID, y precio + ID).
+    // Los IDs son UUID aleatorios, así que el orden por ID no tiene significado para el cliente: solo garantiza
+    // que las páginas no se solapen. Se documenta en la descripción de cada endpoint.
+    private static final String ORDER_BY_ID = " Los resultados se ordenan por ID: un orden estable para paginar, sin relación con el título ni con la fecha de alta.";
+    private static final Sort BY_ID = Sort.by("id");
+    private static final Sort BY_PRICE = Sort.by("price", "id");
+
     private final ProductService productService;
+    private final ReadCoalescer readCoalescer;
+    private final StockReservationService reservationService;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ReadCoalescer readCoalescer, StockReservationService reservationService) {
         this.productService = productService;
+        this.readCoalescer = readCoalescer;
+        this.reservationService = reservationService;
     }
 
     @PostMapping
@@ -50,28 +76,62 @@ public class ProductController {
     }
 
     @GetMapping
-    @Operation(summary = "Listar productos paginados", description = "Obtiene una lista paginada de todos los productos activos (no eliminados).")
+    @Operation(summary = "Listar productos paginados", description = "Obtiene una lista paginada de todos los productos activos (no eliminados)." + ORDER_BY_ID)
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Lista de productos recuperada exitosamente")
+            @ApiResponse(responseCode = "200", description = "Lista de productos recuperada exitosamente",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductPageResponse.class)))
     })
-    public Page<ProductResponse> list(
+    public Page<?> list(
             @Parameter(description = "Número de página (0..N)") @RequestParam(defaultValue = "0") int page,
-            @Parameter(description = "Cantidad de elementos por página") @RequestParam(defaultValue = "10") int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        return productService.list(pageable);
+            @Parameter(description = "Cantidad de elementos por página") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = FIELDS_DESCRIPTION) @RequestParam(required = false) String fields) {
+        Pageable pageable = PageRequest.of(page, size, BY_ID);
+        if (fields != null) {
+            Set<ProductField> selected = ProductField.parse(fields);
+            return readCoalescer.execute("list", () -> productService.find(ProductFilter.all(), selected, pageable), pageable, selected);
+        }
+        return readCoalescer.execute("list", () -> productService.list(pageable), pageable);
     }
 
     @GetMapping("/{id}")
     @Operation(summary = "Obtener producto por ID", description = "Recupera los detalles de un producto específico mediante su ID único.")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Producto encontrado",
+            @ApiResponse(responseCode = "200", description = "Producto encontrado. Con el parámetro 'fields' incluye solo los campos solicitados",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductResponse.class))),
             @ApiResponse(responseCode = "404", description = "Producto no encontrado",
                     content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class),
                             examples = @ExampleObject(value = "{\"status\": 404, \"error\": \"RESOURCE_NOT_FOUND\", \"message\": \"Producto no encontrado\", \"path\": \"/api/products/123e4567-e89b-12d3-a456-426614174000\", \"timestamp\": \"2023-10-01T12:00:00Z\"}")))
     })
-    public ProductResponse get(@Parameter(description = "ID único del producto") @PathVariable UUID id) {
-        return productService.get(id);
+    public Object get(@Parameter(description = "ID único del producto") @PathVariable UUID id,
+                      @Parameter(description = FIELDS_DESCRIPTION) @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            Set<ProductField> selected = ProductField.parse(fields);
+            return readCoalescer.execute("get", () -> productService.get(id, selected), id, selected);
+        }
+        return readCoalescer.execute("get", () -> productService.get(id), id);
+    }
+
+    @GetMapping("/batch")
+    @Operation(summary = "Obtener varios productos por ID", description = "Recupera hasta 100 productos en una sola consulta. El resultado respeta el orden de los IDs solicitados e indica con found=false los productos inexistentes o eliminados.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Productos recuperados exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Lista de IDs vacía o con más de 100 elementos",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class),
+                            examples = @ExampleObject(value = "{\"status\": 400, \"error\": \"BUSINESS_RULE_VIOLATION\", \"message\": \"No se pueden solicitar más de 100 productos a la vez\", \"path\": \"/api/products/batch\", \"timestamp\": \"2023-10-01T12:00:00Z\"}")))
+    })
+    public List<ProductBatchItemResponse> getMany(@Parameter(description = "IDs de los productos separados por comas") @RequestParam List<UUID> ids) {
+        return productService.getMany(ids);
+    }
+
+    @PostMapping("/batch")
+    @Operation(summary = "Obtener varios productos por ID (cuerpo JSON)", description = "Equivalente a GET /api/products/batch para listas de IDs que no caben cómodamente en la URL.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Productos recuperados exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Lista de IDs vacía o con más de 100 elementos",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class)))
+    })
+    public List<ProductBatchItemResponse> getManyFromBody(@Valid @RequestBody ProductBatchRequest req) {
+        return productService.getMany(req.getIds());
     }
 
     @PutMapping("/{id}")
@@ -124,43 +184,163 @@ public class ProductController {
         return productService.updateStock(id, req);
     }
 
+    @PostMapping("/{id}/ratings")
+    @Operation(summary = "Calificar producto", description = "Registra una calificación de 1 a 5. La calificación media y el número de votos del producto se actualizan en segundo plano, en lotes.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Calificación aceptada"),
+            @ApiResponse(responseCode = "400", description = "Puntuación fuera de rango",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class),
+                            examples = @ExampleObject(value = "{\"status\": 400, \"error\": \"VALIDATION_ERROR\", \"message\": \"score: La calificación máxima es 5\", \"path\": \"/api/products/123e4567-e89b-12d3-a456-426614174000/ratings\", \"timestamp\": \"2023-10-01T12:00:00Z\"}"))),
+            @ApiResponse(responseCode = "404", description = "Producto no encontrado",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class)))
+    })
+    public ResponseEntity<Void> rate(@Parameter(description = "ID del producto") @PathVariable UUID id,
+                                     @Valid @RequestBody RatingSubmissionRequest req) {
+        productService.rate(id, req);
+        return ResponseEntity.accepted().build();
+    }
+
+    @PostMapping("/{id}/reservations")
+    @Operation(summary = "Reservar stock", description = "Retiene unidades del producto durante un tiempo limitado (p. ej. mientras están en un carrito). Las unidades reservadas no pueden reservarse de nuevo; si la reserva no se confirma ni se libera, caduca y vuelven a estar disponibles.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Reserva creada",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = StockReservationResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Cantidad inválida o stock disponible insuficiente",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class),
+                            examples = @ExampleObject(value = "{\"status\": 400, \"error\": \"BUSINESS_RULE_VIOLATION\", \"message\": \"No hay stock disponible suficiente para reservar 3 unidades\", \"path\": \"/api/products/123e4567-e89b-12d3-a456-426614174000/reservations\", \"timestamp\": \"2023-10-01T12:00:00Z\"}"))),
+            @ApiResponse(responseCode = "404", description = "Producto no encontrado",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class)))
+    })
+    public ResponseEntity<StockReservationResponse> reserve(@Parameter(description = "ID del producto") @PathVariable UUID id,
+                                                            @Valid @RequestBody StockReservationRequest req) {
+        return ResponseEntity.status(org.springframework.http.HttpStatus.CREATED).body(reservationService.reserve(id, req));
+    }
+
+    @PostMapping("/{id}/reservations/{reservationId}/confirm")
+    @Operation(summary = "Confirmar reserva", description = "Descuenta del stock las unidades reservadas (p. ej. al completar el pedido).")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Reserva confirmada",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = StockReservationResponse.class))),
+            @ApiResponse(responseCode = "400", description = "El producto fue eliminado",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class))),
+            @ApiResponse(responseCode = "404", description = "Reserva no encontrada, ya confirmada, liberada o caducada",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class),
+                            examples = @ExampleObject(value = "{\"status\": 404, \"error\": \"RESOURCE_NOT_FOUND\", \"message\": \"Reserva no encontrada o caducada\", \"path\": \"/api/products/123e4567-e89b-12d3-a456-426614174000/reservations/5f0c7a3e-8d1b-4c2a-9e6f-1a2b3c4d5e6f/confirm\", \"timestamp\": \"2023-10-01T12:00:00Z\"}")))
+    })
+    public StockReservationResponse confirmReservation(@Parameter(description = "ID del producto") @PathVariable UUID id,
+                                                       @Parameter(description = "ID de la reserva") @PathVariable UUID reservationId) {
+        return reservationService.confirm(id, reservationId);
+    }
+
+    @DeleteMapping("/{id}/reservations/{reservationId}")
+    @Operation(summary = "Liberar reserva", description = "Cancela la reserva y devuelve sus unidades a disponibles.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Reserva liberada"),
+            @ApiResponse(responseCode = "404", description = "Reserva no encontrada, ya confirmada, liberada o caducada",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class)))
+    })
+    public ResponseEntity<Void> releaseReservation(@Parameter(description = "ID del producto") @PathVariable UUID id,
+                                                   @Parameter(description = "ID de la reserva") @PathVariable UUID reservationId) {
+        reservationService.release(id, reservationId);
+        return ResponseEntity.noContent().build();
+    }
+
     @GetMapping("/category/{categoryId}")
-    @Operation(summary = "Filtrar por categoría", description = "Obtiene una lista paginada de productos pertenecientes a una categoría específica.")
+    @Operation(summary = "Filtrar por categoría", description = "Obtiene una lista paginada de productos pertenecientes a una categoría específica." + ORDER_BY_ID)
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Lista filtrada recuperada exitosamente"),
+            @ApiResponse(responseCode = "200", description = "Lista filtrada recuperada exitosamente",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductPageResponse.class))),
 
     })
-    public Page<ProductResponse> byCategory(@Parameter(description = "ID de la categoría") @PathVariable UUID categoryId,
-                                       @Parameter(description = "Número de página") @RequestParam(defaultValue = "0") int page,
-                                       @Parameter(description = "Tamaño de página") @RequestParam(defaultValue = "10") int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        return productService.byCategory(categoryId, pageable);
+    public Page<?> byCategory(@Parameter(description = "ID de la categoría") @PathVariable UUID categoryId,
+                              @Parameter(description = "Número de página") @RequestParam(defaultValue = "0") int page,
+                              @Parameter(description = "Tamaño de página") @RequestParam(defaultValue = "10") int size,
+                              @Parameter(description = FIELDS_DESCRIPTION) @RequestParam(required = false) String fields) {
+        Pageable pageable = PageRequest.of(page, size, BY_ID);
+        if (fields != null) {
+            Set<ProductField> selected = ProductField.parse(fields);
+            return readCoalescer.execute("byCategory", () -> productService.find(ProductFilter.byCategory(categoryId), selected, pageable), categoryId, pageable, selected);
+        }
+        return readCoalescer.execute("byCategory", () -> productService.byCategory(categoryId, pageable), categoryId, pageable);
     }
 
     @GetMapping("/search")
-    @Operation(summary = "Buscar por título", description = "Busca productos cuyo título contenga el texto proporcionado (búsqueda insensible a mayúsculas).")
+    @Operation(summary = "Buscar por título", description = "Busca productos cuyo título contenga el texto proporcionado (búsqueda insensible a mayúsculas)." + ORDER_BY_ID)
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Resultados de búsqueda recuperados exitosamente",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductPageResponse.class))),
+
+    })
+    public Page<?> search(@Parameter(description = "Texto a buscar") @RequestParam("q") String q,
+                          @Parameter(description = "Número de página") @RequestParam(defaultValue = "0") int page,
+                          @Parameter(description = "Tamaño de página") @RequestParam(defaultValue = "10") int size,
+                          @Parameter(description = FIELDS_DESCRIPTION) @RequestParam(required = false) String fields) {
+        Pageable pageable = PageRequest.of(page, size, BY_ID);
+        if (fields != null) {
+            Set<ProductField> selected = ProductField.parse(fields);
+            return readCoalescer.execute("search", () -> productService.find(ProductFilter.search(q), selected, pageable), q, pageable, selected);
+        }
+        return readCoalescer.execute("search", () -> productService.search(q, pageable), q, pageable);
+    }
+
+    @GetMapping("/top")
+    @Operation(summary = "Ranking Top-N de productos", description = "Devuelve los productos más caros (price), mejor calificados (rating) o con menor stock (lowStock). Se sirve desde rankings mantenidos en memoria.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Ranking recuperado exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Criterio o tamaño de ranking inválido",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class),
+                            examples = @ExampleObject(value = "{\"status\": 400, \"error\": \"BUSINESS_RULE_VIOLATION\", \"message\": \"Criterio de ranking inválido: 'views'. Valores permitidos: price, rating, lowStock\", \"path\": \"/api/products/top\", \"timestamp\": \"2023-10-01T12:00:00Z\"}")))
+    })
+    public List<ProductResponse> top(@Parameter(description = "Criterio del ranking: price, rating o lowStock") @RequestParam(defaultValue = "price") String by,
+                                     @Parameter(description = "Cantidad de productos a devolver") @RequestParam(defaultValue = "10") int n) {
+        return productService.top(by, n);
+    }
+
+    @GetMapping("/{id}/related")
+    @Operation(summary = "Productos relacionados", description = "Devuelve los productos de la misma categoría más parecidos en precio y calificación, del más al menos parecido. Se sirve desde una tabla de vecinos precalculada en memoria.")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Resultados de búsqueda recuperados exitosamente"),
+            @ApiResponse(responseCode = "200", description = "Productos relacionados recuperados exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Valor de k fuera de rango",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class),
+                            examples = @ExampleObject(value = "{\"status\": 400, \"error\": \"BUSINESS_RULE_VIOLATION\", \"message\": \"El parámetro 'k' debe estar entre 1 y 10\", \"path\": \"/api/products/123e4567-e89b-12d3-a456-426614174000/related\", \"timestamp\": \"2023-10-01T12:00:00Z\"}"))),
+            @ApiResponse(responseCode = "404", description = "Producto no encontrado",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class)))
+    })
+    public List<ProductResponse> related(@Parameter(description = "ID del producto") @PathVariable UUID id,
+                                         @Parameter(description = "Cantidad de productos a devolver") @RequestParam(defaultValue = "5") int k) {
+        return productService.related(id, k);
+    }
 
+    @GetMapping("/suggest")
+    @Operation(summary = "Autocompletar", description = "Sugiere categorías y productos cuyo nombre contiene una palabra que empieza por el prefijo, sin distinguir mayúsculas ni tildes. Primero las categorías y después los productos mejor calificados. Se sirve desde un índice en memoria.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Sugerencias recuperadas exitosamente"),
+            @ApiResponse(responseCode = "400", description = "Límite fuera de rango",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ApiError.class),
+                            examples = @ExampleObject(value = "{\"status\": 400, \"error\": \"BUSINESS_RULE_VIOLATION\", \"message\": \"El parámetro 'limit' debe estar entre 1 y 10\", \"path\": \"/api/products/suggest\", \"timestamp\": \"2023-10-01T12:00:00Z\"}")))
     })
-    public Page<ProductResponse> search(@Parameter(description = "Texto a buscar") @RequestParam("q") String q,
-                                   @Parameter(description = "Número de página") @RequestParam(defaultValue = "0") int page,
-                                   @Parameter(description = "Tamaño de página") @RequestParam(defaultValue = "10") int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        return productService.search(q, pageable);
+    public List<SuggestionResponse> suggest(@Parameter(description = "Texto escrito hasta el momento") @RequestParam String prefix,
+                                            @Parameter(description = "Cantidad máxima de sugerencias") @RequestParam(defaultValue = "10") int limit) {
+        return productService.suggest(prefix, limit);
     }
 
     @GetMapping("/price-range")
     @Operation(summary = "Filtrar por rango de precio", description = "Obtiene productos cuyo precio se encuentra dentro del rango especificado (inclusivo).")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Lista filtrada recuperada exitosamente"),
+            @ApiResponse(responseCode = "200", description = "Lista filtrada recuperada exitosamente",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = ProductPageResponse.class))),
 
     })
-    public ResponseEntity<Page<ProductResponse>> priceRange(@Parameter(description = "Precio mínimo") @RequestParam("min") BigDecimal min,
-                                       @Parameter(description = "Precio máximo") @RequestParam("max") BigDecimal max,
-                                       @Parameter(description = "Número de página") @RequestParam(defaultValue = "0") int page,
-                                       @Parameter(description = "Tamaño de página") @RequestParam(defaultValue = "10") int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        return ResponseEntity.ok(productService.priceRange(min, max, pageable));
+    public ResponseEntity<Page<?>> priceRange(@Parameter(description = "Precio mínimo") @RequestParam("min") BigDecimal min,
+                                              @Parameter(description = "Precio máximo") @RequestParam("max") BigDecimal max,
+                                              @Parameter(description = "Número de página") @RequestParam(defaultValue = "0") int page,
+                                              @Parameter(description = "Tamaño de página") @RequestParam(defaultValue = "10") int size,
+                                              @Parameter(description = FIELDS_DESCRIPTION) @RequestParam(required = false) String fields) {
+        Pageable pageable = PageRequest.of(page, size, BY_PRICE);
+        if (fields != null) {
+            Set<ProductField> selected = ProductField.parse(fields);
+            return ResponseEntity.ok(readCoalescer.execute("priceRange", () -> productService.find(ProductFilter.priceRange(min, max), selected, pageable), min, max, pageable, selected));
+        }
+        return ResponseEntity.ok(readCoalescer.execute("priceRange", () -> productService.priceRange(min, max, pageable), min, max, pageable));
     }
 }
\ No newline at end of file
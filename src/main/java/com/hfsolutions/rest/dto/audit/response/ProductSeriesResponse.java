@@ -0,0 +1,35 @@
+package com.hfsolutions.rest.dto.audit.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@Schema(description = "Serie temporal reducida de un campo de producto, construida a partir de su auditoría")
+public class ProductSeriesResponse {
+    @Schema(description = "ID del producto", example = "123e4567-e89b-12d3-a456-426614174000")
+    private UUID productId;
+
+    @Schema(description = "Campo consultado: price o stock", example = "price")
+    private String field;
+
+    @Schema(description = "Inicio del rango", example = "2023-09-01T00:00:00Z")
+    private Instant from;
+
+    @Schema(description = "Fin del rango", example = "2023-10-01T00:00:00Z")
+    private Instant to;
+
+    @Schema(description = "Duración de cada intervalo en milisegundos; de cada uno se conservan el mínimo y el máximo", example = "5184000")
+    private long bucketMillis;
+
+    @Schema(description = "Cantidad de eventos de auditoría resumidos en la serie", example = "125000")
+    private long sourceEvents;
+
+    @Schema(description = "Puntos de la serie en orden cronológico")
+    private List<SeriesPointResponse> points;
+}
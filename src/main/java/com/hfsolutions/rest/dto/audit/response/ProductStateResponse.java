@@ -0,0 +1,32 @@
+package com.hfsolutions.rest.dto.audit.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+@Data
+@Builder
+@Schema(description = "Estado reconstruido de un producto en un instante dado a partir de su auditoría")
+public class ProductStateResponse {
+    @Schema(description = "ID del producto", example = "123e4567-e89b-12d3-a456-426614174000")
+    private UUID productId;
+
+    @Schema(description = "Instante consultado", example = "2023-10-01T12:00:00Z")
+    private Instant at;
+
+    @Schema(description = "Indica si el producto estaba eliminado en ese instante", example = "false")
+    private boolean deleted;
+
+    @Schema(description = "Campos del producto en ese instante", example = "{\"title\": \"Smartphone\", \"price\": 899.99, \"stock\": 50}")
+    private Map<String, Object> state;
+
+    @Schema(description = "Fecha del snapshot usado como punto de partida (vacío si se reprodujo todo el historial)", example = "2023-09-30T08:15:00Z")
+    private Instant snapshotAt;
+
+    @Schema(description = "Cantidad de eventos aplicados sobre el snapshot", example = "3")
+    private int eventsApplied;
+}
@@ -0,0 +1,18 @@
+package com.hfsolutions.rest.dto.audit.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@Schema(description = "Punto de una serie temporal")
+public class SeriesPointResponse {
+    @Schema(description = "Instante del evento de auditoría", example = "2023-10-01T12:00:00Z")
+    private Instant timestamp;
+
+    @Schema(description = "Valor del campo en ese instante", example = "899.99")
+    private double value;
+}
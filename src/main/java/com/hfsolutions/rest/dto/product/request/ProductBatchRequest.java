@@ -0,0 +1,20 @@
+package com.hfsolutions.rest.dto.product.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Schema(description = "Solicitud para obtener varios productos en una sola llamada")
+public class ProductBatchRequest {
+    @NotEmpty
+    @Size(max = 100)
+    @Schema(description = "IDs de los productos, en el orden en que se quieren recibir (máximo 100)",
+            example = "[\"123e4567-e89b-12d3-a456-426614174000\"]", requiredMode = Schema.RequiredMode.REQUIRED)
+    private List<@NotNull UUID> ids;
+}
@@ -0,0 +1,56 @@
+package com.hfsolutions.rest.dto.product.request;
+
+import com.hfsolutions.rest.exception.BadRequestException;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Campos de {@code ProductResponse} que pueden solicitarse mediante el parámetro {@code ?fields=}.
+ * Solo se leen de la base de datos las columnas de los campos solicitados.
+ */
+public enum ProductField {
+    ID("id"),
+    TITLE("title"),
+    DESCRIPTION("description"),
+    PRICE("price"),
+    STOCK("stock"),
+    AVAILABLE("available"),
+    CATEGORY_ID("categoryId"),
+    CATEGORY_NAME("categoryName"),
+    RATING("rating"),
+    IMAGE("image");
+
+    private final String param;
+
+    ProductField(String param) {
+        this.param = param;
+    }
+
+    /** Nombre del campo en la respuesta JSON. */
+    public String param() {
+        return param;
+    }
+
+    /**
+     * Interpreta una lista separada por comas (ej. {@code id,title,price,stock}).
+     * @return Campos solicitados, en el orden canónico de la respuesta.
+     */
+    public static Set<ProductField> parse(String fields) {
+        EnumSet<ProductField> result = EnumSet.noneOf(ProductField.class);
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) continue;
+            result.add(fromParam(trimmed));
+        }
+        if (result.isEmpty()) throw new BadRequestException("El parámetro 'fields' debe indicar al menos un campo");
+        return result;
+    }
+
+    private static ProductField fromParam(String name) {
+        for (ProductField field : values()) {
+            if (field.param.equalsIgnoreCase(name)) return field;
+        }
+        throw new BadRequestException("Campo desconocido en 'fields': '" + name + "'");
+    }
+}
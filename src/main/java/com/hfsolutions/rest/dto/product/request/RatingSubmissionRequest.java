@@ -0,0 +1,17 @@
+package com.hfsolutions.rest.dto.product.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+@Schema(description = "Calificación individual enviada por un cliente")
+public class RatingSubmissionRequest {
+    @NotNull
+    @Min(value = 1, message = "La calificación mínima es 1")
+    @Max(value = 5, message = "La calificación máxima es 5")
+    @Schema(description = "Puntuación de 1 a 5 estrellas", example = "4", requiredMode = Schema.RequiredMode.REQUIRED)
+    private Integer score;
+}
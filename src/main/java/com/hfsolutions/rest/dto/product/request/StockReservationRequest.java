@@ -0,0 +1,15 @@
+package com.hfsolutions.rest.dto.product.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+@Schema(description = "Solicitud para reservar temporalmente unidades de un producto (p. ej. al añadirlo a un carrito)")
+public class StockReservationRequest {
+    @NotNull
+    @Min(value = 1, message = "Debe reservar al menos una unidad")
+    @Schema(description = "Unidades a reservar", example = "2", requiredMode = Schema.RequiredMode.REQUIRED)
+    private Integer quantity;
+}
@@ -34,9 +34,6 @@ public class UpdateProductRequest {
     @Schema(description = "ID único de la categoría a la que pertenece el producto", example = "123e4567-e89b-12d3-a456-426614174000", requiredMode = Schema.RequiredMode.REQUIRED)
     private UUID categoryId;
 
-    @Schema(description = "Calificación del producto (0-5)", example = "4.8")
-    private Double rating;
-
     @Schema(description = "URL de la imagen del producto", example = "https://example.com/images/s23-ultra.jpg")
     private String image;
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.hfsolutions.rest.dto.product.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Resultado de un producto dentro de una consulta por lotes")
+public class ProductBatchItemResponse {
+    @Schema(description = "ID solicitado", example = "123e4567-e89b-12d3-a456-426614174000")
+    private UUID id;
+
+    @Schema(description = "Indica si el producto existe y está activo", example = "true")
+    private boolean found;
+
+    @Schema(description = "Producto encontrado; null si no existe o fue eliminado")
+    private ProductResponse product;
+}
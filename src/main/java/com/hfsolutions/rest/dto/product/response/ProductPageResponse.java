@@ -0,0 +1,42 @@
+package com.hfsolutions.rest.dto.product.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Esquema OpenAPI de las páginas de productos. Los endpoints de listado devuelven un {@code Page} de
+ * {@link ProductResponse} o, con {@code ?fields=}, de mapas con solo los campos pedidos; como la firma del
+ * controlador no puede expresar ambos, este tipo documenta la forma de la respuesta.
+ */
+@Data
+@Schema(description = "Página de productos. Con el parámetro 'fields' cada elemento incluye solo los campos solicitados")
+public class ProductPageResponse {
+    @Schema(description = "Productos de la página")
+    private List<ProductResponse> content;
+
+    @Schema(description = "Número de la página (0..N)", example = "0")
+    private int number;
+
+    @Schema(description = "Tamaño de la página", example = "10")
+    private int size;
+
+    @Schema(description = "Elementos en esta página", example = "10")
+    private int numberOfElements;
+
+    @Schema(description = "Total de productos que cumplen el filtro", example = "125")
+    private long totalElements;
+
+    @Schema(description = "Total de páginas", example = "13")
+    private int totalPages;
+
+    @Schema(description = "Indica si es la primera página", example = "true")
+    private boolean first;
+
+    @Schema(description = "Indica si es la última página", example = "false")
+    private boolean last;
+
+    @Schema(description = "Indica si la página no tiene elementos", example = "false")
+    private boolean empty;
+}
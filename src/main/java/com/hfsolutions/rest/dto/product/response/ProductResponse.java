@@ -30,6 +30,9 @@ public class ProductResponse {
     @Schema(description = "Stock disponible", example = "50")
     private Integer stock;
 
+    @Schema(description = "Unidades que aún pueden reservarse: stock menos las retenidas por reservas vigentes", example = "47")
+    private Integer available;
+
     @Schema(description = "ID de la categoría asociada", example = "987fcdeb-51a2-43d1-a5c6-987654321000")
     private UUID categoryId;
 
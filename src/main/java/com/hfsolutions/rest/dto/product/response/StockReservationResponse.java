@@ -0,0 +1,36 @@
+package com.hfsolutions.rest.dto.product.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Reserva temporal de stock")
+public class StockReservationResponse {
+    @Schema(description = "ID de la reserva", example = "5f0c7a3e-8d1b-4c2a-9e6f-1a2b3c4d5e6f")
+    private UUID id;
+
+    @Schema(description = "ID del producto reservado", example = "123e4567-e89b-12d3-a456-426614174000")
+    private UUID productId;
+
+    @Schema(description = "Unidades reservadas", example = "2")
+    private Integer quantity;
+
+    @Schema(description = "HELD mientras la reserva está vigente; CONFIRMED cuando las unidades se han descontado del stock", example = "HELD")
+    private Status status;
+
+    @Schema(description = "Momento en que caduca la reserva si no se confirma ni se libera", example = "2023-10-01T12:15:00Z")
+    private Instant expiresAt;
+
+    public enum Status {
+        HELD, CONFIRMED
+    }
+}
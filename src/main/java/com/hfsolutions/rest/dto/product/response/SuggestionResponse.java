@@ -0,0 +1,27 @@
+package com.hfsolutions.rest.dto.product.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Sugerencia de autocompletado: una categoría o un producto cuyo nombre coincide con el prefijo")
+public class SuggestionResponse {
+    @Schema(description = "Tipo de sugerencia", example = "PRODUCT")
+    private Type type;
+
+    @Schema(description = "ID de la categoría o del producto", example = "123e4567-e89b-12d3-a456-426614174000")
+    private UUID id;
+
+    @Schema(description = "Nombre de la categoría o título del producto", example = "Smartphone Samsung Galaxy S23")
+    private String text;
+
+    public enum Type {
+        CATEGORY, PRODUCT
+    }
+}
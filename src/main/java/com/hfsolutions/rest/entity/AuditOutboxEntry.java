@@ -0,0 +1,61 @@
+package com.hfsolutions.rest.entity;
+
+import com.hfsolutions.rest.audit.AuditAction;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Evento de auditoría pendiente de enviar a MongoDB. Se inserta en la misma transacción que el cambio
+ * del producto y lo elimina {@code AuditOutboxRelay} una vez copiado a {@code product_audit}.
+ */
+@Entity
+@Table(name = "audit_outbox")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditOutboxEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "audit_outbox_seq")
+    @SequenceGenerator(name = "audit_outbox_seq", sequenceName = "audit_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private UUID productId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private AuditAction action;
+
+    /** Todas las acciones agrupadas en la entrada, separadas por comas; {@code null} si solo hubo una. */
+    @Column(length = 100)
+    private String actions;
+
+    @Column(nullable = false)
+    private Instant occurredAt;
+
+    /** Detalles del cambio serializados como JSON. */
+    @Column(columnDefinition = "text")
+    private String details;
+
+    /** Estado completo del producto tras el cambio, serializado como JSON. */
+    @Column(columnDefinition = "text")
+    private String state;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    private Instant nextAttemptAt;
+
+    @Column(length = 500)
+    private String lastError;
+
+    /** Momento en que se apartó tras agotar los intentos; {@code null} mientras siga pendiente de envío. */
+    private Instant deadLetteredAt;
+}
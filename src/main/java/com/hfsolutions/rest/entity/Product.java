@@ -5,13 +5,17 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.UuidGenerator;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.UUID;
 
 @Entity
 @Table(name = "products")
+// Solo se escriben las columnas modificadas, para no pisar los agregados de calificación volcados por RatingAggregator
+@DynamicUpdate
 @Data
 @Builder
 @NoArgsConstructor
@@ -33,6 +37,10 @@ public class Product {
     @Column(nullable = false)
     private Integer stock;
 
+    // Unidades retenidas por reservas vigentes (StockReservation); las disponibles son stock - reserved
+    @Column(nullable = false)
+    private int reserved;
+
     @ManyToOne(optional = false, fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id", nullable = false)
     private Category category;
@@ -40,6 +48,13 @@ public class Product {
     @Column(nullable = false)
     private boolean deleted;
 
+    // Momento del borrado lógico; ProductPurger elimina físicamente el producto pasado el periodo de retención
+    private Instant deletedAt;
+
+    // Lo mantiene la base de datos (valor por defecto y trigger en cada UPDATE); CatalogSnapshot lo usa para ponerse al día
+    @Column(insertable = false, updatable = false)
+    private Instant updatedAt;
+
     @Embedded
     private Rating rating;
 
@@ -6,6 +6,9 @@ import com.hfsolutions.rest.entity.Category;
 import com.hfsolutions.rest.entity.Product;
 import com.hfsolutions.rest.entity.Rating;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 public class ProductMapper {
 
     public static ProductResponse toProductResponse(Product product) {
@@ -29,6 +32,29 @@ public class ProductMapper {
                         .count(rating.getCount())
                         .build() : null)
                 .stock(product.getStock())
+                .available(product.getStock() != null ? product.getStock() - product.getReserved() : null)
                 .build();
     }
+
+    /**
+     * Estado completo de un producto tal como se guarda en los snapshots de auditoría.
+     * Las claves coinciden con las de los detalles de los eventos (title, price, stock, category...).
+     */
+    public static Map<String, Object> toAuditState(Product product) {
+        Category category = product.getCategory();
+        Rating rating = product.getRating();
+
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("title", product.getTitle());
+        state.put("description", product.getDescription());
+        state.put("price", product.getPrice());
+        state.put("stock", product.getStock());
+        state.put("categoryId", category != null ? category.getId() : null);
+        state.put("category", category != null ? category.getName() : null);
+        state.put("rating", rating != null ? rating.getRate() : null);
+        state.put("ratingCount", rating != null ? rating.getCount() : null);
+        state.put("image", product.getImage());
+        state.put("deleted", product.isDeleted());
+        return state;
+    }
 }
@@ -0,0 +1,36 @@
+package com.hfsolutions.rest.repository.jpa;
+
+import com.hfsolutions.rest.entity.AuditOutboxEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface AuditOutboxRepository extends JpaRepository<AuditOutboxEntry, Long> {
+    /** Clave del advisory lock de Postgres que reserva el envío del outbox a una sola instancia. */
+    long RELAY_LOCK = 0x61756469745f6f75L;
+
+    /**
+     * Intenta tomar, hasta el final de la transacción en curso, el bloqueo que permite drenar el outbox.
+     * Con un único relay a la vez los eventos llegan a MongoDB en el orden en que ocurrieron.
+     * @return true si se obtuvo; false si otra instancia está enviando en este momento.
+     */
+    @Query(value = "SELECT pg_try_advisory_xact_lock(" + RELAY_LOCK + ")", nativeQuery = true)
+    boolean tryLockRelay();
+
+    /**
+     * Bloquea los eventos pendientes más antiguos por orden de {@code occurred_at}.
+     * Se saltan los que esperan un reintento, los apartados tras agotar los intentos y los posteriores a un evento
+     * del mismo producto que espera un reintento, para no adelantarlo.
+     * @param limit Tamaño máximo del lote.
+     * @return Lote de eventos pendientes, del más antiguo al más reciente.
+     */
+    @Query(value = "SELECT * FROM audit_outbox o WHERE o.dead_lettered_at IS NULL " +
+            "AND (o.next_attempt_at IS NULL OR o.next_attempt_at <= now()) " +
+            "AND NOT EXISTS (SELECT 1 FROM audit_outbox w WHERE w.product_id = o.product_id " +
+            "AND w.dead_lettered_at IS NULL AND w.next_attempt_at > now() " +
+            "AND (w.occurred_at, w.id) < (o.occurred_at, o.id)) " +
+            "ORDER BY o.occurred_at, o.id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<AuditOutboxEntry> lockNextBatch(@Param("limit") int limit);
+}
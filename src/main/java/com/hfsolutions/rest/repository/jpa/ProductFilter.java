@@ -0,0 +1,31 @@
+package com.hfsolutions.rest.repository.jpa;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Criterios de filtrado de productos activos usados por las consultas con proyección dinámica.
+ * Cada fábrica corresponde a uno de los endpoints de listado de {@code ProductController}.
+ */
+public record ProductFilter(UUID id, UUID categoryId, String titleContains, BigDecimal minPrice, BigDecimal maxPrice) {
+
+    public static ProductFilter all() {
+        return new ProductFilter(null, null, null, null, null);
+    }
+
+    public static ProductFilter byId(UUID id) {
+        return new ProductFilter(id, null, null, null, null);
+    }
+
+    public static ProductFilter byCategory(UUID categoryId) {
+        return new ProductFilter(null, categoryId, null, null, null);
+    }
+
+    public static ProductFilter search(String q) {
+        return new ProductFilter(null, null, q, null, null);
+    }
+
+    public static ProductFilter priceRange(BigDecimal min, BigDecimal max) {
+        return new ProductFilter(null, null, null, min, max);
+    }
+}
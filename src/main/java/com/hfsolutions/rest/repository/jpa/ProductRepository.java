@@ -4,13 +4,17 @@ import com.hfsolutions.rest.entity.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
-public interface ProductRepository extends JpaRepository<Product, UUID> {
+public interface ProductRepository extends JpaRepository<Product, UUID>, ProductRepositoryCustom {
     /**
      * Busca todos los productos que no han sido eliminados lógicamente.
      * Cumple con el requisito 5.2: "GET /api/products".
@@ -27,6 +31,13 @@ public interface ProductRepository extends JpaRepository<Product, UUID> {
      */
     boolean existsByCategory_IdAndDeletedFalse(UUID categoryId);
 
+    /**
+     * Verifica si un producto existe y está activo, sin cargar la entidad.
+     * @param id ID del producto.
+     * @return true si el producto existe y no fue eliminado.
+     */
+    boolean existsByIdAndDeletedFalse(UUID id);
+
     /**
      * Busca productos por ID de categoría, excluyendo los eliminados lógicamente.
      * Cumple con el requisito 5.2: "GET /api/products/category/{categoryId}".
@@ -57,17 +68,116 @@ public interface ProductRepository extends JpaRepository<Product, UUID> {
 
     /**
      * Consulta para obtener los productos más caros, excluyendo los eliminados.
-     * Aunque no es un requisito explícito, sirve como ejemplo de consulta compleja y es útil para analíticas.
+     * Se utiliza para (re)construir el ranking en memoria de `GET /api/products/top?by=price`.
      * @param limit Número de productos a devolver.
      * @return Lista de los productos más caros.
      */
-    @Query("SELECT p FROM Product p WHERE p.deleted = false ORDER BY p.price DESC")
+    @Query("SELECT p FROM Product p JOIN FETCH p.category WHERE p.deleted = false ORDER BY p.price DESC, p.id")
     List<Product> findTopNByPrice(Pageable limit);
 
     /**
-     * Elimina físicamente todos los productos asociados a una categoría.
-     * Útil para limpieza de productos eliminados lógicamente antes de eliminar una categoría.
+     * Consulta para obtener los productos mejor calificados, excluyendo los eliminados y los que no tienen calificación.
+     * Se utiliza para (re)construir el ranking en memoria de `GET /api/products/top?by=rating`.
+     * @param limit Número de productos a devolver.
+     * @return Lista de los productos mejor calificados.
+     */
+    @Query("SELECT p FROM Product p JOIN FETCH p.category WHERE p.deleted = false AND p.rating.rate IS NOT NULL " +
+            "ORDER BY p.rating.rate DESC, COALESCE(p.rating.count, 0) DESC, p.id")
+    List<Product> findTopNByRating(Pageable limit);
+
+    /**
+     * Consulta para obtener los productos con menor stock, excluyendo los eliminados.
+     * Se utiliza para (re)construir el ranking en memoria de `GET /api/products/top?by=lowStock`.
+     * @param limit Número de productos a devolver.
+     * @return Lista de los productos próximos a agotarse.
+     */
+    @Query("SELECT p FROM Product p JOIN FETCH p.category WHERE p.deleted = false ORDER BY p.stock ASC, p.id")
+    List<Product> findTopNByLowStock(Pageable limit);
+
+    /**
+     * Carga en una sola consulta los productos activos con los IDs indicados, junto con su categoría.
+     * Se utiliza en `GET/POST /api/products/batch`; los IDs inexistentes o eliminados simplemente no aparecen.
+     * @param ids IDs de los productos.
+     * @return Productos encontrados, sin orden garantizado.
+     */
+    @Query("SELECT p FROM Product p JOIN FETCH p.category WHERE p.id IN :ids AND p.deleted = false")
+    List<Product> findActiveByIdIn(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Recorre los productos activos por orden de ID, un bloque tras otro (paginación por clave, sin OFFSET).
+     * Se utiliza para construir el índice de autocompletado de `GET /api/products/suggest`.
+     * @param after Último ID del bloque anterior.
+     * @param limit Tamaño del bloque.
+     * @return Siguiente bloque de productos, con su categoría.
+     */
+    @Query("SELECT p FROM Product p JOIN FETCH p.category WHERE p.deleted = false AND p.id > :after ORDER BY p.id")
+    List<Product> findActiveAfter(@Param("after") UUID after, Pageable limit);
+
+    /**
+     * Recorre por orden de ID, un bloque tras otro, los productos (activos o eliminados) modificados desde
+     * {@code since}. Se utiliza para poner al día una instantánea del catálogo al arrancar.
+     * @param since Instante de la instantánea menos el margen para las transacciones que seguían abiertas.
+     * @param after Último ID del bloque anterior.
+     * @param limit Tamaño del bloque.
+     * @return Siguiente bloque de productos, con su categoría.
+     */
+    @Query("SELECT p FROM Product p JOIN FETCH p.category WHERE p.updatedAt >= :since AND p.id > :after ORDER BY p.id")
+    List<Product> findChangedSince(@Param("since") Instant since, @Param("after") UUID after, Pageable limit);
+
+    /**
+     * Elimina físicamente un lote de productos eliminados lógicamente de una categoría, con un único DELETE
+     * y sin cargar entidades. Se repite hasta que devuelve menos filas que el límite.
      * @param categoryId ID de la categoría.
+     * @param limit Tamaño máximo del lote.
+     * @return Número de filas eliminadas.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM products WHERE id IN (SELECT id FROM products " +
+            "WHERE category_id = :categoryId AND deleted LIMIT :limit)", nativeQuery = true)
+    int deleteDeletedChunkByCategoryId(@Param("categoryId") UUID categoryId, @Param("limit") int limit);
+
+    /**
+     * Elimina físicamente un lote de productos eliminados lógicamente antes de {@code cutoff}.
+     * Las filas bloqueadas por otra transacción se saltan y se recogen en la siguiente pasada.
+     * @param cutoff Instante límite del borrado lógico.
+     * @param limit Tamaño máximo del lote.
+     * @return Número de filas eliminadas.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM products WHERE id IN (SELECT id FROM products " +
+            "WHERE deleted AND deleted_at < :cutoff LIMIT :limit FOR UPDATE SKIP LOCKED)", nativeQuery = true)
+    int deleteDeletedChunkBefore(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+
+    /**
+     * Reserva unidades de un producto activo si hay suficientes disponibles ({@code stock - reserved}),
+     * comprobándolo y sumándolas en una única sentencia para que dos reservas concurrentes no vendan lo mismo.
+     * @param id ID del producto.
+     * @param quantity Unidades a reservar.
+     * @return 1 si se reservaron; 0 si el producto no existe, está eliminado o no hay unidades suficientes.
+     */
+    @Modifying
+    @Query("UPDATE Product p SET p.reserved = p.reserved + :quantity " +
+            "WHERE p.id = :id AND p.deleted = false AND p.stock - p.reserved >= :quantity")
+    int reserveStock(@Param("id") UUID id, @Param("quantity") int quantity);
+
+    /**
+     * Descuenta del stock unidades ya reservadas al confirmar una reserva.
+     * @param id ID del producto.
+     * @param quantity Unidades de la reserva.
+     * @return 1 si se aplicó; 0 si el producto no existe o está eliminado.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Product p SET p.stock = p.stock - :quantity, p.reserved = p.reserved - :quantity " +
+            "WHERE p.id = :id AND p.deleted = false")
+    int commitReservedStock(@Param("id") UUID id, @Param("quantity") int quantity);
+
+    /**
+     * Devuelve a disponibles unidades reservadas, al liberar una reserva.
+     * @param id ID del producto.
+     * @param quantity Unidades de la reserva.
+     * @return Número de filas actualizadas.
      */
-    void deleteByCategory_Id(UUID categoryId);
-}
\ No newline at end of file
+    @Modifying
+    @Query("UPDATE Product p SET p.reserved = p.reserved - :quantity WHERE p.id = :id")
+    int releaseReservedStock(@Param("id") UUID id, @Param("quantity") int quantity);
+}
@@ -0,0 +1,32 @@
+package com.hfsolutions.rest.repository.jpa;
+
+import com.hfsolutions.rest.dto.product.request.ProductField;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+public interface ProductRepositoryCustom {
+
+    /**
+     * Busca productos activos leyendo únicamente las columnas de los campos solicitados (proyección dinámica).
+     * Cumple con el parámetro `?fields=` de los endpoints de productos.
+     * @param filter Criterios de filtrado.
+     * @param fields Campos a devolver.
+     * @param pageable Objeto de paginación.
+     * @return Página de productos representados como mapas campo-valor en el orden de {@link ProductField}.
+     */
+    Page<Map<String, Object>> findActiveFields(ProductFilter filter, Set<ProductField> fields, Pageable pageable);
+
+    /**
+     * Lee los campos solicitados de un producto activo con una única consulta, sin recuento.
+     * Cumple con `GET /api/products/{id}?fields=`.
+     * @param id ID del producto.
+     * @param fields Campos a devolver.
+     * @return Producto representado como mapa campo-valor, o vacío si no existe o está eliminado.
+     */
+    Optional<Map<String, Object>> findActiveFieldsById(UUID id, Set<ProductField> fields);
+}
@@ -0,0 +1,143 @@
+package com.hfsolutions.rest.repository.jpa;
+
+import com.hfsolutions.rest.dto.product.request.ProductField;
+import com.hfsolutions.rest.entity.Category;
+import com.hfsolutions.rest.entity.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+    private static final char LIKE_ESCAPE = '\\';
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<Map<String, Object>> findActiveFields(ProductFilter filter, Set<ProductField> fields, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        TypedQuery<Tuple> typed = tupleQuery(cb, filter, fields, pageable.getSort());
+        if (pageable.isPaged()) {
+            typed.setFirstResult((int) pageable.getOffset());
+            typed.setMaxResults(pageable.getPageSize());
+        }
+        List<Map<String, Object>> content = typed.getResultList().stream()
+                .map(tuple -> toMap(tuple, fields))
+                .toList();
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> {
+            CriteriaQuery<Long> count = cb.createQuery(Long.class);
+            Root<Product> countRoot = count.from(Product.class);
+            count.select(cb.count(countRoot)).where(predicates(cb, countRoot, filter));
+            return entityManager.createQuery(count).getSingleResult();
+        });
+    }
+
+    @Override
+    public Optional<Map<String, Object>> findActiveFieldsById(UUID id, Set<ProductField> fields) {
+        TypedQuery<Tuple> typed = tupleQuery(entityManager.getCriteriaBuilder(), ProductFilter.byId(id), fields, Sort.unsorted());
+        return typed.setMaxResults(1).getResultStream().findFirst().map(tuple -> toMap(tuple, fields));
+    }
+
+    private TypedQuery<Tuple> tupleQuery(CriteriaBuilder cb, ProductFilter filter, Set<ProductField> fields, Sort sort) {
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Product> root = query.from(Product.class);
+        query.multiselect(selections(cb, root, fields)).where(predicates(cb, root, filter));
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        }
+        return entityManager.createQuery(query);
+    }
+
+    private List<Selection<?>> selections(CriteriaBuilder cb, Root<Product> root, Set<ProductField> fields) {
+        List<Selection<?>> selections = new ArrayList<>();
+        for (ProductField field : fields) {
+            switch (field) {
+                case ID -> selections.add(root.get("id").alias("id"));
+                case TITLE -> selections.add(root.get("title").alias("title"));
+                case DESCRIPTION -> selections.add(root.get("description").alias("description"));
+                case PRICE -> selections.add(root.get("price").alias("price"));
+                case STOCK -> selections.add(root.get("stock").alias("stock"));
+                case AVAILABLE -> selections.add(cb.diff(root.<Integer>get("stock"), root.<Integer>get("reserved")).alias("available"));
+                // La FK se lee directamente de products, sin JOIN a categories
+                case CATEGORY_ID -> selections.add(root.get("category").get("id").alias("categoryId"));
+                case CATEGORY_NAME -> {
+                    Join<Product, Category> category = root.join("category");
+                    selections.add(category.get("name").alias("categoryName"));
+                }
+                case RATING -> {
+                    selections.add(root.get("rating").get("rate").alias("ratingRate"));
+                    selections.add(root.get("rating").get("count").alias("ratingCount"));
+                }
+                case IMAGE -> selections.add(root.get("image").alias("image"));
+            }
+        }
+        return selections;
+    }
+
+    private Predicate[] predicates(CriteriaBuilder cb, Root<Product> root, ProductFilter filter) {
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.isFalse(root.<Boolean>get("deleted")));
+        if (filter.id() != null) {
+            predicates.add(cb.equal(root.get("id"), filter.id()));
+        }
+        if (filter.categoryId() != null) {
+            predicates.add(cb.equal(root.get("category").get("id"), filter.categoryId()));
+        }
+        if (filter.titleContains() != null) {
+            String pattern = "%" + escapeLike(filter.titleContains().toUpperCase(Locale.ROOT)) + "%";
+            predicates.add(cb.like(cb.upper(root.<String>get("title")), pattern, LIKE_ESCAPE));
+        }
+        if (filter.minPrice() != null && filter.maxPrice() != null) {
+            predicates.add(cb.between(root.<BigDecimal>get("price"), filter.minPrice(), filter.maxPrice()));
+        }
+        return predicates.toArray(new Predicate[0]);
+    }
+
+    private Map<String, Object> toMap(Tuple tuple, Set<ProductField> fields) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (ProductField field : fields) {
+            if (field == ProductField.RATING) {
+                Object rate = tuple.get("ratingRate");
+                Object count = tuple.get("ratingCount");
+                Map<String, Object> rating = null;
+                if (rate != null || count != null) {
+                    rating = new LinkedHashMap<>();
+                    rating.put("rate", rate);
+                    rating.put("count", count);
+                }
+                values.put(field.param(), rating);
+            } else {
+                values.put(field.param(), tuple.get(field.param()));
+            }
+        }
+        return values;
+    }
+
+    private String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
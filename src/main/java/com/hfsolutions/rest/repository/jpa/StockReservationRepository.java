@@ -0,0 +1,22 @@
+package com.hfsolutions.rest.repository.jpa;
+
+import com.hfsolutions.rest.entity.StockReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.UUID;
+
+public interface StockReservationRepository extends JpaRepository<StockReservation, UUID> {
+
+    /**
+     * Elimina una reserva vigente. Si dos operaciones (confirmar, liberar o caducar) compiten por la misma
+     * reserva, solo una obtiene la fila; la otra recibe 0 y no debe tocar el stock.
+     * @param id ID de la reserva.
+     * @return Número de filas eliminadas (0 o 1).
+     */
+    @Modifying
+    @Query("DELETE FROM StockReservation r WHERE r.id = :id")
+    int deleteHeld(@Param("id") UUID id);
+}
@@ -3,6 +3,7 @@ package com.hfsolutions.rest.repository.mongo;
 import com.hfsolutions.rest.audit.AuditAction;
 import com.hfsolutions.rest.audit.ProductAudit;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
 import java.util.List;
 import java.util.UUID;
@@ -12,11 +13,12 @@ public interface ProductAuditRepository extends MongoRepository<ProductAudit, St
     /**
      * Busca todo el historial de auditoría para un producto específico.
      * Cumple con el requisito 6: "GET /api/audit/products/{productId}".
-     * Se ordena por 'timestamp' descendente para mostrar los eventos más recientes primero.
+     * Se ordena por 'timestamp' descendente para mostrar los eventos más recientes primero; los del mismo
+     * milisegundo, por '_id', que sigue el orden en que se registraron.
      * @param productId ID del producto a consultar.
      * @return Lista de registros de auditoría.
      */
-    List<ProductAudit> findByProductIdOrderByTimestampDesc(UUID productId);
+    List<ProductAudit> findByProductIdOrderByTimestampDescIdDesc(UUID productId);
 
     /**
      * Obtiene los últimos 100 registros de auditoría de la base de datos.
@@ -24,13 +26,15 @@ public interface ProductAuditRepository extends MongoRepository<ProductAudit, St
      * La ordenación descendente por 'timestamp' asegura que se obtienen los más recientes.
      * @return Lista de los 100 registros de auditoría más recientes.
      */
-    List<ProductAudit> findTop100ByOrderByTimestampDesc();
+    List<ProductAudit> findTop100ByOrderByTimestampDescIdDesc();
 
     /**
      * Filtra los registros de auditoría por un tipo de acción específico.
      * Cumple con el requisito 6: "GET /api/audit/actions/{action}".
+     * Incluye los registros que agrupan varias acciones de una transacción aunque la buscada no sea la principal.
      * @param action Tipo de acción a filtrar (CREATE, UPDATE, etc.).
      * @return Lista de registros de auditoría que coinciden con la acción.
      */
-    List<ProductAudit> findByActionOrderByTimestampDesc(AuditAction action);
+    @Query(value = "{ '$or': [ { 'action': ?0 }, { 'actions': ?0 } ] }", sort = "{ 'timestamp': -1, '_id': -1 }")
+    List<ProductAudit> findByActionOrderByTimestampDescIdDesc(AuditAction action);
 }
\ No newline at end of file
@@ -0,0 +1,232 @@
+package com.hfsolutions.rest.service;
+
+import com.hfsolutions.rest.audit.AuditAction;
+import com.hfsolutions.rest.audit.ProductAudit;
+import com.hfsolutions.rest.audit.ProductAuditRollup;
+import com.hfsolutions.rest.audit.ProductStateSnapshot;
+import com.hfsolutions.rest.audit.RollupGranularity;
+import com.hfsolutions.rest.dto.audit.response.ProductSeriesResponse;
+import com.hfsolutions.rest.dto.audit.response.ProductStateResponse;
+import com.hfsolutions.rest.dto.audit.response.SeriesPointResponse;
+import com.hfsolutions.rest.exception.BadRequestException;
+import com.hfsolutions.rest.exception.NotFoundException;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+@Service
+public class AuditService {
+    private static final int MAX_ROLLUPS = 10_000;
+    private static final Set<String> SERIES_FIELDS = Set.of("price", "stock");
+    private static final int MAX_SERIES_POINTS = 5_000;
+    /** Orden de los eventos de la agregación: instante y, dentro del mismo milisegundo, {@code _id}. */
+    private static final Comparator<Document> EVENT_ORDER = Comparator.<Document, Date>comparing(document -> document.getDate("timestamp"))
+            .thenComparing(document -> document.getObjectId("id"));
+
+    private final MongoTemplate mongoTemplate;
+    private final Duration rawRetention;
+
+    public AuditService(MongoTemplate mongoTemplate,
+                        @Value("${audit.retention.raw-events:0}") Duration rawRetention) {
+        this.mongoTemplate = mongoTemplate;
+        this.rawRetention = rawRetention;
+    }
+
+    /**
+     * Consulta los conteos pre-agregados de auditoría en un rango de tiempo.
+     * Sin {@code productId} devuelve los conteos globales por acción; con él, los del producto indicado.
+     */
+    public List<ProductAuditRollup> rollups(RollupGranularity granularity, Instant from, Instant to, UUID productId, AuditAction action) {
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : end.minus(granularity == RollupGranularity.HOUR ? Duration.ofDays(1) : Duration.ofDays(30));
+        if (start.isAfter(end)) throw new BadRequestException("La fecha 'from' debe ser anterior a 'to'");
+
+        Criteria criteria = Criteria.where("granularity").is(granularity)
+                .and("productId").is(productId)
+                .and("bucketStart").gte(granularity.truncate(start)).lte(end);
+        if (action != null) criteria.and("action").is(action);
+        Query query = Query.query(criteria).with(Sort.by("bucketStart", "action")).limit(MAX_ROLLUPS);
+        return mongoTemplate.find(query, ProductAuditRollup.class);
+    }
+
+    /**
+     * Reconstruye el estado de un producto en el instante {@code at}: parte del snapshot más cercano anterior
+     * y aplica los eventos posteriores hasta {@code at}, por lo que el coste está acotado por el intervalo de snapshots.
+     * Si el producto no tiene snapshots (historial previo a su introducción) se reproduce el historial completo.
+     * Los eventos solo guardan los campos que cambian; la calificación no genera eventos y es la del snapshot.
+     * Un mismo milisegundo puede tener varios eventos del producto (una agrupación de escrituras guarda uno por
+     * operación): se ordenan por {@code _id}, que el relay asigna en el orden del outbox.
+     * <p>
+     * Con una retención de eventos configurada ({@code audit.retention.raw-events}) no se aceptan instantes
+     * anteriores a ella: los eventos que faltan darían un estado incorrecto.
+     */
+    public ProductStateResponse stateAt(UUID productId, Instant at) {
+        Instant instant = at != null ? at : Instant.now();
+        if (!rawRetention.isZero() && instant.isBefore(Instant.now().minus(rawRetention))) {
+            throw new BadRequestException("Solo se conservan los eventos de auditoría de los últimos " + rawRetention.toDays()
+                    + " días; no se puede reconstruir el estado en una fecha anterior");
+        }
+        ProductStateSnapshot snapshot = mongoTemplate.findOne(Query.query(Criteria.where("productId").is(productId)
+                        .and("timestamp").lte(instant))
+                .with(Sort.by(Sort.Direction.DESC, "timestamp", "sequence")), ProductStateSnapshot.class);
+
+        Criteria range = Criteria.where("productId").is(productId);
+        if (snapshot == null) {
+            range.and("timestamp").lte(instant);
+        } else if (snapshot.getEventId() != null) {
+            // Incluye los eventos del mismo milisegundo posteriores al del snapshot, pero no ese evento
+            range.and("timestamp").gte(snapshot.getTimestamp()).lte(instant)
+                    .orOperator(Criteria.where("timestamp").gt(snapshot.getTimestamp()),
+                            Criteria.where("id").gt(new ObjectId(snapshot.getEventId())));
+        } else {
+            // Snapshots anteriores a guardar el ID de su evento
+            range.and("timestamp").gt(snapshot.getTimestamp()).lte(instant);
+        }
+        List<ProductAudit> events = mongoTemplate.find(Query.query(range).with(Sort.by("timestamp", "id")), ProductAudit.class);
+        if (snapshot == null && events.isEmpty()) {
+            throw new NotFoundException("No hay historial del producto para la fecha indicada");
+        }
+
+        Map<String, Object> state = new LinkedHashMap<>();
+        if (snapshot != null && snapshot.getState() != null) state.putAll(snapshot.getState());
+        for (ProductAudit event : events) {
+            apply(state, event);
+        }
+        return ProductStateResponse.builder()
+                .productId(productId)
+                .at(instant)
+                .deleted(Boolean.TRUE.equals(state.get("deleted")))
+                .state(state)
+                .snapshotAt(snapshot != null ? snapshot.getTimestamp() : null)
+                .eventsApplied(events.size())
+                .build();
+    }
+
+    /**
+     * Serie temporal de {@code price} o {@code stock} reducida en MongoDB: el rango se divide en {@code points / 2}
+     * intervalos y de cada uno se devuelven el valor mínimo y el máximo con su instante, de modo que los picos
+     * se conservan y el coste de la respuesta no depende del número de eventos del producto.
+     * El primer punto, en el instante {@code from}, es el valor vigente entonces (el del último evento anterior),
+     * para que la serie no empiece vacía si el campo no cambió al principio del rango. Las altas guardan el precio y
+     * el stock iniciales, así que un producto creado dentro del rango empieza con su valor inicial.
+     */
+    public ProductSeriesResponse series(UUID productId, String field, Instant from, Instant to, int points) {
+        if (!SERIES_FIELDS.contains(field)) throw new BadRequestException("Campo inválido: '" + field + "'. Valores permitidos: price, stock");
+        if (points < 2 || points > MAX_SERIES_POINTS) throw new BadRequestException("El parámetro 'points' debe estar entre 2 y " + MAX_SERIES_POINTS);
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : end.minus(Duration.ofDays(30));
+        if (!start.isBefore(end)) throw new BadRequestException("La fecha 'from' debe ser anterior a 'to'");
+
+        long buckets = points / 2;
+        long bucketMillis = Math.max(1, (Duration.between(start, end).toMillis() + buckets - 1) / buckets);
+        String path = "$details." + field;
+        Date startDate = Date.from(start);
+
+        List<Document> pipeline = List.of(
+                new Document("$match", new Document("productId", productId)
+                        .append("timestamp", new Document("$gte", startDate).append("$lte", Date.from(end)))
+                        .append("details." + field, new Document("$exists", true))),
+                // price puede estar guardado como número o como texto (BigDecimal), según el origen del evento
+                new Document("$project", new Document("timestamp", 1)
+                        .append("value", new Document("$convert", new Document("input", path)
+                                .append("to", "double").append("onError", null).append("onNull", null)))),
+                new Document("$match", new Document("value", new Document("$ne", null))),
+                new Document("$group", new Document("_id", new Document("$floor", new Document("$divide",
+                        List.of(new Document("$subtract", List.of("$timestamp", startDate)), bucketMillis))))
+                        .append("events", new Document("$sum", 1))
+                        .append("min", extreme(1))
+                        .append("max", extreme(-1))),
+                new Document("$sort", new Document("_id", 1)));
+
+        List<SeriesPointResponse> result = new ArrayList<>();
+        Double startValue = valueBefore(productId, field, start);
+        if (startValue != null) result.add(new SeriesPointResponse(start, startValue));
+        long sourceEvents = 0;
+        for (Document bucket : mongoTemplate.getCollection(mongoTemplate.getCollectionName(ProductAudit.class)).aggregate(pipeline)) {
+            sourceEvents += ((Number) bucket.get("events")).longValue();
+            Document minDocument = bucket.get("min", Document.class);
+            Document maxDocument = bucket.get("max", Document.class);
+            SeriesPointResponse min = point(minDocument);
+            SeriesPointResponse max = point(maxDocument);
+            int order = EVENT_ORDER.compare(minDocument, maxDocument);
+            if (order == 0) {
+                result.add(min);
+            } else if (order < 0) {
+                result.add(min);
+                result.add(max);
+            } else {
+                result.add(max);
+                result.add(min);
+            }
+        }
+        return ProductSeriesResponse.builder()
+                .productId(productId)
+                .field(field)
+                .from(start)
+                .to(end)
+                .bucketMillis(bucketMillis)
+                .sourceEvents(sourceEvents)
+                .points(result)
+                .build();
+    }
+
+    /**
+     * Valor del campo vigente en {@code instant}: el del último evento anterior que lo cambió.
+     */
+    private Double valueBefore(UUID productId, String field, Instant instant) {
+        ProductAudit previous = mongoTemplate.findOne(Query.query(Criteria.where("productId").is(productId)
+                        .and("timestamp").lt(instant)
+                        .and("details." + field).exists(true))
+                .with(Sort.by(Sort.Direction.DESC, "timestamp", "id")), ProductAudit.class);
+        return previous == null ? null : toDouble(previous.getDetails().get(field));
+    }
+
+    /** Igual que el {@code $convert} de la agregación: número o texto (BigDecimal); cualquier otro valor se ignora. */
+    private static Double toDouble(Object value) {
+        if (value instanceof Decimal128 decimal) return decimal.bigDecimalValue().doubleValue();
+        if (value instanceof Number number) return number.doubleValue();
+        if (value instanceof String text) {
+            try {
+                return Double.valueOf(text);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static Document extreme(int direction) {
+        return new Document("$top", new Document("sortBy", new Document("value", direction).append("timestamp", 1).append("_id", 1))
+                .append("output", new Document("timestamp", "$timestamp").append("id", "$_id").append("value", "$value")));
+    }
+
+    private static SeriesPointResponse point(Document document) {
+        return new SeriesPointResponse(document.getDate("timestamp").toInstant(), ((Number) document.get("value")).doubleValue());
+    }
+
+    private void apply(Map<String, Object> state, ProductAudit event) {
+        if (event.getAction() == AuditAction.DELETE) {
+            state.put("deleted", true);
+            return;
+        }
+        if (event.getAction() == AuditAction.CREATE) state.put("deleted", false);
+        if (event.getDetails() != null) state.putAll(event.getDetails());
+    }
+}
@@ -1,5 +1,7 @@
 package com.hfsolutions.rest.service;
 
+import com.hfsolutions.rest.catalog.CategoryChangeEvent;
+import com.hfsolutions.rest.catalog.ProductPurger;
 import com.hfsolutions.rest.dto.category.request.CategoryCreateRequest;
 import com.hfsolutions.rest.dto.category.request.CategoryUpdateRequest;
 import com.hfsolutions.rest.dto.category.response.CategoryResponse;
@@ -9,8 +11,10 @@ import com.hfsolutions.rest.exception.NotFoundException;
 import com.hfsolutions.rest.mapper.CategoryMapper;
 import com.hfsolutions.rest.repository.jpa.CategoryRepository;
 import com.hfsolutions.rest.repository.jpa.ProductRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
 import java.util.UUID;
@@ -20,10 +24,17 @@ import java.util.stream.Collectors;
 public class CategoryService {
     private final CategoryRepository categoryRepository;
     private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductPurger productPurger;
+    private final TransactionTemplate transactionTemplate;
 
-    public CategoryService(CategoryRepository categoryRepository, ProductRepository productRepository) {
+    public CategoryService(CategoryRepository categoryRepository, ProductRepository productRepository, ApplicationEventPublisher eventPublisher,
+                           ProductPurger productPurger, PlatformTransactionManager transactionManager) {
         this.categoryRepository = categoryRepository;
         this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
+        this.productPurger = productPurger;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     public List<CategoryResponse> list() {
@@ -39,6 +50,7 @@ public class CategoryService {
         if (categoryRepository.existsByNameIgnoreCase(req.getName())) throw new BadRequestException("La categoría ya existe");
         Category category = Category.builder().name(req.getName().trim()).build();
         category = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangeEvent(category.getId()));
         return CategoryMapper.toCategoryResponse(category);
     }
 
@@ -47,17 +59,28 @@ public class CategoryService {
         if (!category.getName().equalsIgnoreCase(req.getName()) && categoryRepository.existsByNameIgnoreCase(req.getName())) throw new BadRequestException("La categoría ya existe");
         category.setName(req.getName().trim());
         category = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangeEvent(category.getId()));
         return CategoryMapper.toCategoryResponse(category);
     }
 
-    @Transactional
+    /**
+     * Elimina una categoría sin productos activos. Sus productos eliminados lógicamente se borran antes por lotes,
+     * cada uno en su propia transacción, y solo el borrado de la categoría se hace en una transacción final.
+     */
     public void delete(UUID id) {
-        Category category = categoryRepository.findById(id).orElseThrow(() -> new NotFoundException("Categoría no encontrada"));
+        if (!categoryRepository.existsById(id)) throw new NotFoundException("Categoría no encontrada");
         if (productRepository.existsByCategory_IdAndDeletedFalse(id)) throw new BadRequestException("La categoría tiene productos asociados");
-        
+
         // Limpiar productos eliminados lógicamente (soft-deleted) para evitar violación de FK
-        productRepository.deleteByCategory_Id(id);
-        
-        categoryRepository.delete(category);
+        productPurger.purgeCategory(id);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Category category = categoryRepository.findById(id).orElseThrow(() -> new NotFoundException("Categoría no encontrada"));
+            // Revalidar: mientras se purgaba pudo crearse un producto en la categoría o eliminarse otro
+            if (productRepository.existsByCategory_IdAndDeletedFalse(id)) throw new BadRequestException("La categoría tiene productos asociados");
+            productPurger.purgeCategory(id);
+            categoryRepository.delete(category);
+        });
+        eventPublisher.publishEvent(new CategoryChangeEvent(id));
     }
 }
\ No newline at end of file
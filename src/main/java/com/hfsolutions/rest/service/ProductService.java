@@ -2,38 +2,80 @@ package com.hfsolutions.rest.service;
 
 import com.hfsolutions.rest.audit.AuditAction;
 import com.hfsolutions.rest.audit.ProductAuditEvent;
+import com.hfsolutions.rest.catalog.CatalogSnapshot;
+import com.hfsolutions.rest.catalog.GroupCommitWriter;
+import com.hfsolutions.rest.catalog.LeaderboardType;
+import com.hfsolutions.rest.catalog.ProductChangeEvent;
+import com.hfsolutions.rest.catalog.ProductLeaderboards;
+import com.hfsolutions.rest.catalog.RatingAggregator;
+import com.hfsolutions.rest.catalog.RelatedProducts;
+import com.hfsolutions.rest.catalog.SuggestIndex;
 import com.hfsolutions.rest.dto.product.request.CreateProductRequest;
+import com.hfsolutions.rest.dto.product.request.ProductField;
+import com.hfsolutions.rest.dto.product.request.RatingSubmissionRequest;
+import com.hfsolutions.rest.dto.product.response.ProductBatchItemResponse;
 import com.hfsolutions.rest.dto.product.response.ProductResponse;
+import com.hfsolutions.rest.dto.product.response.SuggestionResponse;
 import com.hfsolutions.rest.dto.product.request.UpdateProductRequest;
 import com.hfsolutions.rest.dto.product.request.UpdateStockRequest;
 import com.hfsolutions.rest.entity.Category;
 import com.hfsolutions.rest.entity.Product;
 import com.hfsolutions.rest.entity.Rating;
+import com.hfsolutions.rest.exception.BadRequestException;
 import com.hfsolutions.rest.exception.NotFoundException;
 import com.hfsolutions.rest.mapper.ProductMapper;
 import com.hfsolutions.rest.repository.jpa.CategoryRepository;
+import com.hfsolutions.rest.repository.jpa.ProductFilter;
 import com.hfsolutions.rest.repository.jpa.ProductRepository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
 public class ProductService {
+    private static final int MAX_BATCH_SIZE = 100;
+
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private final ApplicationEventPublisher eventPublisher;
+    private final ProductLeaderboards leaderboards;
+    private final RatingAggregator ratingAggregator;
+    private final GroupCommitWriter groupCommitWriter;
+    private final SuggestIndex suggestIndex;
+    private final RelatedProducts relatedProducts;
+    private final CatalogSnapshot catalogSnapshot;
+    private final TransactionTemplate readOnlyTransaction;
 
-    public ProductService(ProductRepository productRepository, CategoryRepository categoryRepository, ApplicationEventPublisher eventPublisher) {
+    public ProductService(ProductRepository productRepository, CategoryRepository categoryRepository, ApplicationEventPublisher eventPublisher,
+                          ProductLeaderboards leaderboards, RatingAggregator ratingAggregator, GroupCommitWriter groupCommitWriter,
+                          SuggestIndex suggestIndex, RelatedProducts relatedProducts, CatalogSnapshot catalogSnapshot,
+                          PlatformTransactionManager transactionManager) {
         this.productRepository = productRepository;
         this.categoryRepository = categoryRepository;
         this.eventPublisher = eventPublisher;
+        this.leaderboards = leaderboards;
+        this.ratingAggregator = ratingAggregator;
+        this.groupCommitWriter = groupCommitWriter;
+        this.suggestIndex = suggestIndex;
+        this.relatedProducts = relatedProducts;
+        this.catalogSnapshot = catalogSnapshot;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
     }
 
     @Transactional
@@ -50,8 +92,9 @@ public class ProductService {
                 .image(req.getImage())
                 .build();
         product = productRepository.save(product);
-        publish(product.getId(), AuditAction.CREATE, map("title", product.getTitle()));
-        return ProductMapper.toProductResponse(product);
+        // El alta guarda todos los campos iniciales: la reconstrucción de estado y las series parten de ella
+        publish(product, AuditAction.CREATE, ProductMapper.toAuditState(product));
+        return changed(product);
     }
 
     @Transactional(readOnly = true)
@@ -59,17 +102,43 @@ public class ProductService {
         return productRepository.findAllByDeletedFalse(pageable).map(ProductMapper::toProductResponse);
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Durante un arranque en caliente se responde desde la instantánea del catálogo, sin abrir transacción.
+     */
     public ProductResponse get(UUID id) {
-        Product product = productRepository.findById(id).orElseThrow(() -> new NotFoundException("Producto no encontrado"));
-        if (product.isDeleted()) throw new NotFoundException("Producto no encontrado");
-        return ProductMapper.toProductResponse(product);
+        return catalogSnapshot.find(id).orElseGet(() -> readOnlyTransaction.execute(status -> {
+            Product product = productRepository.findById(id).orElseThrow(() -> new NotFoundException("Producto no encontrado"));
+            if (product.isDeleted()) throw new NotFoundException("Producto no encontrado");
+            return ProductMapper.toProductResponse(product);
+        }));
+    }
+
+    /**
+     * Obtiene varios productos con una sola consulta {@code IN}, devolviéndolos en el orden solicitado
+     * (repeticiones incluidas) y marcando como no encontrados los inexistentes o eliminados.
+     */
+    public List<ProductBatchItemResponse> getMany(List<UUID> ids) {
+        if (ids == null || ids.isEmpty()) throw new BadRequestException("Debe indicar al menos un ID de producto");
+        if (ids.size() > MAX_BATCH_SIZE) throw new BadRequestException("No se pueden solicitar más de " + MAX_BATCH_SIZE + " productos a la vez");
+
+        Map<UUID, ProductResponse> found = findActive(ids);
+        return ids.stream()
+                .map(id -> ProductBatchItemResponse.builder()
+                        .id(id)
+                        .found(found.containsKey(id))
+                        .product(found.get(id))
+                        .build())
+                .toList();
     }
 
-    @Transactional
     public ProductResponse update(UUID id, UpdateProductRequest req) {
+        return groupCommitWriter.submit(id, () -> applyUpdate(id, req));
+    }
+
+    private ProductResponse applyUpdate(UUID id, UpdateProductRequest req) {
         Product product = productRepository.findById(id).orElseThrow(() -> new NotFoundException("Producto no encontrado"));
         Category category = categoryRepository.findById(req.getCategoryId()).orElseThrow(() -> new NotFoundException("Categoría no encontrada"));
+        checkReserved(product, req.getStock());
         
         boolean stockChanged = !product.getStock().equals(req.getStock());
         
@@ -78,7 +147,11 @@ public class ProductService {
         // Usar compareTo para BigDecimal para ignorar diferencias de escala (ej: 10.0 vs 10.00)
         if (product.getPrice().compareTo(req.getPrice()) != 0) changes.put("price", req.getPrice());
         if (!product.getDescription().equals(req.getDescription())) changes.put("description", req.getDescription());
-        if (!product.getCategory().getId().equals(category.getId())) changes.put("category", category.getName());
+        if (!product.getCategory().getId().equals(category.getId())) {
+            changes.put("categoryId", category.getId());
+            changes.put("category", category.getName());
+        }
+        if (!Objects.equals(product.getImage(), req.getImage())) changes.put("image", req.getImage());
         
         product.setTitle(req.getTitle().trim());
         product.setDescription(req.getDescription());
@@ -86,26 +159,18 @@ public class ProductService {
         product.setStock(req.getStock());
         product.setCategory(category);
         
-        Rating currentRating = product.getRating();
-        if (currentRating == null) {
-            currentRating = new Rating(req.getRating(), 0);
-        } else {
-            currentRating.setRate(req.getRating());
-        }
-        product.setRating(currentRating);
-        
         product.setImage(req.getImage());
         product = productRepository.save(product);
         
         if (stockChanged) {
-            publish(product.getId(), AuditAction.STOCK_UPDATE, map("stock", product.getStock()));
+            publish(product, AuditAction.STOCK_UPDATE, map("stock", product.getStock()));
         }
         
         if (!changes.isEmpty()) {
-            publish(product.getId(), AuditAction.UPDATE, changes);
+            publish(product, AuditAction.UPDATE, changes);
         }
         
-        return ProductMapper.toProductResponse(product);
+        return changed(product);
     }
 
     @Transactional
@@ -113,18 +178,34 @@ public class ProductService {
         Product product = productRepository.findById(id).orElseThrow(() -> new NotFoundException("Producto no encontrado"));
         if (!product.isDeleted()) {
             product.setDeleted(true);
+            product.setDeletedAt(Instant.now());
             productRepository.save(product);
-            publish(product.getId(), AuditAction.DELETE, map("title", product.getTitle()));
+            publish(product, AuditAction.DELETE, map("title", product.getTitle()));
+            eventPublisher.publishEvent(new ProductChangeEvent(product.getId(), null));
         }
     }
 
-    @Transactional
     public ProductResponse updateStock(UUID id, UpdateStockRequest req) {
-        Product product = productRepository.findById(id).orElseThrow(() -> new NotFoundException("Producto no encontrado"));
-        product.setStock(req.getStock());
-        product = productRepository.save(product);
-        publish(product.getId(), AuditAction.STOCK_UPDATE, map("stock", product.getStock()));
-        return ProductMapper.toProductResponse(product);
+        return groupCommitWriter.submit(id, () -> {
+            Product product = productRepository.findById(id).orElseThrow(() -> new NotFoundException("Producto no encontrado"));
+            checkReserved(product, req.getStock());
+            product.setStock(req.getStock());
+            product = productRepository.save(product);
+            publish(product, AuditAction.STOCK_UPDATE, map("stock", product.getStock()));
+            return changed(product);
+        });
+    }
+
+    /**
+     * Registra una calificación individual. El agregado se actualiza de forma asíncrona en el siguiente volcado.
+     * La existencia del producto se comprueba en memoria; solo un ID desconocido para {@link RelatedProducts}
+     * (recién creado en otra instancia, o inexistente) se consulta en la base de datos.
+     */
+    public void rate(UUID id, RatingSubmissionRequest req) {
+        if (!relatedProducts.contains(id) && !productRepository.existsByIdAndDeletedFalse(id)) {
+            throw new NotFoundException("Producto no encontrado");
+        }
+        ratingAggregator.submit(id, req.getScore());
     }
 
     @Transactional(readOnly = true)
@@ -142,8 +223,85 @@ public class ProductService {
         return productRepository.findByDeletedFalseAndPriceBetween(min, max, pageable).map(ProductMapper::toProductResponse);
     }
 
-    private void publish(UUID productId, AuditAction action, Map<String, Object> details) {
-        eventPublisher.publishEvent(new ProductAuditEvent(productId, action, details));
+    /**
+     * Variante de los listados que solo lee y devuelve los campos solicitados con {@code ?fields=}.
+     */
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> find(ProductFilter filter, Set<ProductField> fields, Pageable pageable) {
+        return productRepository.findActiveFields(filter, fields, pageable);
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> get(UUID id, Set<ProductField> fields) {
+        return productRepository.findActiveFieldsById(id, fields)
+                .orElseThrow(() -> new NotFoundException("Producto no encontrado"));
+    }
+
+    public List<ProductResponse> top(String by, int n) {
+        LeaderboardType type = LeaderboardType.fromParam(by);
+        if (n < 1 || n > leaderboards.capacity()) {
+            throw new BadRequestException("El parámetro 'n' debe estar entre 1 y " + leaderboards.capacity());
+        }
+        return leaderboards.top(type, n);
+    }
+
+    /**
+     * El stock no puede quedar por debajo de las unidades retenidas por reservas vigentes.
+     */
+    private void checkReserved(Product product, int stock) {
+        if (stock < product.getReserved()) {
+            throw new BadRequestException("El stock no puede ser menor que las " + product.getReserved() + " unidades reservadas");
+        }
+    }
+
+    /**
+     * Productos parecidos de la misma categoría, del más al menos parecido. Los vecinos salen de la tabla
+     * precalculada; sus datos se cargan con una sola consulta {@code IN}.
+     */
+    public List<ProductResponse> related(UUID id, int k) {
+        if (k < 1 || k > relatedProducts.maxK()) {
+            throw new BadRequestException("El parámetro 'k' debe estar entre 1 y " + relatedProducts.maxK());
+        }
+        List<UUID> ids = relatedProducts.neighbours(id, k);
+        if (ids.isEmpty()) return List.of();
+        Map<UUID, ProductResponse> found = findActive(ids);
+        return ids.stream().map(found::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Productos activos por ID: los que tenga la instantánea del catálogo durante un arranque en caliente y el
+     * resto con una sola consulta {@code IN}.
+     */
+    private Map<UUID, ProductResponse> findActive(Collection<UUID> ids) {
+        Map<UUID, ProductResponse> found = new HashMap<>();
+        Set<UUID> missing = new HashSet<>();
+        for (UUID id : ids) {
+            catalogSnapshot.find(id).ifPresentOrElse(product -> found.put(id, product), () -> missing.add(id));
+        }
+        if (missing.isEmpty()) return found;
+        readOnlyTransaction.executeWithoutResult(status -> {
+            for (Product product : productRepository.findActiveByIdIn(missing)) {
+                found.put(product.getId(), ProductMapper.toProductResponse(product));
+            }
+        });
+        return found;
+    }
+
+    public List<SuggestionResponse> suggest(String prefix, int limit) {
+        if (limit < 1 || limit > suggestIndex.maxLimit()) {
+            throw new BadRequestException("El parámetro 'limit' debe estar entre 1 y " + suggestIndex.maxLimit());
+        }
+        return suggestIndex.suggest(prefix, limit);
+    }
+
+    private ProductResponse changed(Product product) {
+        ProductResponse response = ProductMapper.toProductResponse(product);
+        eventPublisher.publishEvent(new ProductChangeEvent(product.getId(), response));
+        return response;
+    }
+
+    private void publish(Product product, AuditAction action, Map<String, Object> details) {
+        eventPublisher.publishEvent(new ProductAuditEvent(product.getId(), action, details, ProductMapper.toAuditState(product)));
     }
 
     private Map<String, Object> map(String k, Object v) {
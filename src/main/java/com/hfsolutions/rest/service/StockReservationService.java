@@ -0,0 +1,263 @@
+package com.hfsolutions.rest.service;
+
+import com.hfsolutions.rest.audit.AuditAction;
+import com.hfsolutions.rest.audit.ProductAuditEvent;
+import com.hfsolutions.rest.catalog.HashedTimingWheel;
+import com.hfsolutions.rest.catalog.ProductChangeEvent;
+import com.hfsolutions.rest.dto.product.request.StockReservationRequest;
+import com.hfsolutions.rest.dto.product.response.StockReservationResponse;
+import com.hfsolutions.rest.entity.Product;
+import com.hfsolutions.rest.entity.StockReservation;
+import com.hfsolutions.rest.exception.BadRequestException;
+import com.hfsolutions.rest.exception.NotFoundException;
+import com.hfsolutions.rest.mapper.ProductMapper;
+import com.hfsolutions.rest.repository.jpa.ProductRepository;
+import com.hfsolutions.rest.repository.jpa.StockReservationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Reservas temporales de stock para carritos. Reservar suma las unidades a {@code products.reserved} con una
+ * sentencia condicional (nunca más de {@code stock - reserved}) y guarda la reserva en {@code stock_reservations};
+ * confirmarla las descuenta también de {@code stock}; liberarla o dejarla caducar solo las devuelve a disponibles.
+ * <p>
+ * Las caducidades las lleva en memoria una {@link HashedTimingWheel}: programarlas y cancelarlas no consulta la
+ * base de datos, y las reservas que vencen en un mismo tick se eliminan con un único {@code DELETE}. La tabla es
+ * la fuente de verdad: al arrancar se vuelven a programar las reservas pendientes, y un barrido periódico caduca
+ * las que ninguna instancia tiene programadas (p. ej. las de una instancia caída). Cada operación elimina la fila
+ * de la reserva antes de tocar el producto, así que de confirmar, liberar y caducar solo una llega a aplicarse.
+ * Toda operación publica un {@link ProductChangeEvent} del producto, porque cambia sus unidades disponibles.
+ */
+@Service
+public class StockReservationService {
+    private static final Logger log = LoggerFactory.getLogger(StockReservationService.class);
+    // 1024 casillas: con ticks de 1 s, una reserva de hasta 17 minutos vence en la primera vuelta de la rueda
+    private static final int WHEEL_SIZE = 1024;
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(30);
+    // Las reservas programadas en alguna rueda vencen antes de que el barrido las alcance
+    private static final Duration SWEEP_GRACE = Duration.ofMinutes(1);
+    private static final int SWEEP_CHUNK = 1000;
+    private static final String EXPIRE_BY_ID = "DELETE FROM stock_reservations WHERE id = ANY (?) RETURNING product_id, quantity";
+    /** Público para que {@code QueryPlanTests} compruebe el plan de la misma sentencia. */
+    public static final String EXPIRE_OVERDUE = "DELETE FROM stock_reservations WHERE id IN (SELECT id FROM stock_reservations "
+            + "WHERE expires_at < ? LIMIT ? FOR UPDATE SKIP LOCKED) RETURNING product_id, quantity";
+    private static final String RELEASE_UNITS = "UPDATE products SET reserved = reserved - ? WHERE id = ?";
+    private static final RowMapper<HeldUnits> HELD_UNITS =
+            (rs, rowNum) -> new HeldUnits(rs.getObject("product_id", UUID.class), rs.getInt("quantity"));
+
+    private final ProductRepository productRepository;
+    private final StockReservationRepository reservationRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration holdDuration;
+    private final HashedTimingWheel<UUID> expiries;
+    private final Counter held;
+    private final Counter confirmed;
+    private final Counter released;
+    private final Counter expired;
+
+    public StockReservationService(ProductRepository productRepository,
+                                   StockReservationRepository reservationRepository,
+                                   JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   ApplicationEventPublisher eventPublisher,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${catalog.reservations.hold-duration:15m}") Duration holdDuration,
+                                   @Value("${catalog.reservations.tick:1s}") Duration tick) {
+        this.productRepository = productRepository;
+        this.reservationRepository = reservationRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.holdDuration = holdDuration;
+        this.expiries = new HashedTimingWheel<>("stock-reservation-expiry", tick, WHEEL_SIZE, this::expire);
+        Gauge.builder("catalog.reservations.pending", expiries, HashedTimingWheel::size).register(meterRegistry);
+        this.held = Counter.builder("catalog.reservations").tag("outcome", "held").register(meterRegistry);
+        this.confirmed = Counter.builder("catalog.reservations").tag("outcome", "confirmed").register(meterRegistry);
+        this.released = Counter.builder("catalog.reservations").tag("outcome", "released").register(meterRegistry);
+        this.expired = Counter.builder("catalog.reservations").tag("outcome", "expired").register(meterRegistry);
+    }
+
+    /**
+     * Vuelve a programar las caducidades de las reservas pendientes que quedaron en la tabla (p. ej. tras un
+     * reinicio). Las ya vencidas caducan en el primer tick.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        int[] pending = {0};
+        jdbcTemplate.query("SELECT id, expires_at FROM stock_reservations", rs -> {
+            expiries.schedule(rs.getObject("id", UUID.class), rs.getTimestamp("expires_at").toInstant());
+            pending[0]++;
+        });
+        if (pending[0] > 0) log.info("Reprogramadas {} reservas de stock pendientes", pending[0]);
+    }
+
+    @Transactional
+    public StockReservationResponse reserve(UUID productId, StockReservationRequest req) {
+        int quantity = req.getQuantity();
+        if (productRepository.reserveStock(productId, quantity) == 0) {
+            if (!productRepository.existsByIdAndDeletedFalse(productId)) throw new NotFoundException("Producto no encontrado");
+            throw new BadRequestException("No hay stock disponible suficiente para reservar " + quantity + " unidades");
+        }
+        Instant now = Instant.now();
+        StockReservation reservation = reservationRepository.save(StockReservation.builder()
+                .productId(productId)
+                .quantity(quantity)
+                .createdAt(now)
+                .expiresAt(now.plus(holdDuration))
+                .build());
+        // Si la transacción se deshace, la caducidad no encontrará la fila y no hará nada
+        expiries.schedule(reservation.getId(), reservation.getExpiresAt());
+        availabilityChanged(List.of(productId));
+        held.increment();
+        return toResponse(reservation, StockReservationResponse.Status.HELD);
+    }
+
+    @Transactional
+    public StockReservationResponse confirm(UUID productId, UUID reservationId) {
+        StockReservation reservation = take(productId, reservationId);
+        if (productRepository.commitReservedStock(productId, reservation.getQuantity()) == 0) {
+            throw new BadRequestException("El producto ya no está disponible");
+        }
+        expiries.cancel(reservationId);
+
+        Product product = productRepository.findById(productId).orElseThrow(() -> new NotFoundException("Producto no encontrado"));
+        Map<String, Object> details = new HashMap<>();
+        details.put("stock", product.getStock());
+        details.put("reservation", reservationId);
+        eventPublisher.publishEvent(new ProductAuditEvent(product.getId(), AuditAction.STOCK_UPDATE, details, ProductMapper.toAuditState(product)));
+        eventPublisher.publishEvent(new ProductChangeEvent(product.getId(), ProductMapper.toProductResponse(product)));
+        confirmed.increment();
+        return toResponse(reservation, StockReservationResponse.Status.CONFIRMED);
+    }
+
+    @Transactional
+    public void release(UUID productId, UUID reservationId) {
+        StockReservation reservation = take(productId, reservationId);
+        productRepository.releaseReservedStock(productId, reservation.getQuantity());
+        expiries.cancel(reservationId);
+        availabilityChanged(List.of(productId));
+        released.increment();
+    }
+
+    /**
+     * Caduca las reservas que ninguna rueda tiene programadas: las de instancias caídas o las que no pudieron
+     * caducarse a tiempo. Elimina por lotes y salta las filas bloqueadas por una confirmación en curso.
+     */
+    @Scheduled(fixedDelayString = "${catalog.reservations.sweep-interval-ms:60000}",
+            initialDelayString = "${catalog.reservations.sweep-interval-ms:60000}")
+    public void sweepOverdue() {
+        Timestamp cutoff = Timestamp.from(Instant.now().minus(SWEEP_GRACE));
+        int total = 0;
+        int chunk;
+        do {
+            chunk = transactionTemplate.execute(status ->
+                    releaseUnits(jdbcTemplate.query(EXPIRE_OVERDUE, HELD_UNITS, cutoff, SWEEP_CHUNK)));
+            total += chunk;
+        } while (chunk == SWEEP_CHUNK);
+        if (total > 0) {
+            expired.increment(total);
+            log.info("Caducadas {} reservas de stock vencidas sin temporizador activo", total);
+        }
+    }
+
+    /**
+     * Caduca juntas las reservas vencidas en un tick de la rueda. Si falla, se reintentan más tarde.
+     */
+    private void expire(List<UUID> reservationIds) {
+        try {
+            int count = transactionTemplate.execute(status -> releaseUnits(jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(EXPIRE_BY_ID);
+                ps.setArray(1, con.createArrayOf("uuid", reservationIds.toArray()));
+                return ps;
+            }, HELD_UNITS)));
+            expired.increment(count);
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron caducar {} reservas de stock; se reintenta en {}: {}", reservationIds.size(), RETRY_DELAY, e.getMessage());
+            Instant retryAt = Instant.now().plus(RETRY_DELAY);
+            for (UUID id : reservationIds) expiries.schedule(id, retryAt);
+        }
+    }
+
+    /**
+     * Devuelve a disponibles las unidades de las reservas eliminadas, con una actualización por producto.
+     * @return Número de reservas.
+     */
+    private int releaseUnits(List<HeldUnits> reservations) {
+        if (reservations.isEmpty()) return 0;
+        // Orden fijo de los productos para que dos lotes concurrentes no se bloqueen mutuamente
+        Map<UUID, Integer> units = new TreeMap<>();
+        for (HeldUnits reservation : reservations) units.merge(reservation.productId(), reservation.quantity(), Integer::sum);
+        jdbcTemplate.batchUpdate(RELEASE_UNITS, units.entrySet().stream()
+                .map(entry -> new Object[]{entry.getValue(), entry.getKey()})
+                .toList());
+        availabilityChanged(units.keySet());
+        return reservations.size();
+    }
+
+    /**
+     * Publica el estado actual de los productos cuyas unidades reservadas cambiaron sin cargarlos, para que los
+     * modelos en memoria no sirvan un {@code available} antiguo. Se entrega al confirmar la transacción.
+     */
+    private void availabilityChanged(Collection<UUID> productIds) {
+        for (Product product : productRepository.findActiveByIdIn(productIds)) {
+            eventPublisher.publishEvent(new ProductChangeEvent(product.getId(), ProductMapper.toProductResponse(product)));
+        }
+    }
+
+    /**
+     * Elimina una reserva vigente del producto indicado y la devuelve, o falla si ya no existe.
+     */
+    private StockReservation take(UUID productId, UUID reservationId) {
+        StockReservation reservation = reservationRepository.findById(reservationId)
+                .filter(r -> r.getProductId().equals(productId))
+                .orElseThrow(() -> new NotFoundException("Reserva no encontrada o caducada"));
+        if (reservationRepository.deleteHeld(reservationId) == 0) throw new NotFoundException("Reserva no encontrada o caducada");
+        return reservation;
+    }
+
+    private static StockReservationResponse toResponse(StockReservation reservation, StockReservationResponse.Status status) {
+        return StockReservationResponse.builder()
+                .id(reservation.getId())
+                .productId(reservation.getProductId())
+                .quantity(reservation.getQuantity())
+                .status(status)
+                .expiresAt(reservation.getExpiresAt())
+                .build();
+    }
+
+    @PreDestroy
+    public void close() {
+        expiries.close();
+    }
+
+    private record HeldUnits(UUID productId, int quantity) {
+    }
+}
@@ -0,0 +1,95 @@
+package com.hfsolutions.rest.traffic;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Formato binario del registro de tráfico: una cabecera ({@code "TRAF"} y versión) seguida de registros
+ * con prefijo de longitud. Cada registro se escribe entero o no se escribe, así que un fichero cortado a mitad
+ * de una escritura (p. ej. por una caída) se lee hasta el último registro completo.
+ */
+public final class TrafficLog {
+    private static final int MAGIC = 0x54524146;
+    private static final short VERSION = 1;
+
+    private TrafficLog() {
+    }
+
+    public static void writeHeader(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+    }
+
+    public static void readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) throw new IOException("No es un registro de tráfico");
+        short version = in.readShort();
+        if (version != VERSION) throw new IOException("Versión de registro de tráfico no soportada: " + version);
+    }
+
+    public static void write(DataOutputStream out, TrafficRecord record) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 + record.uri().length() + record.body().length);
+        DataOutputStream payload = new DataOutputStream(buffer);
+        payload.writeLong(record.startMicros());
+        payload.writeInt(record.durationMicros());
+        payload.writeShort(record.status());
+        payload.writeUTF(record.method());
+        payload.writeUTF(record.uri());
+        payload.writeUTF(record.contentType() != null ? record.contentType() : "");
+        payload.writeUTF(record.accept() != null ? record.accept() : "");
+        payload.writeInt(record.body().length);
+        payload.write(record.body());
+
+        out.writeInt(buffer.size());
+        buffer.writeTo(out);
+    }
+
+    /**
+     * Recorre el fichero (cabecera incluida) sin decodificar los registros.
+     * @return Bytes hasta el final del último registro completo.
+     */
+    public static long completeLength(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(stream);
+        readHeader(in);
+        long length = Integer.BYTES + Short.BYTES;
+        try {
+            while (true) {
+                int size = in.readInt();
+                if (size < 0) return length;
+                in.skipNBytes(size);
+                length += Integer.BYTES + size;
+            }
+        } catch (EOFException e) {
+            return length;
+        }
+    }
+
+    /**
+     * Lee el siguiente registro.
+     * @return El registro, o {@code null} al llegar al final del fichero o a un registro incompleto.
+     */
+    public static TrafficRecord read(DataInputStream in) throws IOException {
+        try {
+            byte[] payload = new byte[in.readInt()];
+            in.readFully(payload);
+            DataInputStream data = new DataInputStream(new ByteArrayInputStream(payload));
+            long startMicros = data.readLong();
+            int durationMicros = data.readInt();
+            int status = data.readShort();
+            String method = data.readUTF();
+            String uri = data.readUTF();
+            String contentType = data.readUTF();
+            String accept = data.readUTF();
+            byte[] body = new byte[data.readInt()];
+            data.readFully(body);
+            return new TrafficRecord(startMicros, durationMicros, status, method, uri,
+                    contentType.isEmpty() ? null : contentType, accept.isEmpty() ? null : accept, body);
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.hfsolutions.rest.traffic;
+
+/**
+ * Petición capturada por {@code TrafficRecordingFilter}.
+ * @param startMicros Inicio de la petición (microsegundos desde epoch).
+ * @param durationMicros Tiempo de servicio observado en el servidor.
+ * @param uri Ruta sin el context path, con la query string si la hay.
+ * @param contentType Cabecera {@code Content-Type} de la petición, o {@code null}.
+ * @param accept Cabecera {@code Accept} de la petición, o {@code null}.
+ * @param body Cuerpo de la petición (vacío si no tiene).
+ */
+public record TrafficRecord(long startMicros, int durationMicros, int status, String method, String uri,
+                            String contentType, String accept, byte[] body) { }
@@ -0,0 +1,111 @@
+package com.hfsolutions.rest.traffic;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UTFDataFormatException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Añade al final de un {@link TrafficLog} las peticiones capturadas. Las peticiones solo se encolan; un hilo
+ * dedicado las escribe con un buffer y vuelca el fichero cuando la cola queda vacía, de modo que la E/S no
+ * añade latencia a las peticiones. Si la cola está llena el registro se descarta y se contabiliza.
+ * <p>
+ * Los registros se escriben en orden de finalización, no de inicio; {@link TrafficReplay} los reordena.
+ * Al abrir un fichero existente se corta tras el último registro completo, para que lo que se añada no quede
+ * detrás de un registro a medias que la lectura tomaría por el final del fichero.
+ */
+public class TrafficRecorder implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(TrafficRecorder.class);
+
+    private final Path file;
+    private final BlockingQueue<TrafficRecord> queue;
+    private final DataOutputStream out;
+    private final Thread writer;
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile boolean running = true;
+
+    public TrafficRecorder(Path file, int queueCapacity) throws IOException {
+        this.file = file;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        boolean append = Files.exists(file) && Files.size(file) > 0;
+        if (append) truncateToLastRecord(file);
+        this.out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND), 64 * 1024));
+        if (!append) TrafficLog.writeHeader(out);
+
+        this.writer = new Thread(this::drain, "traffic-recorder");
+        this.writer.setDaemon(true);
+        this.writer.start();
+        log.info("Grabación de tráfico activa en {}", file.toAbsolutePath());
+    }
+
+    private static void truncateToLastRecord(Path file) throws IOException {
+        long complete;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 64 * 1024)) {
+            complete = TrafficLog.completeLength(in);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            if (channel.size() > complete) {
+                log.warn("El registro de tráfico {} terminaba en un registro incompleto; se descartan {} bytes",
+                        file, channel.size() - complete);
+                channel.truncate(complete);
+            }
+        }
+    }
+
+    public void offer(TrafficRecord record) {
+        if (!running || !queue.offer(record)) dropped.incrementAndGet();
+    }
+
+    private void drain() {
+        try {
+            while (running || !queue.isEmpty()) {
+                TrafficRecord record = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (record == null) {
+                    out.flush();
+                    continue;
+                }
+                try {
+                    TrafficLog.write(out, record);
+                    recorded.incrementAndGet();
+                } catch (UTFDataFormatException e) {
+                    // URI o cabecera de más de 64 KB: no cabe en el formato, se descarta solo esta petición
+                    dropped.incrementAndGet();
+                }
+            }
+            out.flush();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            running = false;
+            log.error("Se detiene la grabación de tráfico: no se pudo escribir en {}", file, e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        out.close();
+        log.info("Grabación de tráfico finalizada: {} peticiones registradas, {} descartadas", recorded.get(), dropped.get());
+    }
+}
@@ -0,0 +1,186 @@
+package com.hfsolutions.rest.traffic;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Pattern;
+
+/**
+ * Reproduce un registro de tráfico grabado por {@code TrafficRecordingFilter} contra otra instancia, respetando
+ * los intervalos originales entre peticiones divididos por {@code velocidad} (carga en bucle abierto: una
+ * respuesta lenta no retrasa las peticiones siguientes). Al terminar muestra por endpoint el throughput, los
+ * percentiles de latencia observados y los grabados en origen, los errores y las respuestas con un estado
+ * distinto del original.
+ * <p>
+ * Las escrituras se reproducen tal cual, con los mismos IDs: la instancia de destino debe partir de una copia
+ * de los datos de origen. Los huecos de más de un minuto (p. ej. entre dos arranques) se omiten.
+ * <p>
+ * El registro está en orden de finalización; las peticiones se reordenan por inicio con un buffer que retiene
+ * cada una hasta haber leído las que terminaron {@code REORDER_WINDOW} después (como mucho
+ * {@code MAX_BUFFERED} peticiones). Solo una petición más lenta que esa ventana se reproduce fuera de orden.
+ * <p>
+ * Uso: {@code TrafficReplay <registro> <url base> [velocidad=1] [peticiones en vuelo=256]}
+ */
+public final class TrafficReplay {
+    private static final long MAX_GAP_MICROS = Duration.ofMinutes(1).toNanos() / 1_000;
+    private static final long REORDER_WINDOW_MICROS = Duration.ofSeconds(30).toNanos() / 1_000;
+    private static final int MAX_BUFFERED = 100_000;
+    private static final Pattern UUID_SEGMENT = Pattern.compile(
+            "[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+
+    private TrafficReplay() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Uso: TrafficReplay <registro> <url base> [velocidad=1] [peticiones en vuelo=256]");
+            System.exit(2);
+        }
+        Path file = Path.of(args[0]);
+        String baseUrl = args[1].replaceAll("/+$", "");
+        double speed = args.length > 2 ? Double.parseDouble(args[2]) : 1;
+        int maxInFlight = args.length > 3 ? Integer.parseInt(args[3]) : 256;
+        if (speed <= 0) throw new IllegalArgumentException("La velocidad debe ser mayor que 0");
+
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+        long maxLagNanos = 0;
+
+        long replayStart = System.nanoTime();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024))) {
+            TrafficLog.readHeader(in);
+            long previousMicros = Long.MIN_VALUE;
+            long offsetMicros = 0;
+            PriorityQueue<TrafficRecord> pending = new PriorityQueue<>(Comparator.comparingLong(TrafficRecord::startMicros));
+            long completedUpTo = Long.MIN_VALUE;
+            boolean exhausted = false;
+            while (true) {
+                // Se lee por delante hasta que el primero pendiente no pueda adelantarse a ninguno aún sin leer
+                while (!exhausted && (pending.isEmpty() || pending.size() < MAX_BUFFERED
+                        && pending.peek().startMicros() > completedUpTo - REORDER_WINDOW_MICROS)) {
+                    TrafficRecord next = TrafficLog.read(in);
+                    if (next == null) {
+                        exhausted = true;
+                    } else {
+                        pending.add(next);
+                        completedUpTo = Math.max(completedUpTo, next.startMicros() + next.durationMicros());
+                    }
+                }
+                TrafficRecord record = pending.poll();
+                if (record == null) break;
+                if (previousMicros == Long.MIN_VALUE) {
+                    previousMicros = record.startMicros();
+                } else if (record.startMicros() - previousMicros > MAX_GAP_MICROS) {
+                    previousMicros = record.startMicros();
+                } else if (record.startMicros() > previousMicros) {
+                    offsetMicros += record.startMicros() - previousMicros;
+                    previousMicros = record.startMicros();
+                }
+                long due = replayStart + (long) (offsetMicros * 1_000 / speed);
+                for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+                    LockSupport.parkNanos(wait);
+                }
+                inFlight.acquire();
+                maxLagNanos = Math.max(maxLagNanos, System.nanoTime() - due);
+
+                TrafficRecord sent = record;
+                EndpointStats endpoint = stats.computeIfAbsent(endpoint(record), key -> new EndpointStats());
+                long start = System.nanoTime();
+                client.sendAsync(request(baseUrl, record), HttpResponse.BodyHandlers.discarding())
+                        .whenComplete((response, error) -> {
+                            endpoint.add(sent, (System.nanoTime() - start) / 1_000, error == null ? response.statusCode() : -1);
+                            inFlight.release();
+                        });
+            }
+        }
+        inFlight.acquire(maxInFlight);
+        double elapsedSeconds = (System.nanoTime() - replayStart) / 1e9;
+
+        print(new TreeMap<>(stats), elapsedSeconds);
+        System.out.printf("Duración %.1f s a %sx; retraso máximo respecto al plan %.1f ms%n",
+                elapsedSeconds, args.length > 2 ? args[2] : "1", maxLagNanos / 1e6);
+    }
+
+    private static HttpRequest request(String baseUrl, TrafficRecord record) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + record.uri()))
+                .timeout(Duration.ofSeconds(30))
+                .method(record.method(), record.body().length == 0
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(record.body()));
+        if (record.contentType() != null) builder.header("Content-Type", record.contentType());
+        if (record.accept() != null) builder.header("Accept", record.accept());
+        return builder.build();
+    }
+
+    /**
+     * Agrupa por método y ruta, sin query string y con los IDs sustituidos por {@code {id}}.
+     */
+    private static String endpoint(TrafficRecord record) {
+        String path = record.uri();
+        int query = path.indexOf('?');
+        if (query >= 0) path = path.substring(0, query);
+        return record.method() + " " + UUID_SEGMENT.matcher(path).replaceAll("{id}");
+    }
+
+    private static void print(Map<String, EndpointStats> stats, double elapsedSeconds) {
+        System.out.printf("%-45s %8s %8s %8s %8s %8s %8s %9s %9s %7s %8s%n", "endpoint", "requests", "req/s",
+                "p50 ms", "p90 ms", "p99 ms", "max ms", "orig p50", "orig p99", "errors", "status!=");
+        for (Map.Entry<String, EndpointStats> entry : stats.entrySet()) {
+            EndpointStats s = entry.getValue();
+            synchronized (s) {
+                long[] replayed = Arrays.copyOf(s.replayed, s.count);
+                long[] recorded = Arrays.copyOf(s.recorded, s.count);
+                Arrays.sort(replayed);
+                Arrays.sort(recorded);
+                System.out.printf("%-45s %8d %8.1f %8.1f %8.1f %8.1f %8.1f %9.1f %9.1f %7d %8d%n", entry.getKey(), s.count,
+                        s.count / elapsedSeconds, percentile(replayed, 0.50), percentile(replayed, 0.90),
+                        percentile(replayed, 0.99), percentile(replayed, 1.0), percentile(recorded, 0.50),
+                        percentile(recorded, 0.99), s.errors, s.statusMismatches);
+            }
+        }
+    }
+
+    private static double percentile(long[] sortedMicros, double p) {
+        if (sortedMicros.length == 0) return 0;
+        int index = (int) Math.ceil(p * sortedMicros.length) - 1;
+        return sortedMicros[Math.max(0, index)] / 1_000.0;
+    }
+
+    /**
+     * Latencias reproducidas y grabadas (en microsegundos) de un endpoint.
+     */
+    private static final class EndpointStats {
+        private long[] replayed = new long[64];
+        private long[] recorded = new long[64];
+        private int count;
+        private long errors;
+        private long statusMismatches;
+
+        synchronized void add(TrafficRecord record, long latencyMicros, int status) {
+            if (count == replayed.length) {
+                replayed = Arrays.copyOf(replayed, count * 2);
+                recorded = Arrays.copyOf(recorded, count * 2);
+            }
+            replayed[count] = latencyMicros;
+            recorded[count] = record.durationMicros();
+            count++;
+            if (status < 0 || status >= 500) errors++;
+            if (status != record.status()) statusMismatches++;
+        }
+    }
+}
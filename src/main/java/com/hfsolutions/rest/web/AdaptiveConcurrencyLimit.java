@@ -0,0 +1,91 @@
+package com.hfsolutions.rest.web;
+
+import java.time.Duration;
+
+/**
+ * Límite de concurrencia por gradiente de latencia. Cada respuesta se compara con la latencia mínima observada en
+ * la ventana reciente ({@code baselineWindow}), no con un objetivo fijo: así una clase de tráfico que mezcla
+ * rutas rápidas y lentas solo retrocede cuando sus propias respuestas empiezan a hacer cola. Si una respuesta
+ * tarda más que {@code max(mínimo × 2, latencyTarget)} el límite se reduce en proporción al exceso (como mucho un
+ * 10 % por respuesta); cada respuesta a tiempo con el límite al menos a medias de uso lo aumenta en uno.
+ * {@code latencyTarget} actúa como margen absoluto para no reaccionar a variaciones de milisegundos sobre mínimos
+ * muy bajos. El límite empieza en {@code initialLimit} y se mueve entre {@code minLimit} y {@code maxLimit}: el
+ * mínimo debe quedar por debajo de las conexiones de la base de datos para que, con sobrecarga, las peticiones
+ * de más se rechacen en vez de esperar una conexión.
+ */
+public class AdaptiveConcurrencyLimit {
+    /** Cuánto puede superar una respuesta al mínimo reciente antes de considerarse encolada. */
+    private static final double TOLERANCE = 2.0;
+    /** Peso de cada muestra lenta: con gradiente 0,5 el límite baja un 10 %. */
+    private static final double SMOOTHING = 0.2;
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyTargetNanos;
+    private final long bucketNanos;
+    private double limit;
+    private int inFlight;
+    // Mínimo deslizante en dos mitades de ventana: la actual y la anterior
+    private long currentMinNanos = Long.MAX_VALUE;
+    private long previousMinNanos = Long.MAX_VALUE;
+    private long bucketStartedAt = System.nanoTime();
+
+    public AdaptiveConcurrencyLimit(String name, int initialLimit, int minLimit, int maxLimit,
+                                    Duration latencyTarget, Duration baselineWindow) {
+        this.name = name;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.latencyTargetNanos = latencyTarget.toNanos();
+        this.bucketNanos = Math.max(1, baselineWindow.toNanos() / 2);
+        this.limit = Math.max(this.minLimit, Math.min(this.maxLimit, initialLimit));
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * @return true si la petición entra; false si debe rechazarse de inmediato.
+     */
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) return false;
+        inFlight++;
+        return true;
+    }
+
+    public synchronized void release(long latencyNanos) {
+        int inFlightBefore = inFlight--;
+        long threshold = Math.max((long) (baseline(latencyNanos) * TOLERANCE), latencyTargetNanos);
+        if (latencyNanos > threshold) {
+            double gradient = Math.max(MIN_GRADIENT, (double) threshold / latencyNanos);
+            limit = Math.max(minLimit, limit * (1 - SMOOTHING * (1 - gradient)));
+        } else if (inFlightBefore * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+
+    public synchronized int limit() {
+        return (int) limit;
+    }
+
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Registra la muestra y devuelve la latencia mínima de la última ventana (entre media y una ventana completa).
+     */
+    private long baseline(long latencyNanos) {
+        long now = System.nanoTime();
+        if (now - bucketStartedAt >= bucketNanos) {
+            // Si pasó más de una mitad sin tráfico, la mitad anterior también está caducada
+            previousMinNanos = now - bucketStartedAt >= 2 * bucketNanos ? Long.MAX_VALUE : currentMinNanos;
+            currentMinNanos = Long.MAX_VALUE;
+            bucketStartedAt = now;
+        }
+        currentMinNanos = Math.min(currentMinNanos, latencyNanos);
+        return Math.min(currentMinNanos, previousMinNanos);
+    }
+}
@@ -0,0 +1,76 @@
+package com.hfsolutions.rest.web;
+
+import com.hfsolutions.rest.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Control de admisión delante de la capa de servicio, con presupuestos de concurrencia separados para lecturas,
+ * escrituras y consultas de auditoría. Cuando un presupuesto está agotado la petición se rechaza al instante con
+ * {@code 503} y {@code Retry-After} en lugar de esperar una conexión del pool hasta agotar el tiempo.
+ */
+public class AdmissionControlInterceptor implements HandlerInterceptor {
+    private static final String PERMIT = AdmissionControlInterceptor.class.getName() + ".permit";
+    private static final String STARTED_AT = AdmissionControlInterceptor.class.getName() + ".startedAt";
+    private static final long RETRY_AFTER_SECONDS = 1;
+
+    private final AdaptiveConcurrencyLimit reads;
+    private final AdaptiveConcurrencyLimit writes;
+    private final AdaptiveConcurrencyLimit audit;
+    private final Map<AdaptiveConcurrencyLimit, Counter> rejected = new HashMap<>();
+
+    public AdmissionControlInterceptor(AdaptiveConcurrencyLimit reads, AdaptiveConcurrencyLimit writes,
+                                       AdaptiveConcurrencyLimit audit, MeterRegistry meterRegistry) {
+        this.reads = reads;
+        this.writes = writes;
+        this.audit = audit;
+        for (AdaptiveConcurrencyLimit limit : List.of(reads, writes, audit)) {
+            Gauge.builder("catalog.admission.limit", limit, AdaptiveConcurrencyLimit::limit)
+                    .tag("class", limit.name()).register(meterRegistry);
+            Gauge.builder("catalog.admission.in-flight", limit, AdaptiveConcurrencyLimit::inFlight)
+                    .tag("class", limit.name()).register(meterRegistry);
+            rejected.put(limit, Counter.builder("catalog.admission.rejected")
+                    .tag("class", limit.name()).register(meterRegistry));
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod)) return true;
+        AdaptiveConcurrencyLimit limit = classify(request);
+        if (!limit.tryAcquire()) {
+            rejected.get(limit).increment();
+            throw new ServiceUnavailableException("Servicio saturado, reintente en unos segundos", RETRY_AFTER_SECONDS);
+        }
+        request.setAttribute(PERMIT, limit);
+        request.setAttribute(STARTED_AT, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (!(request.getAttribute(PERMIT) instanceof AdaptiveConcurrencyLimit limit)) return;
+        request.removeAttribute(PERMIT);
+        limit.release(System.nanoTime() - (Long) request.getAttribute(STARTED_AT));
+    }
+
+    private AdaptiveConcurrencyLimit classify(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.startsWith("/api/audit")) return audit;
+        // La consulta por lotes admite POST solo para enviar los IDs en el cuerpo
+        if (path.equals("/api/products/batch")) return reads;
+        return switch (request.getMethod()) {
+            case "GET", "HEAD", "OPTIONS" -> reads;
+            default -> writes;
+        };
+    }
+}
@@ -0,0 +1,41 @@
+package com.hfsolutions.rest.web;
+
+import com.hfsolutions.rest.catalog.CatalogSeedGate;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Responde {@code 503 Service Unavailable} a las peticiones de {@code /api/**} mientras la carga
+ * inicial del catálogo está en curso, para no servir un catálogo incompleto.
+ */
+@Component
+public class CatalogSeedFilter extends OncePerRequestFilter {
+    private final CatalogSeedGate gate;
+
+    public CatalogSeedFilter(CatalogSeedGate gate) {
+        this.gate = gate;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(request.getContextPath() + "/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (gate.isSeeding()) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, "5");
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Carga inicial del catálogo en curso");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,186 @@
+package com.hfsolutions.rest.web;
+
+import com.hfsolutions.rest.catalog.CatalogVersion;
+import com.hfsolutions.rest.config.ReadYourWritesContext;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cachea ya comprimidas con gzip las primeras páginas de {@code GET /api/products} y
+ * {@code GET /api/products/category/{id}}. La clave incluye la consulta, el {@code Accept} y la
+ * {@link CatalogVersion}, de modo que cada página se comprime una sola vez por cambio del catálogo.
+ * Solo se cachean las páginas del tamaño por defecto (sin {@code size} o con {@code size=10}) y la caché está
+ * acotada por bytes comprimidos ({@code catalog.response-cache.max-size}), no por número de páginas, porque
+ * una página grande puede ocupar lo que cientos de pequeñas.
+ * El resto de respuestas usa la compresión al vuelo del contenedor ({@code server.compression.*}).
+ * <p>
+ * Con réplicas de lectura, las páginas que se van a cachear se leen de la primaria: una réplica retrasada
+ * devolvería datos anteriores a la versión del catálogo con la que se guardan y se servirían hasta el siguiente
+ * cambio.
+ */
+@Component
+public class PrecompressedPageFilter extends OncePerRequestFilter {
+    private static final AntPathMatcher PATHS = new AntPathMatcher();
+    /** Tamaño de página por defecto de {@code ProductController}. */
+    private static final String DEFAULT_PAGE_SIZE = "10";
+
+    private final CatalogVersion catalogVersion;
+    private final boolean replicasEnabled;
+    private final int maxPage;
+    private final long minSize;
+    private final long maxBytes;
+    /** Orden de acceso: al superar {@code maxBytes} se descartan primero las páginas menos usadas. */
+    private final LinkedHashMap<String, CachedPage> cache = new LinkedHashMap<>(64, 0.75f, true);
+    private long cachedBytes;
+
+    public PrecompressedPageFilter(CatalogVersion catalogVersion,
+                                   @Value("${catalog.response-cache.max-size:8MB}") DataSize maxSize,
+                                   @Value("${catalog.response-cache.max-page:2}") int maxPage,
+                                   @Value("${server.compression.min-response-size:2KB}") DataSize minSize,
+                                   @Value("${catalog.datasource.replicas.enabled:false}") boolean replicasEnabled) {
+        this.catalogVersion = catalogVersion;
+        this.replicasEnabled = replicasEnabled;
+        this.maxBytes = maxSize.toBytes();
+        this.maxPage = maxPage;
+        this.minSize = minSize.toBytes();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!"GET".equals(request.getMethod())) return true;
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (!path.equals("/api/products") && !PATHS.match("/api/products/category/*", path)) return true;
+        if (!acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) return true;
+        String size = request.getParameter("size");
+        if (size != null && !size.equals(DEFAULT_PAGE_SIZE)) return true;
+        return page(request) >= maxPage;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long version = catalogVersion.current();
+        String key = request.getRequestURI() + '?' + request.getQueryString()
+                + '|' + request.getHeader(HttpHeaders.ACCEPT) + '|' + version;
+
+        CachedPage cached;
+        synchronized (cache) {
+            cached = cache.get(key);
+        }
+        if (cached != null) {
+            write(response, cached);
+            return;
+        }
+
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        boolean pin = replicasEnabled && !ReadYourWritesContext.isPinnedToPrimary();
+        if (pin) ReadYourWritesContext.pinToPrimary();
+        try {
+            chain.doFilter(request, wrapper);
+        } finally {
+            if (pin) ReadYourWritesContext.clear();
+        }
+
+        byte[] body = wrapper.getContentAsByteArray();
+        if (wrapper.getStatus() != HttpServletResponse.SC_OK || body.length < minSize) {
+            wrapper.copyBodyToResponse();
+            return;
+        }
+        CachedPage page = new CachedPage(wrapper.getContentType(), gzip(body));
+        // Si el catálogo cambió durante la petición, la página puede mezclar datos de dos versiones
+        if (catalogVersion.current() == version && page.body().length <= maxBytes) {
+            synchronized (cache) {
+                put(key, page);
+            }
+        }
+        write(response, page);
+    }
+
+    private void put(String key, CachedPage page) {
+        CachedPage previous = cache.put(key, page);
+        if (previous != null) cachedBytes -= previous.body().length;
+        cachedBytes += page.body().length;
+        Iterator<CachedPage> eldest = cache.values().iterator();
+        while (cachedBytes > maxBytes && eldest.hasNext()) {
+            cachedBytes -= eldest.next().body().length;
+            eldest.remove();
+        }
+    }
+
+    private void write(HttpServletResponse response, CachedPage page) throws IOException {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(page.contentType());
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        response.setContentLength(page.body().length);
+        response.getOutputStream().write(page.body());
+    }
+
+    /**
+     * Interpreta {@code Accept-Encoding} con sus pesos (RFC 9110): {@code gzip;q=0} rechaza gzip explícitamente
+     * y, si gzip no aparece, decide el comodín {@code *}.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        Double gzip = null;
+        Double any = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.length() > 2 && param.regionMatches(true, 0, "q=", 0, 2)) {
+                    try {
+                        q = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = gzip == null ? q : Math.max(gzip, q);
+            } else if (coding.equals("*")) {
+                any = q;
+            }
+        }
+        return gzip != null ? gzip > 0 : any != null && any > 0;
+    }
+
+    private static int page(HttpServletRequest request) {
+        String page = request.getParameter("page");
+        if (page == null) return 0;
+        try {
+            return Integer.parseInt(page);
+        } catch (NumberFormatException e) {
+            return Integer.MAX_VALUE;
+        }
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    private record CachedPage(String contentType, byte[] body) {
+    }
+}
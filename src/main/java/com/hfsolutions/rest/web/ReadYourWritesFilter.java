@@ -0,0 +1,77 @@
+package com.hfsolutions.rest.web;
+
+import com.hfsolutions.rest.config.ReadYourWritesContext;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ventana de lectura de las propias escrituras: durante {@code window} tras una escritura correcta de un cliente
+ * (identificado por la cabecera {@code X-Client-Id} o, en su defecto, por su dirección IP), sus lecturas se
+ * fijan a la base de datos primaria para no leer de una réplica que aún no ha aplicado el cambio.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+    public static final String CLIENT_ID_HEADER = "X-Client-Id";
+    private static final int CLEANUP_THRESHOLD = 10_000;
+
+    private final long windowMillis;
+    private final Map<String, Long> pinnedUntil = new ConcurrentHashMap<>();
+
+    public ReadYourWritesFilter(Duration window) {
+        this.windowMillis = window.toMillis();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return windowMillis <= 0 || !request.getRequestURI().startsWith(request.getContextPath() + "/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String client = clientKey(request);
+        long now = System.currentTimeMillis();
+        if (isWrite(request)) {
+            chain.doFilter(request, response);
+            if (response.getStatus() < 400) {
+                if (pinnedUntil.size() > CLEANUP_THRESHOLD) {
+                    pinnedUntil.values().removeIf(until -> until < now);
+                }
+                pinnedUntil.put(client, System.currentTimeMillis() + windowMillis);
+            }
+            return;
+        }
+        Long until = pinnedUntil.get(client);
+        if (until == null || until < now) {
+            chain.doFilter(request, response);
+            return;
+        }
+        ReadYourWritesContext.pinToPrimary();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadYourWritesContext.clear();
+        }
+    }
+
+    private static boolean isWrite(HttpServletRequest request) {
+        // La consulta por lotes admite POST solo para enviar los IDs en el cuerpo
+        if (request.getRequestURI().substring(request.getContextPath().length()).equals("/api/products/batch")) return false;
+        return switch (request.getMethod()) {
+            case "POST", "PUT", "PATCH", "DELETE" -> true;
+            default -> false;
+        };
+    }
+
+    private static String clientKey(HttpServletRequest request) {
+        String clientId = request.getHeader(CLIENT_ID_HEADER);
+        return clientId != null && !clientId.isBlank() ? clientId : request.getRemoteAddr();
+    }
+}
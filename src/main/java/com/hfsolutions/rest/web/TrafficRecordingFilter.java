@@ -0,0 +1,78 @@
+package com.hfsolutions.rest.web;
+
+import com.hfsolutions.rest.traffic.TrafficRecord;
+import com.hfsolutions.rest.traffic.TrafficRecorder;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingRequestWrapper;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Graba una muestra de las peticiones a {@code /api/**} (método, URI, {@code Content-Type}, {@code Accept},
+ * cuerpo, estado e instante y duración) para reproducirlas después con {@code TrafficReplay}.
+ * No se guardan otras cabeceras ni datos del cliente. Las peticiones con un cuerpo mayor que
+ * {@code maxBodyBytes} no se graban, porque no podrían reproducirse tal cual.
+ * <p>
+ * Se registra al principio de la cadena para que la duración incluya el resto de filtros.
+ */
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class TrafficRecordingFilter extends OncePerRequestFilter {
+    private final TrafficRecorder recorder;
+    private final double sampleRate;
+    private final int maxBodyBytes;
+
+    public TrafficRecordingFilter(TrafficRecorder recorder, double sampleRate, int maxBodyBytes) {
+        this.recorder = recorder;
+        this.sampleRate = sampleRate;
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(request.getContextPath() + "/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (ThreadLocalRandom.current().nextDouble() >= sampleRate || request.getContentLengthLong() > maxBodyBytes) {
+            chain.doFilter(request, response);
+            return;
+        }
+        // Un byte más que el límite para distinguir un cuerpo de tamaño desconocido que lo supera
+        ContentCachingRequestWrapper wrapped = new ContentCachingRequestWrapper(request, maxBodyBytes + 1);
+        Instant started = Instant.now();
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(wrapped, response);
+        } finally {
+            long durationMicros = (System.nanoTime() - start) / 1_000;
+            byte[] body = wrapped.getContentAsByteArray();
+            if (body.length <= maxBodyBytes) {
+                recorder.offer(new TrafficRecord(
+                        started.getEpochSecond() * 1_000_000 + started.getNano() / 1_000,
+                        (int) Math.min(Integer.MAX_VALUE, durationMicros),
+                        response.getStatus(),
+                        request.getMethod(),
+                        uri(request),
+                        request.getContentType(),
+                        request.getHeader(HttpHeaders.ACCEPT),
+                        body));
+            }
+        }
+    }
+
+    private static String uri(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return request.getQueryString() != null ? path + "?" + request.getQueryString() : path;
+    }
+}
@@ -0,0 +1,18 @@
+-- Outbox de auditoría: se introdujo después del esquema de partida, así que las bases de datos
+-- registradas como baseline (versión 1) la reciben aquí. Las creadas en desarrollo con
+-- ddl-auto=update ya la tienen, de ahí IF NOT EXISTS.
+
+-- allocationSize = 50 en AuditOutboxEntry: el incremento debe coincidir para que Hibernate valide el esquema
+CREATE SEQUENCE IF NOT EXISTS audit_outbox_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS audit_outbox (
+    id              BIGINT                      NOT NULL PRIMARY KEY,
+    product_id      UUID                        NOT NULL,
+    action          VARCHAR(20)                 NOT NULL,
+    occurred_at     TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    details         TEXT,
+    state           TEXT,
+    attempts        INTEGER                     NOT NULL,
+    next_attempt_at TIMESTAMP(6) WITH TIME ZONE,
+    last_error      VARCHAR(500)
+);
@@ -0,0 +1,20 @@
+-- Esquema de partida: el mismo que generaba Hibernate con ddl-auto=update.
+-- En bases de datos ya existentes Flyway registra esta versión como baseline sin ejecutarla.
+
+CREATE TABLE categories (
+    id   UUID         NOT NULL PRIMARY KEY,
+    name VARCHAR(255) NOT NULL UNIQUE
+);
+
+CREATE TABLE products (
+    id          UUID           NOT NULL PRIMARY KEY,
+    title       VARCHAR(255)   NOT NULL,
+    description VARCHAR(2000),
+    price       NUMERIC(38, 2) NOT NULL,
+    stock       INTEGER        NOT NULL,
+    category_id UUID           NOT NULL REFERENCES categories (id),
+    deleted     BOOLEAN        NOT NULL,
+    rate        DOUBLE PRECISION,
+    count       INTEGER,
+    image       VARCHAR(255)
+);
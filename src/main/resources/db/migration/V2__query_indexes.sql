@@ -0,0 +1,34 @@
+-- Índices a medida de las consultas de ProductRepository y CategoryRepository.
+-- Casi todas filtran por deleted = false, así que los índices son parciales (WHERE NOT deleted): más pequeños
+-- y sin entradas de productos eliminados. Los listados paginados ordenan por id (o price, id) para que el
+-- índice devuelva las filas ya ordenadas y LIMIT/OFFSET no necesite ordenar toda la tabla.
+-- QueryPlanTests comprueba con EXPLAIN que ninguna consulta recurre a un Seq Scan.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- findAllByDeletedFalse (GET /api/products, ORDER BY id)
+CREATE INDEX products_active_id_idx ON products (id) WHERE NOT deleted;
+
+-- findByCategory_IdAndDeletedFalse (ORDER BY id) y existsByCategory_IdAndDeletedFalse
+CREATE INDEX products_active_category_idx ON products (category_id, id) WHERE NOT deleted;
+
+-- deleteByCategory_Id y la comprobación de la FK al borrar categorías (incluye eliminados)
+CREATE INDEX products_category_idx ON products (category_id);
+
+-- findByDeletedFalseAndPriceBetween (ORDER BY price, id) y findTopNByPrice (recorrido inverso)
+CREATE INDEX products_active_price_idx ON products (price, id) WHERE NOT deleted;
+
+-- findTopNByRating: mismo orden que la consulta, incluida la expresión COALESCE
+CREATE INDEX products_active_rating_idx ON products (rate DESC, COALESCE(count, 0) DESC, id)
+    WHERE NOT deleted AND rate IS NOT NULL;
+
+-- findTopNByLowStock
+CREATE INDEX products_active_stock_idx ON products (stock, id) WHERE NOT deleted;
+
+-- findByDeletedFalseAndTitleContainingIgnoreCase y ?fields= con q: Spring Data/Hibernate generan
+-- upper(title) LIKE '%...%', que solo puede usar un índice de trigramas sobre la misma expresión
+CREATE INDEX products_active_title_trgm_idx ON products USING gin (upper(title) gin_trgm_ops) WHERE NOT deleted;
+
+-- existsByNameIgnoreCase / findByNameIgnoreCase comparan upper(name); además impide duplicados que solo
+-- difieren en mayúsculas, la misma regla que ya aplica CategoryService
+CREATE UNIQUE INDEX categories_name_upper_idx ON categories (upper(name));
@@ -0,0 +1,9 @@
+-- Momento del borrado lógico, para purgar físicamente los productos pasado el periodo de retención.
+-- Los ya eliminados no tienen fecha conocida: su retención empieza a contar ahora.
+
+ALTER TABLE products ADD COLUMN deleted_at TIMESTAMP(6) WITH TIME ZONE;
+
+UPDATE products SET deleted_at = now() WHERE deleted;
+
+-- ProductRepository.deleteDeletedChunkBefore
+CREATE INDEX products_deleted_at_idx ON products (deleted_at) WHERE deleted;
@@ -0,0 +1,2 @@
+-- Entradas que agrupan varias acciones de una misma transacción sobre un producto (nombres separados por comas)
+ALTER TABLE audit_outbox ADD COLUMN actions VARCHAR(100);
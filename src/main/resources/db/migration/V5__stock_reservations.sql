@@ -0,0 +1,21 @@
+-- Reservas temporales de stock (carritos). Las unidades reservadas se llevan aparte: disponible = stock - reserved.
+-- Confirmar una reserva descuenta las unidades de stock y de reserved; liberarla o dejarla caducar, solo de reserved.
+
+ALTER TABLE products ADD COLUMN reserved INTEGER NOT NULL DEFAULT 0;
+
+-- Nunca se reserva más de lo que hay (los productos con stock negativo heredado solo pueden tener reserved = 0)
+ALTER TABLE products ADD CONSTRAINT products_reserved_check CHECK (reserved >= 0 AND (reserved = 0 OR reserved <= stock));
+
+CREATE TABLE stock_reservations (
+    id         UUID                        NOT NULL PRIMARY KEY,
+    product_id UUID                        NOT NULL REFERENCES products (id) ON DELETE CASCADE,
+    quantity   INTEGER                     NOT NULL CHECK (quantity > 0),
+    created_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    expires_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+-- Borrado en cascada al purgar productos (ProductPurger)
+CREATE INDEX stock_reservations_product_idx ON stock_reservations (product_id);
+
+-- StockReservationService.sweepOverdue
+CREATE INDEX stock_reservations_expires_at_idx ON stock_reservations (expires_at);
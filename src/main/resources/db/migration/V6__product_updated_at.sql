@@ -0,0 +1,20 @@
+-- Momento de la última modificación de cada producto, para que CatalogSnapshot lea solo lo cambiado desde su
+-- instantánea. Lo mantiene un trigger, de modo que también lo actualizan las sentencias UPDATE masivas
+-- (agregados de calificación, reservas de stock) que no pasan por la entidad.
+-- Los productos existentes toman el momento de la migración.
+
+ALTER TABLE products ADD COLUMN updated_at TIMESTAMP(6) WITH TIME ZONE NOT NULL DEFAULT now();
+
+CREATE FUNCTION products_touch_updated_at() RETURNS trigger AS $$
+BEGIN
+    NEW.updated_at := now();
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER products_touch_updated_at
+    BEFORE UPDATE ON products
+    FOR EACH ROW EXECUTE FUNCTION products_touch_updated_at();
+
+-- ProductRepository.findChangedSince
+CREATE INDEX products_updated_at_idx ON products (updated_at);
@@ -0,0 +1,7 @@
+-- Entradas que MongoDB rechazó audit.outbox.max-attempts veces: se apartan del envío y se conservan para revisarlas
+ALTER TABLE audit_outbox ADD COLUMN dead_lettered_at TIMESTAMP(6) WITH TIME ZONE;
+
+-- AuditOutboxRepository.lockNextBatch (ORDER BY occurred_at, id) y la comprobación de eventos anteriores en espera
+CREATE INDEX audit_outbox_pending_idx ON audit_outbox (occurred_at, id) WHERE dead_lettered_at IS NULL;
+CREATE INDEX audit_outbox_waiting_idx ON audit_outbox (product_id, occurred_at, id)
+    WHERE dead_lettered_at IS NULL AND next_attempt_at IS NOT NULL;
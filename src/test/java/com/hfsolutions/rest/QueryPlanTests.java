@@ -0,0 +1,322 @@
+package com.hfsolutions.rest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hfsolutions.rest.dto.product.request.ProductField;
+import com.hfsolutions.rest.repository.jpa.CategoryRepository;
+import com.hfsolutions.rest.repository.jpa.ProductFilter;
+import com.hfsolutions.rest.repository.jpa.ProductRepository;
+import com.hfsolutions.rest.service.StockReservationService;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Comprueba con {@code EXPLAIN} que las consultas de los repositorios JPA se resuelven con los índices de las
+ * migraciones y no con un recorrido secuencial de una tabla grande. Carga un catálogo sintético dentro de una
+ * transacción que se revierte al terminar, actualiza las estadísticas con {@code ANALYZE} y recorre el plan de
+ * cada consulta.
+ * <p>
+ * El SQL no se escribe a mano: se invocan los métodos de los repositorios (también las consultas Criteria de
+ * {@code findActiveFields}) y un {@link StatementInspector} captura las sentencias que genera Hibernate. Cada
+ * una se prepara con {@code PREPARE} y se explica con {@code EXPLAIN EXECUTE}, con un plan a medida
+ * ({@code plan_cache_mode = force_custom_plan}) y un valor representativo para cada parámetro según su tipo.
+ * Las sentencias que se ejecutan con {@link JdbcTemplate} fuera de Hibernate se comprueban con las constantes de SQL
+ * de sus servicios, preparadas y con los mismos valores de ejemplo.
+ * <p>
+ * El recuento total de {@code GET /api/products} no se comprueba: cuenta todos los productos activos y un
+ * recorrido completo es el plan correcto.
+ */
+@SpringBootTest
+class QueryPlanTests {
+    private static final int CATEGORIES = 200;
+    private static final int PRODUCTS = 50_000;
+    /** Tablas con más filas que este umbral no pueden aparecer en un Seq Scan. */
+    private static final double ROW_THRESHOLD = 1_000;
+    private static final Sort BY_ID = Sort.by("id");
+    private static final Sort BY_PRICE = Sort.by("price", "id");
+    private static final Set<ProductField> FIELDS = EnumSet.of(ProductField.ID, ProductField.TITLE, ProductField.PRICE,
+            ProductField.CATEGORY_NAME, ProductField.RATING);
+
+    /**
+     * Valores de ejemplo por tipo de parámetro, parecidos a los que usa la aplicación: textos de búsqueda,
+     * límites y desplazamientos de página, precios e instantes recientes. Los UUID se resuelven tras el seed.
+     */
+    private static final Map<String, String> SAMPLE_VALUES = Map.of(
+            "text", "'%PRUEBA 42%'",
+            "character varying", "'%PRUEBA 42%'",
+            "bigint", "10",
+            "integer", "10",
+            "numeric", "10",
+            "boolean", "false",
+            "timestamp with time zone", "now() - interval '1 hour'");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private SqlCapture sqlCapture;
+
+    @Test
+    void repositoryQueriesUseIndexes() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            status.setRollbackOnly();
+            seed();
+            Map<String, Double> tableRows = tableRows();
+            Map<String, String> statements = statements();
+            String sampleUuid = "'" + jdbcTemplate.queryForObject(
+                    "SELECT id FROM products WHERE title = 'Producto de prueba 4242'", UUID.class) + "'";
+
+            jdbcTemplate.execute("SET LOCAL plan_cache_mode = force_custom_plan");
+            List<String> violations = new ArrayList<>();
+            statements.forEach((name, sql) ->
+                    collectSeqScans(name, explainPrepared(sql, sampleUuid), tableRows, violations));
+            jdbcStatements().forEach((name, sql) ->
+                    collectSeqScans(name, explainPrepared(sql, sampleUuid), tableRows, violations));
+            assertTrue(violations.isEmpty(), () -> "Consultas con Seq Scan sobre tablas de más de "
+                    + (long) ROW_THRESHOLD + " filas:\n" + String.join("\n", violations));
+        });
+    }
+
+    private void seed() {
+        jdbcTemplate.update("INSERT INTO categories (id, name) "
+                + "SELECT gen_random_uuid(), 'plan-test-' || g FROM generate_series(1, ?) g", CATEGORIES);
+        // Un 10 % eliminados, un 1/7 sin calificación y modificaciones repartidas en el tiempo, como en un catálogo con historia
+        jdbcTemplate.update("INSERT INTO products (id, title, description, price, stock, category_id, deleted, deleted_at, updated_at, rate, count, image) "
+                + "SELECT gen_random_uuid(), 'Producto de prueba ' || g, 'Descripción ' || g, "
+                + "round((random() * 1000)::numeric, 2), (random() * 500)::int, c.ids[1 + g % array_length(c.ids, 1)], "
+                + "g % 10 = 0, CASE WHEN g % 10 = 0 THEN now() - g * interval '1 minute' END, now() - g * interval '1 minute', "
+                + "CASE WHEN g % 7 = 0 THEN NULL ELSE round((random() * 5)::numeric, 1) END, "
+                + "(random() * 1000)::int, NULL "
+                + "FROM generate_series(1, ?) g, "
+                + "(SELECT array_agg(id) AS ids FROM categories WHERE name LIKE 'plan-test-%') c", PRODUCTS);
+        jdbcTemplate.execute("ANALYZE categories");
+        jdbcTemplate.execute("ANALYZE products");
+    }
+
+    /**
+     * Ejecuta los métodos de los repositorios y devuelve, por nombre, el SQL que generó Hibernate para cada uno.
+     * Las sentencias que modifican datos van al final; la transacción se revierte igualmente.
+     */
+    private Map<String, String> statements() {
+        UUID categoryId = jdbcTemplate.queryForObject("SELECT id FROM categories WHERE name = 'plan-test-1'", UUID.class);
+        List<UUID> productIds = jdbcTemplate.queryForList(
+                "SELECT id FROM products WHERE title IN ('Producto de prueba 41', 'Producto de prueba 42')", UUID.class);
+        Pageable page = PageRequest.of(20, 10, BY_ID);
+        BigDecimal min = BigDecimal.TEN;
+        BigDecimal max = BigDecimal.valueOf(20);
+
+        Map<String, String> statements = new LinkedHashMap<>();
+        capture(statements, "findAllByDeletedFalse", () -> productRepository.findAllByDeletedFalse(page));
+        capture(statements, "findByCategory_IdAndDeletedFalse",
+                () -> productRepository.findByCategory_IdAndDeletedFalse(categoryId, PageRequest.of(0, 10, BY_ID)));
+        capture(statements, "existsByCategory_IdAndDeletedFalse",
+                () -> productRepository.existsByCategory_IdAndDeletedFalse(categoryId));
+        capture(statements, "existsByIdAndDeletedFalse", () -> productRepository.existsByIdAndDeletedFalse(productIds.get(0)));
+        capture(statements, "findByDeletedFalseAndTitleContainingIgnoreCase",
+                () -> productRepository.findByDeletedFalseAndTitleContainingIgnoreCase("prueba 42", PageRequest.of(0, 10, BY_ID)));
+        capture(statements, "findByDeletedFalseAndPriceBetween",
+                () -> productRepository.findByDeletedFalseAndPriceBetween(min, max, PageRequest.of(0, 10, BY_PRICE)));
+        capture(statements, "findTopNByPrice", () -> productRepository.findTopNByPrice(PageRequest.ofSize(100)));
+        capture(statements, "findTopNByRating", () -> productRepository.findTopNByRating(PageRequest.ofSize(100)));
+        capture(statements, "findTopNByLowStock", () -> productRepository.findTopNByLowStock(PageRequest.ofSize(100)));
+        capture(statements, "findActiveByIdIn", () -> productRepository.findActiveByIdIn(productIds));
+        capture(statements, "findActiveAfter",
+                () -> productRepository.findActiveAfter(productIds.get(0), PageRequest.ofSize(1000)));
+        capture(statements, "findChangedSince", () -> productRepository.findChangedSince(
+                Instant.now().minus(Duration.ofHours(1)), new UUID(0, 0), PageRequest.ofSize(1000)));
+        capture(statements, "findActiveFields (all)",
+                () -> productRepository.findActiveFields(ProductFilter.all(), FIELDS, page));
+        capture(statements, "findActiveFieldsById",
+                () -> productRepository.findActiveFieldsById(productIds.get(0), FIELDS));
+        capture(statements, "findActiveFields (byCategory)",
+                () -> productRepository.findActiveFields(ProductFilter.byCategory(categoryId), FIELDS, PageRequest.of(0, 10, BY_ID)));
+        capture(statements, "findActiveFields (search)",
+                () -> productRepository.findActiveFields(ProductFilter.search("prueba 42"), FIELDS, PageRequest.of(0, 10, BY_ID)));
+        capture(statements, "findActiveFields (priceRange)",
+                () -> productRepository.findActiveFields(ProductFilter.priceRange(min, max), FIELDS, PageRequest.of(0, 10, BY_PRICE)));
+        capture(statements, "CategoryRepository.existsByNameIgnoreCase",
+                () -> categoryRepository.existsByNameIgnoreCase("plan-test-7"));
+        capture(statements, "reserveStock", () -> productRepository.reserveStock(productIds.get(0), 1));
+        capture(statements, "deleteDeletedChunkBefore",
+                () -> productRepository.deleteDeletedChunkBefore(Instant.now().minus(Duration.ofDays(30)), 1000));
+        capture(statements, "deleteDeletedChunkByCategoryId",
+                () -> productRepository.deleteDeletedChunkByCategoryId(categoryId, 1000));
+
+        // Recuento total de GET /api/products: ver la documentación de la clase
+        statements.remove("findAllByDeletedFalse (count)");
+        statements.remove("findActiveFields (all) (count)");
+        return statements;
+    }
+
+    /**
+     * Registra las sentencias que ejecuta {@code call}; los recuentos de las consultas paginadas llevan el sufijo
+     * {@code (count)}.
+     */
+    private void capture(Map<String, String> statements, String name, Runnable call) {
+        List<String> captured = sqlCapture.during(call);
+        assertFalse(captured.isEmpty(), () -> name + " no ejecutó ninguna sentencia");
+        for (String sql : captured) {
+            String key = sql.toLowerCase(Locale.ROOT).startsWith("select count(") ? name + " (count)" : name;
+            for (int n = 2; statements.containsKey(key); n++) {
+                key = name + " #" + n;
+            }
+            statements.put(key, sql);
+        }
+    }
+
+    /** Sentencias que la aplicación ejecuta con {@link JdbcTemplate}; se planifican con los mismos valores de ejemplo. */
+    private Map<String, String> jdbcStatements() {
+        Map<String, String> statements = new LinkedHashMap<>();
+        statements.put("StockReservationService.sweepOverdue", StockReservationService.EXPIRE_OVERDUE);
+        return statements;
+    }
+
+    /**
+     * Prepara la sentencia de Hibernate (parámetros {@code ?} convertidos a {@code $n}) y devuelve el plan de
+     * {@code EXECUTE} con un valor de ejemplo para cada parámetro según el tipo que ha deducido PostgreSQL.
+     */
+    private JsonNode explainPrepared(String sql, String sampleUuid) {
+        jdbcTemplate.execute("PREPARE plan_test AS " + numberParameters(sql));
+        try {
+            String[] types = jdbcTemplate.queryForObject(
+                    "SELECT parameter_types::text[] FROM pg_prepared_statements WHERE name = 'plan_test'",
+                    (rs, rowNum) -> (String[]) rs.getArray(1).getArray());
+            List<String> values = new ArrayList<>();
+            for (String type : types) {
+                values.add("uuid".equals(type) ? sampleUuid : SAMPLE_VALUES.getOrDefault(type, "NULL"));
+            }
+            String execute = values.isEmpty() ? "EXECUTE plan_test" : "EXECUTE plan_test(" + String.join(", ", values) + ")";
+            return explain(execute);
+        } finally {
+            jdbcTemplate.execute("DEALLOCATE plan_test");
+        }
+    }
+
+    /** Sustituye los {@code ?} de JDBC por {@code $1, $2...}, sin tocar los literales entre comillas simples. */
+    private static String numberParameters(String sql) {
+        StringBuilder numbered = new StringBuilder(sql.length() + 16);
+        boolean quoted = false;
+        int index = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                quoted = !quoted;
+            }
+            if (c == '?' && !quoted) {
+                numbered.append('$').append(++index);
+            } else {
+                numbered.append(c);
+            }
+        }
+        return numbered.toString();
+    }
+
+    private JsonNode explain(String sql) {
+        String json = jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + sql, String.class);
+        try {
+            return objectMapper.readTree(json).get(0).get("Plan");
+        } catch (Exception e) {
+            throw new IllegalStateException("No se pudo leer el plan de: " + sql, e);
+        }
+    }
+
+    private void collectSeqScans(String query, JsonNode plan, Map<String, Double> tableRows, List<String> violations) {
+        if ("Seq Scan".equals(plan.path("Node Type").asText())) {
+            String table = plan.path("Relation Name").asText();
+            double rows = tableRows.getOrDefault(table, 0d);
+            if (rows > ROW_THRESHOLD) {
+                violations.add("  " + query + ": Seq Scan sobre " + table + " (" + (long) rows + " filas)");
+            }
+        }
+        for (JsonNode child : plan.path("Plans")) {
+            collectSeqScans(query, child, tableRows, violations);
+        }
+    }
+
+    private Map<String, Double> tableRows() {
+        Map<String, Double> rows = new HashMap<>();
+        jdbcTemplate.query("SELECT relname, reltuples FROM pg_class WHERE relname IN ('products', 'categories')",
+                rs -> {
+                    rows.put(rs.getString("relname"), rs.getDouble("reltuples"));
+                });
+        return rows;
+    }
+
+    @TestConfiguration
+    static class SqlCaptureConfig {
+        @Bean
+        SqlCapture sqlCapture() {
+            return new SqlCapture();
+        }
+
+        @Bean
+        HibernatePropertiesCustomizer sqlCaptureCustomizer(SqlCapture sqlCapture) {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, sqlCapture);
+        }
+    }
+
+    /** Guarda el SQL que Hibernate prepara en el hilo actual mientras dura {@link #during(Runnable)}. */
+    static class SqlCapture implements StatementInspector {
+        private final ThreadLocal<List<String>> captured = new ThreadLocal<>();
+
+        @Override
+        public String inspect(String sql) {
+            List<String> statements = captured.get();
+            if (statements != null) {
+                statements.add(sql);
+            }
+            return sql;
+        }
+
+        List<String> during(Runnable call) {
+            List<String> statements = new ArrayList<>();
+            captured.set(statements);
+            try {
+                call.run();
+            } finally {
+                captured.remove();
+            }
+            return statements;
+        }
+    }
+}
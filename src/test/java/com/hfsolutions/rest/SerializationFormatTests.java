@@ -0,0 +1,126 @@
+package com.hfsolutions.rest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.hfsolutions.rest.audit.AuditAction;
+import com.hfsolutions.rest.audit.ProductAudit;
+import com.hfsolutions.rest.dto.product.response.ProductResponse;
+import com.hfsolutions.rest.dto.product.response.RatingResponse;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Comprueba que JSON, CBOR y Smile conservan las cargas típicas de la API en un viaje de ida y vuelta
+ * (la negociación de contenido puede servir cualquiera de los tres).
+ * <p>
+ * La comparación de tiempos y bytes está etiquetada como {@code benchmark} y queda fuera de la build normal:
+ * {@code ./mvnw test -Dtest=SerializationFormatTests -Dgroups=benchmark -Dtest.excluded-groups=}
+ */
+class SerializationFormatTests {
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 10_000;
+
+    private final Map<String, ObjectMapper> mappers = new LinkedHashMap<>();
+
+    SerializationFormatTests() {
+        mappers.put("json", Jackson2ObjectMapperBuilder.json().build());
+        mappers.put("cbor", Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build());
+        mappers.put("smile", Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build());
+    }
+
+    @Test
+    void productPageRoundTrips() throws Exception {
+        assertRoundTrip(products(20), new TypeReference<List<ProductResponse>>() {});
+    }
+
+    @Test
+    void auditEventsRoundTrip() throws Exception {
+        assertRoundTrip(audits(100), new TypeReference<List<ProductAudit>>() {});
+    }
+
+    @Test
+    @Tag("benchmark")
+    void compareFormats() throws Exception {
+        benchmark("ProductResponse x20 (página)", products(20), new TypeReference<List<ProductResponse>>() {});
+        benchmark("ProductAudit x100", audits(100), new TypeReference<List<ProductAudit>>() {});
+    }
+
+    private <T> void assertRoundTrip(T payload, TypeReference<T> type) throws Exception {
+        for (Map.Entry<String, ObjectMapper> entry : mappers.entrySet()) {
+            ObjectMapper mapper = entry.getValue();
+            byte[] bytes = mapper.writeValueAsBytes(payload);
+            assertEquals(payload, mapper.readValue(bytes, type), () -> "Ida y vuelta distinta en " + entry.getKey());
+        }
+    }
+
+    private <T> void benchmark(String payloadName, T payload, TypeReference<T> type) throws Exception {
+        System.out.printf("%n%s%n%-6s %10s %14s %14s%n", payloadName, "format", "bytes", "encode (µs)", "decode (µs)");
+        for (Map.Entry<String, ObjectMapper> entry : mappers.entrySet()) {
+            ObjectMapper mapper = entry.getValue();
+            byte[] bytes = mapper.writeValueAsBytes(payload);
+            for (int i = 0; i < WARMUP; i++) {
+                mapper.readValue(mapper.writeValueAsBytes(payload), type);
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                bytes = mapper.writeValueAsBytes(payload);
+            }
+            long encodeNanos = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                mapper.readValue(bytes, type);
+            }
+            long decodeNanos = System.nanoTime() - start;
+            System.out.printf("%-6s %10d %14.2f %14.2f%n", entry.getKey(), bytes.length,
+                    encodeNanos / 1_000.0 / ITERATIONS, decodeNanos / 1_000.0 / ITERATIONS);
+        }
+    }
+
+    private List<ProductResponse> products(int count) {
+        List<ProductResponse> result = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            result.add(ProductResponse.builder()
+                    .id(UUID.randomUUID())
+                    .title("Producto de prueba " + i)
+                    .description("Descripción extensa del producto ".repeat(20))
+                    .price(new BigDecimal("199.99").add(BigDecimal.valueOf(i)))
+                    .stock(100 + i)
+                    .categoryId(UUID.randomUUID())
+                    .categoryName("electronics")
+                    .rating(RatingResponse.builder().rate(4.5).count(120 + i).build())
+                    .image("https://fakestoreapi.com/img/81fPKd-2AYL._AC_SL1500_.jpg")
+                    .build());
+        }
+        return result;
+    }
+
+    private List<ProductAudit> audits(int count) {
+        List<ProductAudit> result = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> details = new LinkedHashMap<>();
+            details.put("price", 99.99 + i);
+            details.put("stock", i);
+            result.add(ProductAudit.builder()
+                    .id(Integer.toHexString(i))
+                    .productId(UUID.randomUUID())
+                    .action(AuditAction.UPDATE)
+                    .timestamp(Instant.parse("2023-10-01T12:00:00Z").plusSeconds(i))
+                    .details(details)
+                    .build());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,183 @@
+package com.hfsolutions.rest.catalog;
+
+import com.hfsolutions.rest.dto.product.response.ProductResponse;
+import com.hfsolutions.rest.dto.product.response.RatingResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Comprueba el formato de {@link CatalogSnapshotFile}: que lo escrito se lee igual por ID y en recorrido, y que
+ * un fichero corrupto, truncado o de otro formato se rechaza al proyectarlo en lugar de devolver datos erróneos.
+ */
+class CatalogSnapshotFileTests {
+    private static final Instant STAMP = Instant.parse("2026-03-01T10:15:30.123Z");
+    private static final UUID PHONES = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private static final UUID BOOKS = UUID.fromString("00000000-0000-0000-0000-000000000002");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void findsEveryWrittenProductById() throws IOException {
+        List<ProductResponse> products = products(50);
+        Path path = write("catalog.snapshot", products);
+
+        CatalogSnapshotFile snapshot = CatalogSnapshotFile.map(path);
+
+        assertEquals(STAMP, snapshot.stamp());
+        assertEquals(products.size(), snapshot.size());
+        assertEquals(categories(), snapshot.categories());
+        for (ProductResponse product : products) {
+            assertTrue(snapshot.contains(product.getId()));
+            assertEquals(product, snapshot.find(product.getId()));
+        }
+        UUID missing = new UUID(Long.MIN_VALUE, 0);
+        assertFalse(snapshot.contains(missing));
+        assertNull(snapshot.find(missing));
+    }
+
+    @Test
+    void forEachReturnsProductsInWriteOrder() throws IOException {
+        List<ProductResponse> products = products(20);
+        CatalogSnapshotFile snapshot = CatalogSnapshotFile.map(write("catalog.snapshot", products));
+
+        List<ProductResponse> read = new ArrayList<>();
+        snapshot.forEach(read::add);
+        assertEquals(products, read);
+    }
+
+    @Test
+    void keepsNullFieldsAndNonAsciiText() throws IOException {
+        ProductResponse sparse = ProductResponse.builder()
+                .id(UUID.randomUUID())
+                .title("Cámara réflex ñ")
+                .price(new BigDecimal("-0.001"))
+                .categoryId(BOOKS)
+                .categoryName("Libros")
+                .rating(new RatingResponse(null, null))
+                .build();
+        CatalogSnapshotFile snapshot = CatalogSnapshotFile.map(write("catalog.snapshot", List.of(sparse)));
+
+        assertEquals(sparse, snapshot.find(sparse.getId()));
+    }
+
+    @Test
+    void emptySnapshotHasNoProducts() throws IOException {
+        CatalogSnapshotFile snapshot = CatalogSnapshotFile.map(write("catalog.snapshot", List.of()));
+
+        assertEquals(0, snapshot.size());
+        assertNull(snapshot.find(PHONES));
+        snapshot.forEach(product -> {
+            throw new AssertionError("producto inesperado: " + product);
+        });
+    }
+
+    @Test
+    void rejectsAFileWithACorruptedByte() throws IOException {
+        Path path = write("catalog.snapshot", products(10));
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length / 2] ^= 0x01;
+        Files.write(path, bytes);
+
+        IOException error = assertThrows(IOException.class, () -> CatalogSnapshotFile.map(path));
+        assertTrue(error.getMessage().contains("Suma de control"));
+    }
+
+    @Test
+    void rejectsATruncatedFile() throws IOException {
+        Path path = write("catalog.snapshot", products(10));
+        byte[] bytes = Files.readAllBytes(path);
+
+        // Cortado por la mitad pierde el pie; cortado por debajo de la cabecera y el pie, ni siquiera se proyecta
+        Files.write(path, Arrays.copyOf(bytes, bytes.length / 2));
+        assertThrows(IOException.class, () -> CatalogSnapshotFile.map(path));
+        Files.write(path, Arrays.copyOf(bytes, 16));
+        assertThrows(IOException.class, () -> CatalogSnapshotFile.map(path));
+        Files.write(path, new byte[0]);
+        assertThrows(IOException.class, () -> CatalogSnapshotFile.map(path));
+    }
+
+    @Test
+    void rejectsAnotherFormatVersion() throws IOException {
+        Path path = write("catalog.snapshot", products(3));
+        byte[] bytes = Files.readAllBytes(path);
+        ByteBuffer.wrap(bytes).putInt(4, 1);
+        Files.write(path, bytes);
+
+        IOException error = assertThrows(IOException.class, () -> CatalogSnapshotFile.map(path));
+        assertTrue(error.getMessage().contains("Versión"));
+    }
+
+    @Test
+    void writerLeavesNoFileUntilCommitted() throws IOException {
+        Path path = write("catalog.snapshot", products(2));
+        byte[] committed = Files.readAllBytes(path);
+
+        try (CatalogSnapshotFile.Writer writer = CatalogSnapshotFile.writer(path, STAMP, categories())) {
+            writer.append(products(1).get(0));
+        }
+
+        // La instantánea anterior sigue intacta y el temporal se ha borrado
+        assertArrayEquals(committed, Files.readAllBytes(path));
+        assertFalse(Files.exists(directory.resolve("catalog.snapshot.tmp")));
+        assertEquals(2, CatalogSnapshotFile.map(path).size());
+    }
+
+    private Path write(String name, List<ProductResponse> products) throws IOException {
+        Path path = directory.resolve(name);
+        try (CatalogSnapshotFile.Writer writer = CatalogSnapshotFile.writer(path, STAMP, categories())) {
+            for (ProductResponse product : products) {
+                writer.append(product);
+            }
+            writer.commit();
+        }
+        return path;
+    }
+
+    private static Map<UUID, String> categories() {
+        Map<UUID, String> categories = new LinkedHashMap<>();
+        categories.put(PHONES, "Teléfonos");
+        categories.put(BOOKS, "Libros");
+        return categories;
+    }
+
+    private static List<ProductResponse> products(int count) {
+        List<ProductResponse> products = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            UUID category = i % 2 == 0 ? PHONES : BOOKS;
+            products.add(ProductResponse.builder()
+                    .id(new UUID(i * 0x9E3779B97F4A7C15L, i))
+                    .title("Producto " + i)
+                    .description(i % 3 == 0 ? null : "Descripción " + i)
+                    .price(BigDecimal.valueOf(1999 + i * 100L, 2))
+                    .stock(i)
+                    .available(i % 4 == 0 ? null : i / 2)
+                    .categoryId(category)
+                    .categoryName(categories().get(category))
+                    .rating(i % 5 == 0 ? null : new RatingResponse(i % 50 / 10.0, i * 3))
+                    .image(i % 2 == 0 ? null : "https://example.com/images/" + i + ".jpg")
+                    .build());
+        }
+        return products;
+    }
+}
@@ -0,0 +1,158 @@
+package com.hfsolutions.rest.catalog;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Comprueba la aritmética de casillas y vueltas de {@link HashedTimingWheel} con un reloj manual y sin hilo:
+ * cada prueba avanza el reloj y procesa los ticks vencidos con {@code runDueTicks()}.
+ */
+class HashedTimingWheelTests {
+    private static final long TICK = Duration.ofMillis(100).toNanos();
+    private static final int WHEEL_SIZE = 8;
+
+    private final List<List<String>> batches = new ArrayList<>();
+    private long now = 1_000_000_000L;
+    private HashedTimingWheel<String> wheel;
+
+    @AfterEach
+    void close() {
+        if (wheel != null) wheel.close();
+    }
+
+    @Test
+    void expiresOnTheFirstTickThatReachesTheDeadline() {
+        wheel = wheel(batches::add);
+        wheel.scheduleAfter("a", 3 * TICK);
+        wheel.scheduleAfter("b", 3 * TICK - 1);
+        wheel.scheduleAfter("c", 3 * TICK + 1);
+
+        advance(3 * TICK - 1);
+        assertTrue(batches.isEmpty());
+
+        advance(1);
+        assertEquals(List.of(List.of("a", "b")), batches);
+
+        advance(TICK);
+        assertEquals(List.of(List.of("a", "b"), List.of("c")), batches);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void keysBeyondOneTurnWaitForTheirRemainingRounds() {
+        wheel = wheel(batches::add);
+        // Misma casilla que la de 4 ticks, pero dos vueltas más tarde
+        wheel.scheduleAfter("near", 4 * TICK);
+        wheel.scheduleAfter("far", (4 + 2 * WHEEL_SIZE) * TICK);
+
+        advance(4 * TICK);
+        assertEquals(List.of(List.of("near")), batches);
+
+        advance(2 * WHEEL_SIZE * TICK - 1);
+        assertEquals(1, batches.size());
+        assertEquals(1, wheel.size());
+
+        advance(1);
+        assertEquals(List.of(List.of("near"), List.of("far")), batches);
+    }
+
+    @Test
+    void pastDeadlineExpiresOnTheNextTick() {
+        wheel = wheel(batches::add);
+        advance(TICK / 2);
+        wheel.scheduleAfter("late", -5 * TICK);
+
+        advance(TICK / 2);
+        assertEquals(List.of(List.of("late")), batches);
+    }
+
+    @Test
+    void cancelledKeysNeverExpire() {
+        wheel = wheel(batches::add);
+        wheel.scheduleAfter("kept", 2 * TICK);
+        wheel.scheduleAfter("cancelled", 2 * TICK);
+        wheel.scheduleAfter("cancelled-before-transfer", TICK);
+
+        assertTrue(wheel.cancel("cancelled-before-transfer"));
+        advance(TICK);
+        assertTrue(wheel.cancel("cancelled"));
+        assertFalse(wheel.cancel("cancelled"));
+        assertEquals(1, wheel.size());
+
+        advance(10 * TICK);
+        assertEquals(List.of(List.of("kept")), batches);
+        assertFalse(wheel.cancel("kept"));
+    }
+
+    @Test
+    void reschedulingReplacesTheEarlierDeadline() {
+        wheel = wheel(batches::add);
+        wheel.scheduleAfter("later", 2 * TICK);
+        wheel.scheduleAfter("sooner", 10 * TICK);
+        advance(TICK);
+        wheel.scheduleAfter("later", 5 * TICK);
+        wheel.scheduleAfter("sooner", TICK);
+        assertEquals(2, wheel.size());
+
+        advance(TICK);
+        assertEquals(List.of(List.of("sooner")), batches);
+
+        advance(3 * TICK);
+        assertEquals(1, batches.size());
+        advance(TICK);
+        assertEquals(List.of(List.of("sooner"), List.of("later")), batches);
+
+        advance(20 * TICK);
+        assertEquals(2, batches.size());
+    }
+
+    @Test
+    void catchesUpOnTicksMissedDuringASlowBatch() {
+        // El primer lote tarda tres ticks y medio; los ticks vencidos mientras tanto se procesan seguidos
+        wheel = wheel(expired -> {
+            batches.add(expired);
+            if (batches.size() == 1) now += 3 * TICK + TICK / 2;
+        });
+        for (int i = 1; i <= 5; i++) wheel.scheduleAfter("k" + i, i * TICK);
+
+        assertEquals(4, advance(TICK));
+        assertEquals(List.of(List.of("k1"), List.of("k2"), List.of("k3"), List.of("k4")), batches);
+
+        // La recuperación no desplaza los ticks siguientes: k5 sigue venciendo a los cinco ticks del arranque
+        advance(TICK / 2 - 1);
+        assertEquals(4, batches.size());
+        advance(1);
+        assertEquals(List.of("k5"), batches.get(4));
+    }
+
+    @Test
+    void failingConsumerDoesNotStopTheWheel() {
+        wheel = wheel(expired -> {
+            batches.add(expired);
+            if (expired.contains("boom")) throw new IllegalStateException("fallo del consumidor");
+        });
+        wheel.scheduleAfter("boom", TICK);
+        wheel.scheduleAfter("after", 2 * TICK);
+
+        assertEquals(2, advance(2 * TICK));
+        assertEquals(List.of(List.of("boom"), List.of("after")), batches);
+    }
+
+    private HashedTimingWheel<String> wheel(Consumer<List<String>> onExpire) {
+        return new HashedTimingWheel<>("test-wheel", Duration.ofNanos(TICK), WHEEL_SIZE, onExpire, () -> now, false);
+    }
+
+    private int advance(long nanos) {
+        now += nanos;
+        return wheel.runDueTicks();
+    }
+}
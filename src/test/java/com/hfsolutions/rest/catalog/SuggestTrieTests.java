@@ -0,0 +1,113 @@
+package com.hfsolutions.rest.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Comprueba la partición de aristas, la poda de nodos vacíos y el recálculo de los rankings de
+ * {@link SuggestTrie}. Los valores son enteros y el menor es el mejor.
+ */
+class SuggestTrieTests {
+    private final SuggestTrie<Integer> trie = new SuggestTrie<>(3, Comparator.naturalOrder());
+
+    @Test
+    void splitsAnEdgeWhereKeysDiverge() {
+        trie.add("samsung", 1);
+        assertEquals(2, trie.nodeCount());
+
+        // "sams" parte la arista "samsung" en "sams" + "ung"; "sand" la vuelve a partir en "sa" + "ms"/"nd"
+        trie.add("sams", 2);
+        assertEquals(3, trie.nodeCount());
+        trie.add("sand", 3);
+        assertEquals(5, trie.nodeCount());
+
+        assertEquals(List.of(1, 2, 3), trie.top("s", 10));
+        assertEquals(List.of(1, 2, 3), trie.top("sa", 10));
+        assertEquals(List.of(1, 2), trie.top("sam", 10));
+        assertEquals(List.of(1, 2), trie.top("sams", 10));
+        assertEquals(List.of(1), trie.top("samsu", 10));
+        assertEquals(List.of(3), trie.top("san", 10));
+        assertEquals(List.of(), trie.top("samx", 10));
+        assertEquals(List.of(), trie.top("samsungs", 10));
+    }
+
+    @Test
+    void rankingKeepsTheBestKDistinctValues() {
+        trie.add("galaxy", 5);
+        trie.add("galaxy tab", 2);
+        trie.add("gala", 4);
+        trie.add("galaxy", 5);
+        trie.add("galaxy s23", 1);
+        // Un mismo valor con dos claves aparece una sola vez
+        trie.add("gallo", 1);
+
+        assertEquals(List.of(1, 2, 4), trie.top("gal", 10));
+        assertEquals(List.of(1, 2), trie.top("gal", 2));
+        assertEquals(List.of(1, 2, 5), trie.top("galaxy", 10));
+        assertEquals(List.of(1), trie.top("gall", 10));
+    }
+
+    @Test
+    void removingPrunesEmptyLeaves() {
+        trie.add("cafe", 1);
+        int before = trie.nodeCount();
+        trie.add("cafetera", 2);
+        trie.add("cama", 3);
+
+        trie.remove("cafetera", 2);
+        trie.remove("cama", 3);
+        // El nodo intermedio "ca" que creó "cama" queda con un solo hijo: se conserva, pero las hojas se podan
+        assertEquals(before + 1, trie.nodeCount());
+        assertEquals(List.of(1), trie.top("c", 10));
+        assertEquals(List.of(), trie.top("cam", 10));
+
+        trie.remove("cafe", 1);
+        assertEquals(List.of(), trie.top("", 10));
+    }
+
+    @Test
+    void removingAMissingKeyOrValueChangesNothing() {
+        trie.add("mesa", 1);
+        int nodes = trie.nodeCount();
+
+        trie.remove("mes", 1);
+        trie.remove("mesas", 1);
+        trie.remove("mesa", 2);
+        trie.remove("silla", 1);
+
+        assertEquals(nodes, trie.nodeCount());
+        assertEquals(List.of(1), trie.top("mesa", 10));
+    }
+
+    @Test
+    void removingARankedValueRecomputesFromTheChildren() {
+        for (int i = 1; i <= 5; i++) trie.add("tv" + i, i);
+        assertEquals(List.of(1, 2, 3), trie.top("tv", 10));
+
+        // 4 no estaba en el ranking de "tv" (k = 3) y debe recuperarse del ranking de su hoja
+        trie.remove("tv1", 1);
+        assertEquals(List.of(2, 3, 4), trie.top("tv", 10));
+        assertEquals(List.of(2, 3, 4), trie.top("", 10));
+
+        // Quitar una de sus claves no saca del ranking a un valor que conserva otra
+        trie.add("tv-extra", 2);
+        trie.remove("tv2", 2);
+        assertEquals(List.of(2, 3, 4), trie.top("tv", 10));
+        trie.remove("tv-extra", 2);
+        assertEquals(List.of(3, 4, 5), trie.top("tv", 10));
+    }
+
+    @Test
+    void filteredTopLooksPastThePrecomputedRanking() {
+        for (int i = 1; i <= 6; i++) trie.add("lampara" + i, i);
+
+        assertEquals(List.of(4, 5, 6), trie.top("lampara", 10, value -> value > 3));
+        assertEquals(List.of(5), trie.top("lampara", 1, value -> value % 5 == 0));
+        assertEquals(List.of(1, 3), trie.top("lampara", 10, value -> value % 2 == 1 && value < 5));
+        assertEquals(List.of(), trie.top("lampara", 10, value -> false));
+    }
+}